@@ -0,0 +1,73 @@
+plugins {
+    java
+    groovy
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+repositories {
+    mavenCentral()
+}
+
+// HTTP load generator for the servlet application: scenario scripts run under a closed or an
+// open model, with HdrHistogram latency reports checked against load-thresholds.properties.
+dependencies {
+    implementation(platform(libs.org.springframework.boot.spring.boot.dependencies))
+    implementation(libs.org.hdrhistogram.hdrhistogram)
+    // the scenarios are Groovy scripts
+    implementation(libs.org.apache.groovy.groovy)
+
+    // Testing; the application runs in the test's JVM on a real port
+    testImplementation(platform(libs.org.springframework.boot.spring.boot.dependencies))
+    testImplementation(project(":"))
+    testImplementation(libs.org.springframework.boot.spring.boot.starter.test)
+    testImplementation(libs.org.springframework.boot.spring.boot.starter.data.jpa)
+    testImplementation(libs.org.spockframework.spock.core)
+    testImplementation(libs.org.spockframework.spock.spring)
+    // brought along by the Spring Boot plugin in the other projects, which this one does not apply
+    testRuntimeOnly(libs.org.junit.platform.junit.platform.launcher)
+
+    // Containers
+    testImplementation(libs.org.testcontainers.junit.jupiter)
+    testImplementation(libs.org.testcontainers.postgresql)
+    testImplementation(libs.org.springframework.boot.spring.boot.testcontainers)
+}
+
+tasks.withType<Test> {
+    useJUnitPlatform()
+}
+
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("load")
+    }
+}
+
+// Fails when a run exceeds one of the thresholds; not part of the regular build, as seeding
+// the catalog and the runs take a while
+val loadTest by tasks.registering(Test::class) {
+    description = "Runs the load scenarios against the application and checks them against the thresholds."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    systemProperty("load.scenarioDir", file("scenarios").absolutePath)
+    systemProperty("load.thresholds", file("load-thresholds.properties").absolutePath)
+    systemProperty("load.reportDir", layout.buildDirectory.dir("reports/load").get().asFile.absolutePath)
+    systemProperties(providers.systemPropertiesPrefixedBy("load.").get())
+    inputs.dir("scenarios")
+    inputs.file("load-thresholds.properties")
+    // a run measures the application as it is now, not as it was
+    outputs.upToDateWhen { false }
+    maxHeapSize = "2g"
+    useJUnitPlatform {
+        includeTags("load")
+    }
+    testLogging {
+        showStandardStreams = true
+    }
+    shouldRunAfter(tasks.test)
+}
@@ -0,0 +1,10 @@
+// A few bestsellers and their authors asked for by everyone at once, answered from the
+// lookup caches, and lookups of many books that mostly miss them
+clients 16
+rate 80
+
+get "hot book", 80, { "/books/${it.hotIsbn()}" }
+get "hot author", 15, { "/authors/${it.hotAuthorId()}" }
+post "lookup", 5, { "/books/lookup" }, {
+    """{"isbns": [${(1..20).collect { i -> "\"${i % 2 == 0 ? it.hotIsbn() : it.isbn()}\"" }.join(", ")}]}"""
+}, 200
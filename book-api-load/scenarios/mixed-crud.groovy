@@ -0,0 +1,11 @@
+// Every kind of request of the books API in the proportions of an ordinary day; the books
+// this scenario deletes are ones it created, which have no author that other books share
+clients 16
+rate 50
+
+get "book", 45, { "/books/${it.isbn()}" }
+get "author's books", 15, { "/authors/${it.authorId()}/books?size=20" }
+get "author", 10, { "/authors/${it.authorId()}" }
+post "new book", 10, { "/books/${it.newIsbn()}" }, { """{"title": "Title ${it.word()}"}""" }
+patch "title", 10, { "/books/${it.isbn()}" }, { """{"title": "Revised ${it.word()}"}""" }
+delete "created book", 5, { "/books/${it.createdIsbn()}" }
@@ -0,0 +1,11 @@
+// Visitors browsing the catalog: pages of an author's books, the books opened from them and
+// the occasional search, with one write in a hundred requests
+clients 16
+rate 50
+
+get "author's books", 40, { "/authors/${it.authorId()}/books?page=${it.nextInt(3)}&size=20" }
+get "book", 35, { "/books/${it.isbn()}" }
+get "author", 10, { "/authors/${it.authorId()}" }
+get "search", 10, { "/books/search?q=${it.word()}" }
+get "first cursor page", 4, { "/books/cursor?size=20" }
+patch "title", 1, { "/books/${it.isbn()}" }, { """{"title": "Revised ${it.word()}"}""" }
@@ -0,0 +1,13 @@
+// Producers that send books one at a time rather than in batches: new books, alone, by a
+// seeded author or by a new one, and retitled ones
+clients 16
+rate 40
+
+post "new book", 40, { "/books/${it.newIsbn()}" }, { """{"title": "Title ${it.word()}"}""" }
+post "new book of an author", 20, { "/books/${it.newIsbn()}" }, {
+    """{"title": "Title ${it.word()}", "author": {"id": ${it.authorId()}}}"""
+}
+post "new book of a new author", 10, { "/books/${it.newIsbn()}" }, {
+    """{"title": "Title ${it.word()}", "author": {"name": "Author ${it.word()}", "age": ${20 + it.nextInt(60)}}}"""
+}
+patch "title", 30, { "/books/${it.isbn()}" }, { """{"title": "Revised ${it.word()}"}""" }
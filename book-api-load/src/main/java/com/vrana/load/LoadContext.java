@@ -0,0 +1,98 @@
+package com.vrana.load;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What the scenario scripts build their requests from: the keys of the seeded catalog and the
+ * books the run itself has created. Seeded books have the isbns {@code 0000000000001} to
+ * {@code books} zero-padded to 13 digits and are spread over the authors in id order; their
+ * titles are three words of {@link #SYLLABLES}. Books created by a run get isbns outside of
+ * that range that no other run in the same JVM reuses; a context belongs to one run, so that
+ * it only hands out the books that run created.
+ */
+public final class LoadContext {
+
+    public static final List<String> SYLLABLES = List.of("ka", "lo", "mi", "ra", "ven", "tor", "sil", "dun",
+            "bel", "mar", "quin", "zor", "pel", "fin", "gad", "hul");
+
+    // shared by the contexts of all runs, which create books in the same database
+    private static final AtomicLong NEW_ISBNS = new AtomicLong();
+
+    private final long books;
+
+    private final long firstAuthorId;
+
+    private final long authors;
+
+    private final int hotKeys;
+
+    private final Queue<String> createdIsbns = new ConcurrentLinkedQueue<>();
+
+    public LoadContext(long books, long firstAuthorId, long authors, int hotKeys) {
+        this.books = books;
+        this.firstAuthorId = firstAuthorId;
+        this.authors = authors;
+        this.hotKeys = hotKeys;
+    }
+
+    public int nextInt(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    /** Any seeded book, all of them equally likely. */
+    public String isbn() {
+        return seededIsbn(1 + ThreadLocalRandom.current().nextLong(books));
+    }
+
+    /** One of the first {@code hotKeys} seeded books, the first ones far more often than the last. */
+    public String hotIsbn() {
+        return seededIsbn(1 + skewed(hotKeys));
+    }
+
+    /** Any seeded author, all of them equally likely. */
+    public long authorId() {
+        return firstAuthorId + ThreadLocalRandom.current().nextLong(authors);
+    }
+
+    /** One of the first {@code hotKeys} seeded authors, the first ones far more often than the last. */
+    public long hotAuthorId() {
+        return firstAuthorId + skewed((int) Math.min(hotKeys, authors));
+    }
+
+    /** A word of the seeded titles, most of which it matches a few of. */
+    public String word() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return SYLLABLES.get(random.nextInt(SYLLABLES.size())) + SYLLABLES.get(random.nextInt(SYLLABLES.size()))
+                + SYLLABLES.get(random.nextInt(SYLLABLES.size()));
+    }
+
+    /** An isbn no book has yet, remembered for {@link #createdIsbn()}. */
+    public String newIsbn() {
+        String isbn = String.format("979%010d", NEW_ISBNS.incrementAndGet());
+        createdIsbns.add(isbn);
+        return isbn;
+    }
+
+    /**
+     * A book created by a {@link #newIsbn()} request, each handed out once, or a new isbn when
+     * none is left, so that a delete never removes a seeded book.
+     */
+    public String createdIsbn() {
+        String isbn = createdIsbns.poll();
+        return isbn != null ? isbn : String.format("979%010d", NEW_ISBNS.incrementAndGet());
+    }
+
+    private static String seededIsbn(long number) {
+        return String.format("%013d", number);
+    }
+
+    // the square of a uniform draw, so that the lowest keys get most of the requests
+    private static long skewed(int keys) {
+        double draw = ThreadLocalRandom.current().nextDouble();
+        return (long) (draw * draw * keys);
+    }
+}
@@ -0,0 +1,37 @@
+package com.vrana.load;
+
+/**
+ * How the requests of a run are sent.
+ */
+public sealed interface LoadModel {
+
+    String name();
+
+    /**
+     * A fixed number of clients that each send their next request once the previous one is
+     * answered, so a slower application is sent fewer requests. A client turned away with a
+     * {@code Retry-After} header waits that long first.
+     */
+    record Closed(int clients) implements LoadModel {
+
+        @Override
+        public String name() {
+            return "closed";
+        }
+    }
+
+    /**
+     * Requests that arrive at a constant rate whatever the application's latency, as from
+     * many independent users. The latency of a request is counted from the moment it was due,
+     * so that requests held back by the generator are not reported faster than they were.
+     * Requests due while {@code maxInFlight} are still unanswered are dropped and count as
+     * errors.
+     */
+    record Open(int requestsPerSecond, int maxInFlight) implements LoadModel {
+
+        @Override
+        public String name() {
+            return "open";
+        }
+    }
+}
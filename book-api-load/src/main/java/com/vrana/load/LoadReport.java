@@ -0,0 +1,55 @@
+package com.vrana.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.TreeMap;
+
+/**
+ * Writes the latency distribution of every run as {@code <scenario>-<model>.hgrm}, in
+ * milliseconds in the format HdrHistogram's plotter reads, and a line per run and per
+ * operation to {@code summary.txt}, which a new report starts afresh.
+ */
+public final class LoadReport {
+
+    private final Path directory;
+
+    public LoadReport(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        Files.deleteIfExists(summary());
+    }
+
+    public String write(RunResult result) throws IOException {
+        String name = result.scenario() + "-" + result.model();
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")))) {
+            result.latencies().outputPercentileDistribution(out, 1000.0);
+        }
+        StringBuilder lines = new StringBuilder(String.format("%-32s %8.1f req/s %6.2f%% shed %6.2f%% errors %s%n",
+                name, result.throughput(), result.shedRatio() * 100, result.errorRatio() * 100,
+                percentiles(result.latencies())));
+        if (!result.errors().isEmpty()) {
+            lines.append(String.format("  %-30s %s%n", "errors", result.errors()));
+        }
+        new TreeMap<>(result.operationLatencies()).forEach((operation, latencies) ->
+                lines.append(String.format("  %-30s %8.1f req/s %27s %s%n",
+                        operation, result.throughput(latencies), "", percentiles(latencies))));
+        Files.writeString(summary(), lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return lines.toString();
+    }
+
+    private Path summary() {
+        return directory.resolve("summary.txt");
+    }
+
+    private static String percentiles(Histogram latencies) {
+        return String.format("p50 %8.2f ms  p99 %8.2f ms  p99.9 %8.2f ms  max %8.2f ms",
+                RunResult.millis(latencies.getValueAtPercentile(50)),
+                RunResult.millis(latencies.getValueAtPercentile(99)),
+                RunResult.millis(latencies.getValueAtPercentile(99.9)),
+                RunResult.millis(latencies.getMaxValue()));
+    }
+}
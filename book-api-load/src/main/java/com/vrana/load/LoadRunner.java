@@ -0,0 +1,135 @@
+package com.vrana.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends the requests of a scenario to a running application, under a closed or an open
+ * model, first for a warm-up whose latencies are discarded and then for the measured run.
+ * Every request is sent on a virtual thread of its own.
+ */
+public final class LoadRunner {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private final String baseUrl;
+
+    private final LoadContext context;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    public LoadRunner(String baseUrl, LoadContext context) {
+        this.baseUrl = baseUrl;
+        this.context = context;
+    }
+
+    public RunResult run(Scenario scenario, LoadModel model, Duration warmup, Duration duration) {
+        run(scenario, model, warmup, new RunResult(scenario.name(), model.name(), warmup));
+        RunResult result = new RunResult(scenario.name(), model.name(), duration);
+        run(scenario, model, duration, result);
+        return result;
+    }
+
+    private void run(Scenario scenario, LoadModel model, Duration duration, RunResult result) {
+        switch (model) {
+            case LoadModel.Closed closed -> runClosed(scenario, closed, duration, result);
+            case LoadModel.Open open -> runOpen(scenario, open, duration, result);
+        }
+    }
+
+    private void runClosed(Scenario scenario, LoadModel.Closed model, Duration duration, RunResult result) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < model.clients(); i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        Duration retryAfter = send(scenario.pick(), System.nanoTime(), result);
+                        // a client turned away waits as long as it is asked to
+                        if (retryAfter != null) {
+                            LockSupport.parkNanos(Math.min(retryAfter.toNanos(), deadline - System.nanoTime()));
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private void runOpen(Scenario scenario, LoadModel.Open model, Duration duration, RunResult result) {
+        long interval = 1_000_000_000L / model.requestsPerSecond();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        Semaphore inFlight = new Semaphore(model.maxInFlight());
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long due = start; due < end; due += interval) {
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (!inFlight.tryAcquire()) {
+                    result.recordError("dropped");
+                    continue;
+                }
+                long dueAt = due;
+                Operation operation = scenario.pick();
+                requests.submit(() -> {
+                    try {
+                        // an open-model request is due when it is due, whatever a response asks
+                        send(operation, dueAt, result);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    // The latency runs from the given start, when the request was sent or when it was due.
+    // Returns how long the application asked to wait before the next request, if it did.
+    private Duration send(Operation operation, long startNanos, RunResult result) {
+        String body = operation.bodyFor(context);
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + operation.pathFor(context)))
+                .timeout(REQUEST_TIMEOUT)
+                .method(operation.method(), body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        try {
+            HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() == operation.expectedStatus()) {
+                result.recordSuccess(operation, System.nanoTime() - startNanos);
+                return null;
+            }
+            Duration retryAfter = response.headers().firstValueAsLong("Retry-After").stream()
+                    .mapToObj(Duration::ofSeconds)
+                    .findFirst()
+                    .orElse(null);
+            // shedding is the concurrency limit at work, any other answer is an error
+            if (response.statusCode() == 503 && retryAfter != null) {
+                result.recordShed();
+            } else {
+                result.recordError(String.valueOf(response.statusCode()));
+            }
+            return retryAfter;
+        } catch (IOException ex) {
+            result.recordError(ex.getClass().getSimpleName());
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            result.recordError("interrupted");
+            return null;
+        }
+    }
+}
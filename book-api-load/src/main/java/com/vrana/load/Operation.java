@@ -0,0 +1,21 @@
+package com.vrana.load;
+
+import java.util.function.Function;
+
+/**
+ * One kind of request of a scenario, picked in proportion to its weight. The path and the
+ * JSON body, {@code null} for requests without one, are built anew for every request, from
+ * anything whose string is the path or the body, such as the GStrings of a script; any status
+ * other than the expected one counts as an error.
+ */
+public record Operation(String name, int weight, String method, Function<LoadContext, ?> path,
+                        Function<LoadContext, ?> body, int expectedStatus) {
+
+    String pathFor(LoadContext context) {
+        return String.valueOf(path.apply(context));
+    }
+
+    String bodyFor(LoadContext context) {
+        return body == null ? null : String.valueOf(body.apply(context));
+    }
+}
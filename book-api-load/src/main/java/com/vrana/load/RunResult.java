@@ -0,0 +1,134 @@
+package com.vrana.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latencies of the requests of one run answered with their expected status, in
+ * microseconds, in total and per operation, the count of those the application shed on
+ * purpose, with 503 and a {@code Retry-After}, and of the errors: answered with another status,
+ * timed out or failed, or dropped by an open-model run.
+ */
+public final class RunResult {
+
+    // three significant digits, the resolution of the reported percentiles
+    private static final int PRECISION = 3;
+
+    private final String scenario;
+
+    private final String model;
+
+    private final Duration duration;
+
+    private final Histogram latencies = new ConcurrentHistogram(PRECISION);
+
+    private final Map<String, Histogram> operationLatencies = new ConcurrentHashMap<>();
+
+    private final LongAdder shed = new LongAdder();
+
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    RunResult(String scenario, String model, Duration duration) {
+        this.scenario = scenario;
+        this.model = model;
+        this.duration = duration;
+    }
+
+    void recordSuccess(Operation operation, long latencyNanos) {
+        long latencyMicros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        latencies.recordValue(latencyMicros);
+        operationLatencies.computeIfAbsent(operation.name(), name -> new ConcurrentHistogram(PRECISION))
+                .recordValue(latencyMicros);
+    }
+
+    void recordShed() {
+        shed.increment();
+    }
+
+    void recordError(String cause) {
+        errors.computeIfAbsent(cause, key -> new LongAdder()).increment();
+    }
+
+    public String scenario() {
+        return scenario;
+    }
+
+    public String model() {
+        return model;
+    }
+
+    public Histogram latencies() {
+        return latencies;
+    }
+
+    public Map<String, Histogram> operationLatencies() {
+        return operationLatencies;
+    }
+
+    /** The requests the application turned away with 503 and a {@code Retry-After}. */
+    public long shed() {
+        return shed.sum();
+    }
+
+    /** The requests that were neither answered with their expected status nor shed, by status or failure. */
+    public Map<String, Long> errors() {
+        Map<String, Long> counts = new TreeMap<>();
+        errors.forEach((cause, count) -> counts.put(cause, count.sum()));
+        return counts;
+    }
+
+    /** Requests per second answered with their expected status. */
+    public double throughput() {
+        return throughput(latencies);
+    }
+
+    /** Requests per second answered with their expected status, of the given latencies. */
+    public double throughput(Histogram latencies) {
+        return latencies.getTotalCount() / (duration.toNanos() / 1e9);
+    }
+
+    /** The share of the requests that were neither answered with their expected status nor shed. */
+    public double errorRatio() {
+        return ratio(errors().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    /** The share of the requests the application shed. */
+    public double shedRatio() {
+        return ratio(shed());
+    }
+
+    private double ratio(long count) {
+        long total = latencies.getTotalCount() + shed() + errors().values().stream().mapToLong(Long::longValue).sum();
+        return total == 0 ? 0 : count / (double) total;
+    }
+
+    /**
+     * A metric of the thresholds file: the percentiles {@code p50}, {@code p90}, {@code p99},
+     * {@code p99.9} and the {@code max} latency in milliseconds, {@code throughput} in requests
+     * per second, and {@code shed} and {@code errors} as shares of the requests.
+     */
+    public double metric(String name) {
+        return switch (name) {
+            case "p50" -> millis(latencies.getValueAtPercentile(50));
+            case "p90" -> millis(latencies.getValueAtPercentile(90));
+            case "p99" -> millis(latencies.getValueAtPercentile(99));
+            case "p99.9" -> millis(latencies.getValueAtPercentile(99.9));
+            case "max" -> millis(latencies.getMaxValue());
+            case "throughput" -> throughput();
+            case "shed" -> shedRatio();
+            case "errors" -> errorRatio();
+            default -> throw new IllegalArgumentException("Unknown metric: " + name);
+        };
+    }
+
+    static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,30 @@
+package com.vrana.load;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A mix of operations, with the number of clients of its closed-model runs and the arrival
+ * rate of its open-model ones.
+ */
+public record Scenario(String name, List<Operation> operations, int clients, int requestsPerSecond) {
+
+    public Scenario {
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("Scenario " + name + " has no operations");
+        }
+        operations = List.copyOf(operations);
+    }
+
+    Operation pick() {
+        int totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+        int draw = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : operations) {
+            draw -= operation.weight();
+            if (draw < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Weights of scenario " + name + " changed");
+    }
+}
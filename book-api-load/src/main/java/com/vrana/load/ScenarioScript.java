@@ -0,0 +1,133 @@
+package com.vrana.load;
+
+import groovy.lang.GroovyShell;
+import groovy.util.DelegatingScript;
+import org.codehaus.groovy.control.CompilerConfiguration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Reads scenarios from Groovy scripts, one scenario per {@code .groovy} file named after it.
+ * A script lists the operations with their weights, the path and, for writes, the body
+ * built from the {@link LoadContext} passed to the closures and, where it is not the usual
+ * one of the method, the expected status; it may set its own client count and arrival rate:
+ * <pre>
+ * clients 50
+ * rate 400
+ * get "book", 8, { "/books/${it.isbn()}" }
+ * post "lookup", 1, { "/books/lookup" }, { """{"isbns": ["${it.isbn()}"]}""" }, 200
+ * patch "title", 1, { "/books/${it.isbn()}" }, { """{"title": "Renamed"}""" }
+ * </pre>
+ */
+public final class ScenarioScript {
+
+    private ScenarioScript() {
+    }
+
+    public static List<Scenario> loadAll(Path directory, int defaultClients, int defaultRequestsPerSecond) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> scripts = files.filter(file -> file.getFileName().toString().endsWith(".groovy"))
+                    .sorted()
+                    .toList();
+            List<Scenario> scenarios = new ArrayList<>();
+            for (Path script : scripts) {
+                scenarios.add(load(script, defaultClients, defaultRequestsPerSecond));
+            }
+            return scenarios;
+        }
+    }
+
+    public static Scenario load(Path script, int defaultClients, int defaultRequestsPerSecond) throws IOException {
+        String fileName = script.getFileName().toString();
+        Builder builder = new Builder(defaultClients, defaultRequestsPerSecond);
+        CompilerConfiguration configuration = new CompilerConfiguration();
+        configuration.setScriptBaseClass(DelegatingScript.class.getName());
+        DelegatingScript delegatingScript = (DelegatingScript) new GroovyShell(configuration)
+                .parse(Files.readString(script), fileName);
+        delegatingScript.setDelegate(builder);
+        delegatingScript.run();
+        return new Scenario(fileName.substring(0, fileName.length() - ".groovy".length()),
+                builder.operations, builder.clients, builder.requestsPerSecond);
+    }
+
+    /**
+     * The methods a scenario script calls.
+     */
+    public static final class Builder {
+
+        private final List<Operation> operations = new ArrayList<>();
+
+        private int clients;
+
+        private int requestsPerSecond;
+
+        private Builder(int clients, int requestsPerSecond) {
+            this.clients = clients;
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        public void clients(int clients) {
+            this.clients = clients;
+        }
+
+        public void rate(int requestsPerSecond) {
+            this.requestsPerSecond = requestsPerSecond;
+        }
+
+        public void get(String name, int weight, Function<LoadContext, ?> path) {
+            get(name, weight, path, 200);
+        }
+
+        public void get(String name, int weight, Function<LoadContext, ?> path, int expectedStatus) {
+            add(new Operation(name, weight, "GET", path, null, expectedStatus));
+        }
+
+        public void post(String name, int weight, Function<LoadContext, ?> path, Function<LoadContext, ?> body) {
+            post(name, weight, path, body, 201);
+        }
+
+        public void post(String name, int weight, Function<LoadContext, ?> path, Function<LoadContext, ?> body,
+                         int expectedStatus) {
+            add(new Operation(name, weight, "POST", path, body, expectedStatus));
+        }
+
+        public void put(String name, int weight, Function<LoadContext, ?> path, Function<LoadContext, ?> body) {
+            put(name, weight, path, body, 200);
+        }
+
+        public void put(String name, int weight, Function<LoadContext, ?> path, Function<LoadContext, ?> body,
+                        int expectedStatus) {
+            add(new Operation(name, weight, "PUT", path, body, expectedStatus));
+        }
+
+        public void patch(String name, int weight, Function<LoadContext, ?> path, Function<LoadContext, ?> body) {
+            patch(name, weight, path, body, 200);
+        }
+
+        public void patch(String name, int weight, Function<LoadContext, ?> path, Function<LoadContext, ?> body,
+                          int expectedStatus) {
+            add(new Operation(name, weight, "PATCH", path, body, expectedStatus));
+        }
+
+        public void delete(String name, int weight, Function<LoadContext, ?> path) {
+            delete(name, weight, path, 204);
+        }
+
+        public void delete(String name, int weight, Function<LoadContext, ?> path, int expectedStatus) {
+            add(new Operation(name, weight, "DELETE", path, null, expectedStatus));
+        }
+
+        private void add(Operation operation) {
+            if (operation.weight() <= 0) {
+                throw new IllegalArgumentException("Operation " + operation.name() + " needs a positive weight");
+            }
+            operations.add(operation);
+        }
+    }
+}
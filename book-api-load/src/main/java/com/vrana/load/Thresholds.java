@@ -0,0 +1,56 @@
+package com.vrana.load;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The limits a run must stay within, read from a properties file with keys of the form
+ * {@code <scenario>.<model>.<metric>}, see {@link RunResult#metric(String)}. Throughput is a
+ * lower limit, every other metric an upper one; metrics without a key are not checked.
+ */
+public final class Thresholds {
+
+    static final List<String> METRICS = List.of("p50", "p90", "p99", "p99.9", "max", "throughput", "shed", "errors");
+
+    private final Properties limits;
+
+    private Thresholds(Properties limits) {
+        this.limits = limits;
+    }
+
+    public static Thresholds load(Path file) throws IOException {
+        Properties limits = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            limits.load(reader);
+        }
+        for (String key : limits.stringPropertyNames()) {
+            if (METRICS.stream().noneMatch(metric -> key.endsWith("." + metric))) {
+                throw new IllegalArgumentException("Unknown metric in threshold " + key + " of " + file);
+            }
+        }
+        return new Thresholds(limits);
+    }
+
+    /** Every limit the run exceeded, described for the report. */
+    public List<String> violations(RunResult result) {
+        List<String> violations = new ArrayList<>();
+        for (String metric : METRICS) {
+            String key = result.scenario() + "." + result.model() + "." + metric;
+            String limit = limits.getProperty(key);
+            if (limit == null) {
+                continue;
+            }
+            double actual = result.metric(metric);
+            boolean lowerLimit = metric.equals("throughput");
+            if (lowerLimit ? actual < Double.parseDouble(limit) : actual > Double.parseDouble(limit)) {
+                violations.add(String.format("%s is %.3f, %s %s", key, actual, lowerLimit ? "below" : "above", limit));
+            }
+        }
+        return violations;
+    }
+}
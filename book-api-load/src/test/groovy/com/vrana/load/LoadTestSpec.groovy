@@ -0,0 +1,163 @@
+package com.vrana.load
+
+import com.vrana.database.BookApiApplication
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.test.web.server.LocalServerPort
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.jdbc.core.JdbcTemplate
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Stepwise
+import spock.lang.Tag
+
+import java.nio.file.Path
+import java.time.Duration
+
+/**
+ * Runs every scenario of the {@code scenarios} directory under the closed and the open model
+ * against the application with its default configuration, on a real port in this JVM, and
+ * fails the runs that exceed one of the limits of {@code load-thresholds.properties}. The
+ * catalog is seeded with millions of books first; the reports are written to
+ * {@code build/reports/load}. Execute with {@code ./gradlew :book-api-load:loadTest}.
+ * <p>
+ * The scenarios, models and run lengths can be changed with {@code -Dload.scenarios},
+ * {@code -Dload.models}, {@code -Dload.warmupSeconds} and {@code -Dload.seconds}, the client
+ * count and the arrival rate of every scenario with {@code -Dload.clients} and
+ * {@code -Dload.rate}, and the size of the catalog with {@code -Dload.books} and
+ * {@code -Dload.authors}. The thresholds hold for the defaults on the hosts the build runs on.
+ */
+@Tag("load")
+@Stepwise
+@SpringBootTest(classes = BookApiApplication, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.hibernate.ddl-auto=validate")
+@Testcontainers
+class LoadTestSpec extends Specification {
+
+    private static final long BOOKS = Long.getLong("load.books", 2_000_000)
+
+    private static final int AUTHORS = Integer.getInteger("load.authors", 20_000)
+
+    private static final int HOT_KEYS = Integer.getInteger("load.hotKeys", 100)
+
+    private static final int SEED_CHUNK = 500_000
+
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("load.warmupSeconds", 10))
+
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.seconds", 30))
+
+    private static final List<String> MODELS = System.getProperty("load.models", "closed,open")
+            .split(",")*.trim()
+
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("load.maxInFlight", 10_000)
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @LocalServerPort
+    private int port
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    @Shared
+    private LoadReport report
+
+    @Shared
+    private Thresholds thresholds
+
+    @Shared
+    private long firstAuthorId
+
+    def setupSpec() {
+        report = new LoadReport(Path.of(System.getProperty("load.reportDir", "build/reports/load")))
+        thresholds = Thresholds.load(Path.of(System.getProperty("load.thresholds", "load-thresholds.properties")))
+    }
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "the catalog is seeded with millions of books"() {
+        when:
+        seedCatalog()
+
+        then:
+        jdbcTemplate.queryForObject("SELECT count(*) FROM books", Long) >= BOOKS
+    }
+
+    def "#scenario.name under the #model model stays within its thresholds"() {
+        given: "a context of its own, so that the run only deletes the books it created"
+        def runner = new LoadRunner("http://localhost:$port", new LoadContext(BOOKS, firstAuthorId, AUTHORS, HOT_KEYS))
+
+        when: "the scenario is run after a warm-up"
+        def result = runner.run(scenario, loadModel(scenario, model), WARMUP, DURATION)
+        print report.write(result)
+
+        then: "no limit of the thresholds file is exceeded"
+        thresholds.violations(result) == []
+
+        where:
+        [scenario, model] << [scenarios(), MODELS].combinations()
+    }
+
+    private static List<Scenario> scenarios() {
+        def scenarios = ScenarioScript.loadAll(Path.of(System.getProperty("load.scenarioDir", "scenarios")),
+                Integer.getInteger("load.clients", 64), Integer.getInteger("load.rate", 300))
+        def selected = System.getProperty("load.scenarios")
+        if (selected) {
+            def names = selected.split(",")*.trim()
+            scenarios = scenarios.findAll { it.name() in names }
+        }
+        // the client count and rate given on the command line apply to every scenario
+        scenarios.collect { scenario ->
+            new Scenario(scenario.name(), scenario.operations(),
+                    Integer.getInteger("load.clients", scenario.clients()),
+                    Integer.getInteger("load.rate", scenario.requestsPerSecond()))
+        }
+    }
+
+    private static LoadModel loadModel(Scenario scenario, String model) {
+        switch (model) {
+            case "closed": return new LoadModel.Closed(scenario.clients())
+            case "open": return new LoadModel.Open(scenario.requestsPerSecond(), MAX_IN_FLIGHT)
+            default: throw new IllegalArgumentException("Unknown load model: $model")
+        }
+    }
+
+    // Titles and author names are words of three syllables, so that searches find a few of
+    // them; the books are inserted in chunks to bound the size of a single transaction.
+    private void seedCatalog() {
+        if (jdbcTemplate.queryForObject("SELECT count(*) FROM books", Long) == 0) {
+            jdbcTemplate.update("""
+                    INSERT INTO authors (name, age)
+                    SELECT initcap(${word("hashint4(-2 * i)")}) || ' ' || initcap(${word("hashint4(-2 * i - 1)")}),
+                           20 + i % 60
+                    FROM generate_series(1, ?) AS i""", AUTHORS)
+            for (long from = 1; from <= BOOKS; from += SEED_CHUNK) {
+                jdbcTemplate.update("""
+                        INSERT INTO books (isbn, title, author_id)
+                        SELECT lpad(i::text, 13, '0'),
+                               initcap(${word("hashint4(3 * i)")}) || ' ' || ${word("hashint4(3 * i + 1)")}
+                                   || ' ' || ${word("hashint4(3 * i + 2)")},
+                               (SELECT min(id) FROM authors) + (i - 1) % ?
+                        FROM generate_series(CAST(? AS INTEGER), CAST(? AS INTEGER)) AS i""", AUTHORS, from, Math.min(from + SEED_CHUNK - 1, BOOKS))
+            }
+            jdbcTemplate.execute("ANALYZE books")
+            jdbcTemplate.execute("ANALYZE authors")
+        }
+        firstAuthorId = jdbcTemplate.queryForObject("SELECT min(id) FROM authors", Long)
+    }
+
+    // SQL expression of the pseudo-word picked by the bits of a hash
+    private static String word(String hash) {
+        def syllable = { int shift -> "(ARRAY['${LoadContext.SYLLABLES.join("','")}'])[1 + ($hash >> $shift & 15)]" }
+        "${syllable(0)} || ${syllable(4)} || ${syllable(8)}"
+    }
+}
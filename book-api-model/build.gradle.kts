@@ -0,0 +1,27 @@
+plugins {
+    `java-library`
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+repositories {
+    mavenCentral()
+}
+
+// The request and response bodies of the API. Kept free of Spring so that the servlet
+// application and the reactive read API serialize the very same classes.
+dependencies {
+    api(platform(libs.org.springframework.boot.spring.boot.dependencies))
+    api(libs.com.fasterxml.jackson.core.jackson.annotations)
+    api(libs.jakarta.validation.jakarta.validation.api)
+
+    // only read by springdoc, which the servlet application brings along at runtime
+    compileOnlyApi(libs.io.swagger.core.v3.swagger.annotations.jakarta)
+
+    compileOnly(libs.org.projectlombok.lombok)
+    annotationProcessor(libs.org.projectlombok.lombok)
+}
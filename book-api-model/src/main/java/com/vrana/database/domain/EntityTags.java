@@ -0,0 +1,103 @@
+package com.vrana.database.domain;
+
+import com.vrana.database.domain.dto.AuthorDto;
+import com.vrana.database.domain.dto.BookDto;
+import com.vrana.database.domain.dto.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Version tags and entity tags of the books and authors, computed here for the servlet
+ * application and the reactive read API alike, so that a tag taken from either revalidates
+ * against the other.
+ * <p>
+ * A version tag identifies one state of a book or an author and is built from their version
+ * columns; a book embeds its author, so the tag of a book also changes when only its author
+ * does. Single books and authors get it as a strong entity tag. Pages get a weak one, a digest
+ * of the identity and version of their elements and of the paging state, which determine the
+ * page body, so hashing those stands in for hashing the serialized body.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String versionTag(BookDto bookDto) {
+        return versionTag(bookDto.getVersion(), bookDto.getAuthor() == null ? null : bookDto.getAuthor().getVersion());
+    }
+
+    public static String versionTag(AuthorDto authorDto) {
+        return String.valueOf(authorDto.getVersion());
+    }
+
+    public static String versionTag(Long bookVersion, Long authorVersion) {
+        return authorVersion == null ? String.valueOf(bookVersion) : bookVersion + "." + authorVersion;
+    }
+
+    public static String of(String versionTag) {
+        return "\"" + versionTag + "\"";
+    }
+
+    public static String of(BookDto bookDto) {
+        return of(versionTag(bookDto));
+    }
+
+    public static String of(AuthorDto authorDto) {
+        return of(versionTag(authorDto));
+    }
+
+    /**
+     * The tag of a page of books, given its state, see {@link #pageState(int, int, long, Object)}.
+     */
+    public static String ofBooks(List<BookDto> books, String pageState) {
+        return digest(books, book -> book.getIsbn() + "@" + versionTag(book), pageState);
+    }
+
+    public static String ofBooks(CursorPage<BookDto> page) {
+        return ofBooks(page.getContent(), cursorPageState(page));
+    }
+
+    /**
+     * The tag of a page of authors, given its state, see {@link #pageState(int, int, long, Object)}.
+     */
+    public static String ofAuthors(List<AuthorDto> authors, String pageState) {
+        return digest(authors, author -> author.getId() + "@" + versionTag(author), pageState);
+    }
+
+    public static String ofAuthors(CursorPage<AuthorDto> page) {
+        return ofAuthors(page.getContent(), cursorPageState(page));
+    }
+
+    /**
+     * The state of a numbered page: its number, size, the total count of elements and the sort
+     * as its {@code toString()} renders it.
+     */
+    public static String pageState(int number, int size, long totalElements, Object sort) {
+        return number + "/" + size + "/" + totalElements + "/" + sort;
+    }
+
+    private static String cursorPageState(CursorPage<?> page) {
+        return page.getSize() + "/" + page.getNext() + "/" + page.getPrev();
+    }
+
+    private static <T> String digest(List<T> content, Function<T, String> elementTag, String pageState) {
+        StringBuilder source = new StringBuilder(pageState);
+        content.forEach(element -> source.append(',').append(elementTag.apply(element)));
+        return "W/" + of(md5Hex(source.toString()));
+    }
+
+    private static String md5Hex(String source) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5")
+                    .digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            // every Java platform is required to support MD5
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.vrana.database.domain.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 @Data
@@ -22,4 +24,13 @@ public class AuthorDto {
     @Schema(description = "age of the author", example = "35")
     @Min(message = "Age must be a positive number", value = 0)
     private Integer age;
+
+    // Sent as the ETag header rather than in the body, so it is not part of the representation.
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
+
+    public AuthorDto(Long id, String name, Integer age) {
+        this(id, name, age, null);
+    }
 }
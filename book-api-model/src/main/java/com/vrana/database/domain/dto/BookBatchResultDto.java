@@ -0,0 +1,53 @@
+package com.vrana.database.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchResultDto {
+
+    @Schema(description = "number of books that were created", example = "998")
+    private int created;
+
+    @Schema(description = "number of books that were rejected", example = "2")
+    private int rejected;
+
+    @Schema(description = "outcome of every submitted book, in request order")
+    private List<RowResult> rows;
+
+    public enum Status {
+        CREATED,
+        CONFLICT,
+        INVALID,
+        AUTHOR_NOT_FOUND,
+        // a malformed book, which ends the import
+        UNREADABLE
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowResult {
+
+        @Schema(description = "zero-based position of the book in the request", example = "0")
+        private int index;
+
+        @Schema(description = "isbn of the book", example = "978-0-571-20692-6")
+        private String isbn;
+
+        @Schema(description = "outcome of the book")
+        private Status status;
+
+        @Schema(description = "reason the book was rejected")
+        private String message;
+    }
+}
@@ -1,9 +1,11 @@
 package com.vrana.database.domain.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 @Data
@@ -20,4 +22,13 @@ public class BookDto {
 
     @Schema(description = "author of the book")
     private AuthorDto author;
+
+    // Sent as the ETag header rather than in the body, so it is not part of the representation.
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
+
+    public BookDto(String isbn, String title, AuthorDto author) {
+        this(isbn, title, author, null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.vrana.database.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookLookupRequestDto {
+
+    public static final int MAX_ISBNS = 1000;
+
+    @Schema(description = "isbns of the books to fetch", example = "[\"978-0-571-20692-6\", \"978-0-06-093213-8\"]")
+    @NotEmpty(message = "Isbns cannot be empty")
+    @Size(max = MAX_ISBNS, message = "At most " + MAX_ISBNS + " isbns can be looked up at once")
+    private List<@NotBlank(message = "Isbns cannot be blank") String> isbns;
+}
@@ -0,0 +1,22 @@
+package com.vrana.database.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookLookupResultDto {
+
+    @Schema(description = "books that were found, in request order")
+    private List<BookDto> books;
+
+    @Schema(description = "requested isbns that no book has, in request order", example = "[\"978-0-06-093213-8\"]")
+    private List<String> missing;
+}
@@ -0,0 +1,57 @@
+package com.vrana.database.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogStatsDto {
+
+    @Schema(description = "number of books", example = "1200")
+    private long books;
+
+    @Schema(description = "number of books without an author", example = "15")
+    private long booksWithoutAuthor;
+
+    @Schema(description = "number of authors", example = "340")
+    private long authors;
+
+    @Schema(description = "number of authors by their number of books, in ascending number of books")
+    private List<BooksPerAuthor> booksPerAuthor;
+
+    @Schema(description = "number of authors by age, in ascending age; authors without an age come last")
+    private List<AuthorAge> authorAges;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BooksPerAuthor {
+
+        @Schema(description = "number of books", example = "3")
+        private long books;
+
+        @Schema(description = "number of authors having that many books", example = "42")
+        private long authors;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AuthorAge {
+
+        @Schema(description = "age, null for authors without an age", example = "45")
+        private Integer age;
+
+        @Schema(description = "number of authors of that age", example = "7")
+        private long authors;
+    }
+}
@@ -0,0 +1,41 @@
+package com.vrana.database.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeDto {
+
+    @Schema(description = "kind of the changed entity")
+    private Entity entity;
+
+    @Schema(description = "isbn of the book or id of the author", example = "978-0-571-20692-6")
+    private String key;
+
+    @Schema(description = "whether the entity was created or updated, or deleted")
+    private Operation operation;
+
+    @Schema(description = "version of the entity after the change, or at its deletion", example = "3")
+    private Long version;
+
+    @Schema(description = "start of the transaction that made the change", example = "2024-05-01T12:00:00Z")
+    private Instant changedAt;
+
+    public enum Entity {
+        BOOK,
+        AUTHOR
+    }
+
+    public enum Operation {
+        UPSERT,
+        DELETE
+    }
+}
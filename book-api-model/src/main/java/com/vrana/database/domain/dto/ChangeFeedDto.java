@@ -0,0 +1,22 @@
+package com.vrana.database.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedDto {
+
+    @Schema(description = "changes in the order they were made")
+    private List<ChangeDto> changes;
+
+    @Schema(description = "cursor to pass as since to receive the changes after these")
+    private String next;
+}
@@ -0,0 +1,26 @@
+package com.vrana.database.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+
+    @Schema(description = "elements of the current page")
+    private List<T> content;
+
+    @Schema(description = "number of elements in the current page", example = "20")
+    private int size;
+
+    @Schema(description = "opaque cursor of the following page, absent on the last page")
+    private String next;
+
+    @Schema(description = "opaque cursor of the preceding page, absent on the first page")
+    private String prev;
+}
@@ -0,0 +1,75 @@
+plugins {
+    java
+    groovy
+    id("org.springframework.boot")
+    id("io.spring.dependency-management")
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+configurations {
+    compileOnly {
+        extendsFrom(configurations.annotationProcessor.get())
+    }
+}
+
+repositories {
+    mavenCentral()
+}
+
+// Read-only WebFlux and R2DBC variant of the book API. It serves the GET endpoints of the
+// servlet application from the same schema, which that application migrates with Flyway.
+dependencies {
+    // Core
+    implementation(project(":book-api-model"))
+    implementation(libs.org.springframework.boot.spring.boot.starter.webflux)
+    implementation(libs.org.springframework.boot.spring.boot.starter.actuator)
+
+    // Database
+    implementation(libs.org.springframework.boot.spring.boot.starter.data.r2dbc)
+    runtimeOnly(libs.org.postgresql.r2dbc.postgresql)
+
+    // Tools & Utilities
+    compileOnly(libs.org.projectlombok.lombok)
+    annotationProcessor(libs.org.projectlombok.lombok)
+
+    // Testing; the servlet application runs next to this one to compare their responses
+    testImplementation(project(":"))
+    testImplementation(libs.org.springframework.boot.spring.boot.starter.test)
+    testImplementation(libs.org.spockframework.spock.core)
+    testImplementation(libs.org.spockframework.spock.spring)
+
+    // Containers
+    testImplementation(libs.org.testcontainers.junit.jupiter)
+    testImplementation(libs.org.testcontainers.postgresql)
+    testImplementation(libs.org.springframework.boot.spring.boot.testcontainers)
+}
+
+tasks.withType<Test> {
+    useJUnitPlatform()
+}
+
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("perf")
+    }
+}
+
+val perfTest by tasks.registering(Test::class) {
+    description = "Compares the reactive and the servlet application under load."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    systemProperties(providers.systemPropertiesPrefixedBy("perf.").get())
+    useJUnitPlatform {
+        includeTags("perf")
+    }
+    testLogging {
+        showStandardStreams = true
+    }
+    shouldRunAfter(tasks.test)
+}
@@ -0,0 +1,20 @@
+package com.vrana.reactive;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+@SpringBootApplication
+public class BookApiReactiveApplication {
+
+	/**
+	 * The configuration is read from {@code book-api-reactive.properties}, so that it does not
+	 * shadow the servlet application's {@code application.properties} on a shared classpath.
+	 */
+	public static final String CONFIG_NAME = "spring.config.name=book-api-reactive";
+
+	public static void main(String[] args) {
+		new SpringApplicationBuilder(BookApiReactiveApplication.class)
+				.properties(CONFIG_NAME)
+				.run(args);
+	}
+}
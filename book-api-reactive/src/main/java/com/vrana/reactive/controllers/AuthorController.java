@@ -0,0 +1,43 @@
+package com.vrana.reactive.controllers;
+
+import com.vrana.database.domain.dto.AuthorDto;
+import com.vrana.reactive.repositories.AuthorFilter;
+import com.vrana.reactive.repositories.AuthorReadRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequiredArgsConstructor
+public class AuthorController {
+
+    private final AuthorReadRepository authorReadRepository;
+
+    @GetMapping(path = "/authors")
+    public Mono<ResponseEntity<Page<AuthorDto>>> listAuthors(
+            @RequestParam(name = "minAge", required = false) Integer minAge,
+            @RequestParam(name = "maxAge", required = false) Integer maxAge,
+            @RequestParam(name = "namePrefix", required = false) String namePrefix,
+            @RequestParam(name = "hasBooks", required = false) Boolean hasBooks,
+            @PageableDefault(sort = "id") Pageable pageable) {
+        return authorReadRepository.findAll(new AuthorFilter(minAge, maxAge, namePrefix, hasBooks), pageable)
+                .map(page -> ResponseEntity.ok().eTag(ETags.ofAuthors(page)).body(page));
+    }
+
+    @GetMapping(path = "/authors/{id}")
+    public Mono<ResponseEntity<AuthorDto>> getAuthor(@PathVariable("id") Long id) {
+        return authorReadRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Author not found with id: " + id)))
+                .map(authorDto -> ResponseEntity.ok().eTag(ETags.of(authorDto)).body(authorDto));
+    }
+}
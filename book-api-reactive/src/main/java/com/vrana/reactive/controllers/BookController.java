@@ -0,0 +1,35 @@
+package com.vrana.reactive.controllers;
+
+import com.vrana.database.domain.dto.BookDto;
+import com.vrana.reactive.repositories.BookReadRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequiredArgsConstructor
+public class BookController {
+
+    private final BookReadRepository bookReadRepository;
+
+    @GetMapping(path = "/books")
+    public Mono<ResponseEntity<Page<BookDto>>> listBooks(Pageable pageable) {
+        return bookReadRepository.findAll(pageable)
+                .map(page -> ResponseEntity.ok().eTag(ETags.ofBooks(page)).body(page));
+    }
+
+    @GetMapping(path = "/books/{isbn}")
+    public Mono<ResponseEntity<BookDto>> getBook(@PathVariable("isbn") String isbn) {
+        return bookReadRepository.findByIsbn(isbn)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Book not found with isbn: " + isbn)))
+                .map(bookDto -> ResponseEntity.ok().eTag(ETags.of(bookDto)).body(bookDto));
+    }
+}
@@ -0,0 +1,37 @@
+package com.vrana.reactive.controllers;
+
+import com.vrana.database.domain.EntityTags;
+import com.vrana.database.domain.dto.AuthorDto;
+import com.vrana.database.domain.dto.BookDto;
+import org.springframework.data.domain.Page;
+
+/**
+ * The {@link EntityTags} of the responses, the ones the servlet application sends, so that a
+ * tag taken from either application revalidates against the other. WebFlux answers a matching
+ * {@code If-None-Match} with 304 itself.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(BookDto bookDto) {
+        return EntityTags.of(bookDto);
+    }
+
+    static String of(AuthorDto authorDto) {
+        return EntityTags.of(authorDto);
+    }
+
+    static String ofBooks(Page<BookDto> page) {
+        return EntityTags.ofBooks(page.getContent(), pageState(page));
+    }
+
+    static String ofAuthors(Page<AuthorDto> page) {
+        return EntityTags.ofAuthors(page.getContent(), pageState(page));
+    }
+
+    private static String pageState(Page<?> page) {
+        return EntityTags.pageState(page.getNumber(), page.getSize(), page.getTotalElements(), page.getSort());
+    }
+}
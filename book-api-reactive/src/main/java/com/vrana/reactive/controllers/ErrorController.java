@@ -0,0 +1,63 @@
+package com.vrana.reactive.controllers;
+
+import com.vrana.database.domain.dto.ApiErrorResponse;
+import com.vrana.reactive.repositories.InvalidSortException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.server.MethodNotAllowedException;
+import org.springframework.web.server.MissingRequestValueException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * Answers errors with the bodies and messages of the servlet application's ErrorController.
+ */
+@RestControllerAdvice
+@Slf4j
+public class ErrorController {
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiErrorResponse> handleException(Exception ex) {
+        log.error("Caught exception", ex);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred");
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ApiErrorResponse> handleResponseStatusException(ResponseStatusException ex) {
+        return error(HttpStatus.valueOf(ex.getStatusCode().value()), ex.getReason());
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ApiErrorResponse> handleServerWebInputException(ServerWebInputException ex) {
+        String message = ex.getReason();
+        if (ex instanceof MissingRequestValueException missing) {
+            message = String.format("Required parameter %s is missing", missing.getName());
+        } else if (ex.getCause() instanceof TypeMismatchException mismatch && ex.getMethodParameter() != null) {
+            message = String.format("Invalid value '%s' for parameter %s",
+                    mismatch.getValue(), ex.getMethodParameter().getParameterName());
+        }
+        return error(HttpStatus.BAD_REQUEST, message);
+    }
+
+    @ExceptionHandler(MethodNotAllowedException.class)
+    public ResponseEntity<ApiErrorResponse> handleMethodNotAllowedException(MethodNotAllowedException ex) {
+        return error(HttpStatus.METHOD_NOT_ALLOWED, String.format("Request method %s is not supported", ex.getHttpMethod()));
+    }
+
+    @ExceptionHandler(InvalidSortException.class)
+    public ResponseEntity<ApiErrorResponse> handleInvalidSortException(InvalidSortException ex) {
+        return error(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    private static ResponseEntity<ApiErrorResponse> error(HttpStatus status, String message) {
+        ApiErrorResponse error = ApiErrorResponse.builder()
+                .status(status.value())
+                .message(message)
+                .build();
+
+        return new ResponseEntity<>(error, status);
+    }
+}
@@ -0,0 +1,12 @@
+package com.vrana.reactive.repositories;
+
+/**
+ * Optional criteria for listing authors; {@code null} components do not restrict the result.
+ *
+ * @param minAge     lowest age to include
+ * @param maxAge     highest age to include
+ * @param namePrefix case-insensitive prefix of the name
+ * @param hasBooks   whether the author must, or must not, have written at least one book
+ */
+public record AuthorFilter(Integer minAge, Integer maxAge, String namePrefix, Boolean hasBooks) {
+}
@@ -0,0 +1,84 @@
+package com.vrana.reactive.repositories;
+
+import com.vrana.database.domain.dto.AuthorDto;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class AuthorReadRepository {
+
+    private static final String SELECT_AUTHORS = "SELECT a.id, a.name, a.age, a.version FROM authors a";
+
+    // the properties of AuthorEntity a page can be sorted by, and their columns
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "a.id",
+            "name", "a.name",
+            "age", "a.age",
+            "version", "a.version");
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<AuthorDto> findById(Long id) {
+        return databaseClient.sql(SELECT_AUTHORS + " WHERE a.id = :id")
+                .bind("id", id)
+                .map(AuthorReadRepository::mapTo)
+                .one();
+    }
+
+    public Mono<Page<AuthorDto>> findAll(AuthorFilter filter, Pageable pageable) {
+        Map<String, Object> parameters = new HashMap<>();
+        String where = whereOf(filter, parameters);
+        return SqlPages.pageOf(
+                databaseClient.sql(SELECT_AUTHORS + where + SqlPages.clausesOf(pageable, SORT_COLUMNS))
+                        .bindValues(parameters)
+                        .map(AuthorReadRepository::mapTo)
+                        .all(),
+                pageable,
+                databaseClient.sql("SELECT count(*) FROM authors a" + where)
+                        .bindValues(parameters)
+                        .map(row -> row.get(0, Long.class))
+                        .one());
+    }
+
+    // The same criteria as the AuthorSpecifications of the servlet application; each given
+    // component adds a condition and binds its value.
+    private static String whereOf(AuthorFilter filter, Map<String, Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.minAge() != null) {
+            conditions.add("a.age >= :minAge");
+            parameters.put("minAge", filter.minAge());
+        }
+        if (filter.maxAge() != null) {
+            conditions.add("a.age <= :maxAge");
+            parameters.put("maxAge", filter.maxAge());
+        }
+        if (filter.namePrefix() != null && !filter.namePrefix().isEmpty()) {
+            conditions.add("lower(a.name) LIKE :namePattern ESCAPE '\\'");
+            parameters.put("namePattern", filter.namePrefix().toLowerCase(Locale.ROOT)
+                    .replace("\\", "\\\\")
+                    .replace("%", "\\%")
+                    .replace("_", "\\_") + "%");
+        }
+        if (filter.hasBooks() != null) {
+            conditions.add((filter.hasBooks() ? "" : "NOT ") + "EXISTS (SELECT FROM books b WHERE b.author_id = a.id)");
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static AuthorDto mapTo(Readable row) {
+        return new AuthorDto(row.get("id", Long.class), row.get("name", String.class),
+                row.get("age", Integer.class), row.get("version", Long.class));
+    }
+}
@@ -0,0 +1,65 @@
+package com.vrana.reactive.repositories;
+
+import com.vrana.database.domain.dto.AuthorDto;
+import com.vrana.database.domain.dto.BookDto;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Reads books together with their author in one joined select, the way the servlet
+ * application loads them with the "author" entity graph.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookReadRepository {
+
+    private static final String SELECT_BOOKS = """
+            SELECT b.isbn, b.title, b.version, a.id AS author_id, a.name AS author_name,
+                   a.age AS author_age, a.version AS author_version
+            FROM books b LEFT JOIN authors a ON a.id = b.author_id""";
+
+    // the properties of BookEntity a page can be sorted by, and their columns
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "isbn", "b.isbn",
+            "title", "b.title",
+            "version", "b.version",
+            "author.id", "a.id",
+            "author.name", "a.name",
+            "author.age", "a.age",
+            "author.version", "a.version");
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<BookDto> findByIsbn(String isbn) {
+        return databaseClient.sql(SELECT_BOOKS + " WHERE b.isbn = :isbn")
+                .bind("isbn", isbn)
+                .map(BookReadRepository::mapTo)
+                .one();
+    }
+
+    public Mono<Page<BookDto>> findAll(Pageable pageable) {
+        return SqlPages.pageOf(
+                databaseClient.sql(SELECT_BOOKS + SqlPages.clausesOf(pageable, SORT_COLUMNS))
+                        .map(BookReadRepository::mapTo)
+                        .all(),
+                pageable,
+                databaseClient.sql("SELECT count(*) FROM books")
+                        .map(row -> row.get(0, Long.class))
+                        .one());
+    }
+
+    private static BookDto mapTo(Readable row) {
+        Long authorId = row.get("author_id", Long.class);
+        AuthorDto author = authorId == null ? null : new AuthorDto(authorId, row.get("author_name", String.class),
+                row.get("author_age", Integer.class), row.get("author_version", Long.class));
+        return new BookDto(row.get("isbn", String.class), row.get("title", String.class), author,
+                row.get("version", Long.class));
+    }
+}
@@ -0,0 +1,11 @@
+package com.vrana.reactive.repositories;
+
+/**
+ * Thrown when a page is requested sorted by a property that cannot be sorted on.
+ */
+public class InvalidSortException extends RuntimeException {
+
+    public InvalidSortException(String message) {
+        super(message);
+    }
+}
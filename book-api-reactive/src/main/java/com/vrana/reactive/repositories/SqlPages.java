@@ -0,0 +1,74 @@
+package com.vrana.reactive.repositories;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Offset paging in SQL with the semantics of Spring Data JPA, so that the pages of the
+ * reactive API are built, sorted and counted like those of the servlet application.
+ */
+final class SqlPages {
+
+    private SqlPages() {
+    }
+
+    /**
+     * The ORDER BY, LIMIT and OFFSET clauses of a page. Only the properties mapped to a
+     * column can be sorted on, which also keeps the request out of the SQL text.
+     */
+    static String clausesOf(Pageable pageable, Map<String, String> sortColumns) {
+        StringBuilder clauses = new StringBuilder();
+        Sort sort = pageable.getSort();
+        if (sort.isSorted()) {
+            clauses.append(sort.stream()
+                    .map(order -> orderOf(order, sortColumns))
+                    .collect(Collectors.joining(", ", " ORDER BY ", "")));
+        }
+        if (pageable.isPaged()) {
+            clauses.append(" LIMIT ").append(pageable.getPageSize()).append(" OFFSET ").append(pageable.getOffset());
+        }
+        return clauses.toString();
+    }
+
+    private static String orderOf(Sort.Order order, Map<String, String> sortColumns) {
+        String column = sortColumns.get(order.getProperty());
+        if (column == null) {
+            throw new InvalidSortException("Invalid value '" + order.getProperty() + "' for parameter sort");
+        }
+        String expression = order.isIgnoreCase() ? "lower(" + column + ")" : column;
+        String nulls = switch (order.getNullHandling()) {
+            case NULLS_FIRST -> " NULLS FIRST";
+            case NULLS_LAST -> " NULLS LAST";
+            case NATIVE -> "";
+        };
+        return expression + (order.isAscending() ? " ASC" : " DESC") + nulls;
+    }
+
+    /**
+     * Completes the content with the total, counting only when the content does not tell it,
+     * as {@code PageableExecutionUtils} does for the JPA repositories.
+     */
+    static <T> Mono<Page<T>> pageOf(Flux<T> content, Pageable pageable, Mono<Long> count) {
+        return content.collectList().flatMap(rows -> {
+            Long total = totalOf(rows, pageable);
+            return total != null
+                    ? Mono.just(new PageImpl<>(rows, pageable, total))
+                    : count.map(counted -> new PageImpl<>(rows, pageable, counted));
+        });
+    }
+
+    private static Long totalOf(List<?> rows, Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getOffset() == 0) {
+            return pageable.isUnpaged() || pageable.getPageSize() > rows.size() ? (long) rows.size() : null;
+        }
+        return !rows.isEmpty() && pageable.getPageSize() > rows.size() ? pageable.getOffset() + rows.size() : null;
+    }
+}
@@ -0,0 +1,46 @@
+package com.vrana.reactive;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Starts the reactive application on a random port next to the servlet application, whose
+ * Tomcat, JDBC and JPA stack share the test classpath.
+ */
+public final class ReactiveTestApplication {
+    private ReactiveTestApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(JdbcConnectionDetails connectionDetails) {
+        String r2dbcUrl = connectionDetails.getJdbcUrl()
+                .replaceFirst("^jdbc:", "r2dbc:")
+                .replaceFirst("\\?.*", "");
+        // arguments, as they take precedence over the application's configuration file
+        return new SpringApplicationBuilder(BookApiReactiveApplication.class, NettyServer.class)
+                .properties(BookApiReactiveApplication.CONFIG_NAME)
+                .run("--server.port=0",
+                        "--spring.r2dbc.url=" + r2dbcUrl,
+                        "--spring.r2dbc.username=" + connectionDetails.getUsername(),
+                        "--spring.r2dbc.password=" + connectionDetails.getPassword(),
+                        "--spring.autoconfigure.exclude=" + String.join(",",
+                                DataSourceAutoConfiguration.class.getName(),
+                                HibernateJpaAutoConfiguration.class.getName(),
+                                FlywayAutoConfiguration.class.getName()));
+    }
+
+    // Spring Boot prefers Tomcat to Netty when both are present
+    @Configuration(proxyBeanMethods = false)
+    static class NettyServer {
+        @Bean
+        NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+            return new NettyReactiveWebServerFactory();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.vrana.reactive.controllers
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.vrana.database.BookApiApplication
+import com.vrana.reactive.ReactiveTestApplication
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.test.web.server.LocalServerPort
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.boot.web.context.WebServerApplicationContext
+import org.springframework.context.ConfigurableApplicationContext
+import org.springframework.jdbc.core.JdbcTemplate
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+
+/**
+ * Runs the servlet application and the reactive application side by side on the same
+ * database and expects the same status, entity tag and JSON body from both for every read.
+ */
+@SpringBootTest(classes = BookApiApplication, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = ["spring.jpa.hibernate.ddl-auto=validate",
+                "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration"])
+@Testcontainers
+class ReadApiParityITSpec extends Specification {
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @LocalServerPort
+    private int servletPort
+
+    @Autowired
+    private JdbcConnectionDetails connectionDetails
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    @Autowired
+    private ObjectMapper objectMapper
+
+    @Shared
+    private ConfigurableApplicationContext reactive
+
+    @Shared
+    private Map<String, String> ids
+
+    private final HttpClient client = HttpClient.newHttpClient()
+
+    def setup() {
+        if (reactive == null) {
+            ids = seedCatalog()
+            reactive = ReactiveTestApplication.start(connectionDetails)
+        }
+    }
+
+    def cleanupSpec() {
+        reactive?.close()
+    }
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "GET #path answers alike from both applications"() {
+        given: "the path with the seeded ids filled in"
+        def uri = ids.inject(path) { resolved, id -> resolved.replace(id.key, id.value) }
+
+        when: "both applications are asked for it"
+        def servlet = get(servletPort, uri)
+        def reactive = get(reactivePort(), uri)
+
+        then:
+        verifyAll {
+            "the status is the expected one"
+            servlet.statusCode() == status
+            reactive.statusCode() == status
+
+            "the entity tags are the same"
+            reactive.headers().firstValue("ETag") == servlet.headers().firstValue("ETag")
+
+            "the bodies are the same JSON"
+            objectMapper.readTree(reactive.body()) == objectMapper.readTree(servlet.body())
+        }
+
+        where:
+        path                                                        | status
+        "/books?sort=isbn"                                          | 200
+        "/books?sort=title,desc&sort=isbn&page=1&size=2"            | 200
+        "/books?sort=author.name&sort=isbn&size=3"                  | 200
+        "/books?sort=author.age,desc&sort=isbn&page=1&size=3"       | 200
+        "/books?sort=isbn&page=9"                                   | 200
+        "/books/978-0000000001"                                     | 200
+        "/books/978-0000000005"                                     | 200
+        "/books/978-9999999999"                                     | 404
+        "/authors"                                                  | 200
+        "/authors?minAge=30&maxAge=60&sort=age,desc&sort=id"        | 200
+        "/authors?namePrefix=100%25_"                               | 200
+        "/authors?namePrefix=ann&size=1"                            | 200
+        "/authors?hasBooks=false"                                   | 200
+        "/authors?hasBooks=true&page=1&size=1"                      | 200
+        "/authors?sort=name,desc&page=1&size=2"                     | 200
+        "/authors/ANNA_ID"                                          | 200
+        "/authors/0"                                                | 404
+        "/authors/abc"                                              | 400
+        "/authors?minAge=old"                                       | 400
+    }
+
+    def "an entity tag of the servlet application revalidates against the reactive one"() {
+        given: "the entity tags the servlet application sent for a book and a page"
+        def book = get(servletPort, "/books/978-0000000001").headers().firstValue("ETag").get()
+        def page = get(servletPort, "/authors?sort=name").headers().firstValue("ETag").get()
+
+        when: "the reactive application is asked for them with If-None-Match"
+        def bookResponse = get(reactivePort(), "/books/978-0000000001", book)
+        def pageResponse = get(reactivePort(), "/authors?sort=name", page)
+
+        then: "both are answered with 304 and no body"
+        verifyAll {
+            bookResponse.statusCode() == 304
+            bookResponse.body().isEmpty()
+            pageResponse.statusCode() == 304
+            pageResponse.body().isEmpty()
+        }
+    }
+
+    def "sorting by a property that is not a column is rejected"() {
+        when: "a page is requested sorted by an unknown property"
+        def response = get(reactivePort(), "/books?sort=publisher")
+
+        then: "the request is rejected with 400 naming the property"
+        response.statusCode() == 400
+        objectMapper.readTree(response.body()).get("message").asText() == "Invalid value 'publisher' for parameter sort"
+    }
+
+    private HttpResponse<String> get(int port, String path, String ifNoneMatch = null) {
+        def request = HttpRequest.newBuilder(URI.create("http://localhost:$port$path"))
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch)
+        }
+        client.send(request.build(), HttpResponse.BodyHandlers.ofString())
+    }
+
+    private int reactivePort() {
+        (reactive as WebServerApplicationContext).webServer.port
+    }
+
+    // Authors of different ages, one without books and one whose name needs escaping in a
+    // LIKE pattern, and books with and without an author and with equal titles.
+    private Map<String, String> seedCatalog() {
+        def author = { String name, int age ->
+            jdbcTemplate.queryForObject("INSERT INTO authors (name, age) VALUES (?, ?) RETURNING id", Long, name, age)
+        }
+        def anna = author("Anna Karenina", 28)
+        def leo = author("Leo Tolstoy", 82)
+        def milan = author("Milan Kundera", 45)
+        author("100%_Real Person", 33)
+        author("Annie Ernaux", 60)
+        def book = { String isbn, String title, Long authorId ->
+            jdbcTemplate.update("INSERT INTO books (isbn, title, author_id) VALUES (?, ?, ?)", isbn, title, authorId)
+        }
+        book("978-0000000001", "War and Peace", leo)
+        book("978-0000000002", "The Joke", milan)
+        book("978-0000000003", "Laughable Loves", milan)
+        book("978-0000000004", "Diary", anna)
+        book("978-0000000005", "Anonymous Notes", null)
+        book("978-0000000006", "The Joke", leo)
+        jdbcTemplate.update("UPDATE authors SET version = 3 WHERE id = ?", milan)
+        [ANNA_ID: String.valueOf(anna)]
+    }
+}
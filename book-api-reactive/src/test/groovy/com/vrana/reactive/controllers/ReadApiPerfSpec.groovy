@@ -0,0 +1,259 @@
+package com.vrana.reactive.controllers
+
+import com.vrana.database.BookApiApplication
+import com.vrana.reactive.ReactiveTestApplication
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails
+import org.springframework.boot.builder.SpringApplicationBuilder
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.boot.web.context.WebServerApplicationContext
+import org.springframework.context.ConfigurableApplicationContext
+import org.springframework.jdbc.core.JdbcTemplate
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Stepwise
+import spock.lang.Tag
+
+import javax.sql.DataSource
+import java.lang.management.ManagementFactory
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.nio.charset.StandardCharsets
+import java.time.Duration
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Compares the servlet application on virtual threads with the reactive application: the heap
+ * a request holds while it waits for the database, and the throughput of many closed-loop
+ * clients. Both run on real ports in this JVM against the same database, one after the other,
+ * and the servlet application's lookup cache is disabled so that both read every request from
+ * the database. Excluded from the regular test run, execute with
+ * {@code ./gradlew :book-api-reactive:perfTest}; the number of waiting requests, the client
+ * count and the duration can be changed with {@code -Dperf.inFlight}, {@code -Dperf.clients}
+ * and {@code -Dperf.loadSeconds}, the heap target with {@code -Dperf.maxReactiveHeapRatio}.
+ */
+@Tag("perf")
+@Stepwise
+@SpringBootTest(classes = BookApiApplication,
+        properties = ["spring.jpa.hibernate.ddl-auto=validate",
+                "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration"])
+@Testcontainers
+class ReadApiPerfSpec extends Specification {
+
+    private static final int IN_FLIGHT = Integer.getInteger("perf.inFlight", 1_000)
+
+    private static final int CLIENTS = Integer.getInteger("perf.clients", 200)
+
+    private static final int LOAD_SECONDS = Integer.getInteger("perf.loadSeconds", 20)
+
+    private static final double MAX_REACTIVE_HEAP_RATIO = Double.parseDouble(
+            System.getProperty("perf.maxReactiveHeapRatio", "1.0"))
+
+    private static final int BOOKS = 100_000
+
+    private static final int PAGE_REQUEST_PERCENT = 10
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private JdbcConnectionDetails connectionDetails
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    @Autowired
+    private DataSource dataSource
+
+    @Shared
+    private long servletHeapPerRequest
+
+    @Shared
+    private LoadResult servletLoad
+
+    def "the servlet application is measured"() {
+        given: "a seeded catalog"
+        seedCatalog()
+
+        when: "the servlet application holds requests waiting for the database and then serves the clients"
+        def application = new SpringApplicationBuilder(BookApiApplication)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=true",
+                        "--book-api.connection-permits.max-wait=10m",
+                        "--book-api.cache.books.maximum-size=0",
+                        "--spring.jpa.hibernate.ddl-auto=validate",
+                        "--spring.datasource.url=${connectionDetails.jdbcUrl}",
+                        "--spring.datasource.username=${connectionDetails.username}",
+                        "--spring.datasource.password=${connectionDetails.password}",
+                        "--spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration")
+        try {
+            servletHeapPerRequest = heapPerInFlightRequest(portOf(application))
+            servletLoad = load(portOf(application))
+        } finally {
+            application.close()
+        }
+        report("servlet", servletHeapPerRequest, servletLoad)
+
+        then: "every request was served"
+        servletLoad.failed.sum() == 0
+    }
+
+    def "the reactive application holds less heap per waiting request"() {
+        when: "the reactive application is measured the same way"
+        long reactiveHeapPerRequest
+        LoadResult reactiveLoad
+        def application = ReactiveTestApplication.start(connectionDetails)
+        try {
+            reactiveHeapPerRequest = heapPerInFlightRequest(portOf(application))
+            reactiveLoad = load(portOf(application))
+        } finally {
+            application.close()
+        }
+        report("reactive", reactiveHeapPerRequest, reactiveLoad)
+
+        then: "every request was served"
+        reactiveLoad.failed.sum() == 0
+
+        and: "a waiting request costs less heap than on the servlet application"
+        reactiveHeapPerRequest <= servletHeapPerRequest * MAX_REACTIVE_HEAP_RATIO
+    }
+
+    // Sends IN_FLIGHT lookups over raw sockets while the books table is locked, so that all
+    // of them wait inside the application, and divides the heap they hold by their number.
+    private long heapPerInFlightRequest(int port) {
+        def client = HttpClient.newHttpClient()
+        200.times { send(client, port, "/books/${isbn(it)}") }
+
+        def lock = dataSource.connection
+        List<Socket> sockets = []
+        try {
+            lock.autoCommit = false
+            lock.createStatement().execute("LOCK TABLE books IN ACCESS EXCLUSIVE MODE")
+            long before = usedHeap()
+            IN_FLIGHT.times {
+                def socket = new Socket("localhost", port)
+                socket.soTimeout = 60_000
+                socket.outputStream.write("GET /books/${isbn(it)} HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                        .getBytes(StandardCharsets.US_ASCII))
+                sockets << socket
+            }
+            awaitLockWaiters()
+            long during = usedHeap()
+            lock.rollback()
+            sockets.each { socket ->
+                def status = new BufferedReader(new InputStreamReader(socket.inputStream, StandardCharsets.US_ASCII)).readLine()
+                assert status.startsWith("HTTP/1.1 200")
+            }
+            return (during - before).intdiv(IN_FLIGHT)
+        } finally {
+            sockets*.close()
+            lock.close()
+        }
+    }
+
+    // The waiting requests first take every pooled connection, then queue for one; once the
+    // number of sessions blocked on the lock stops growing, the remaining requests have arrived.
+    private void awaitLockWaiters() {
+        long previous = -1
+        int stable = 0
+        while (stable < 10) {
+            Thread.sleep(200)
+            long waiters = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'", Long)
+            stable = waiters > 0 && waiters == previous ? stable + 1 : 0
+            previous = waiters
+        }
+    }
+
+    private static long usedHeap() {
+        3.times {
+            System.gc()
+            Thread.sleep(100)
+        }
+        ManagementFactory.memoryMXBean.heapMemoryUsage.used
+    }
+
+    private LoadResult load(int port) {
+        def result = new LoadResult()
+        def client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build()
+        long deadline = System.nanoTime() + Duration.ofSeconds(LOAD_SECONDS).toNanos()
+        Executors.newVirtualThreadPerTaskExecutor().withCloseable { clients ->
+            CLIENTS.times {
+                clients.submit {
+                    def random = ThreadLocalRandom.current()
+                    while (System.nanoTime() < deadline) {
+                        def path = random.nextInt(100) < PAGE_REQUEST_PERCENT
+                                ? "/books?page=${random.nextInt(BOOKS.intdiv(20))}&size=20&sort=isbn"
+                                : "/books/${isbn(random.nextInt(BOOKS))}"
+                        long start = System.nanoTime()
+                        try {
+                            if (send(client, port, path).statusCode() == 200) {
+                                result.latencies << System.nanoTime() - start
+                                result.served.increment()
+                            } else {
+                                result.failed.increment()
+                            }
+                        } catch (IOException ignored) {
+                            result.failed.increment()
+                        }
+                    }
+                }
+            }
+        }
+        result
+    }
+
+    private static HttpResponse<Void> send(HttpClient client, int port, String path) {
+        client.send(HttpRequest.newBuilder(URI.create("http://localhost:$port$path"))
+                .timeout(Duration.ofSeconds(60)).build(), HttpResponse.BodyHandlers.discarding())
+    }
+
+    private static int portOf(ConfigurableApplicationContext application) {
+        (application as WebServerApplicationContext).webServer.port
+    }
+
+    private static void report(String name, long heapPerRequest, LoadResult load) {
+        println String.format("%s: %d bytes of heap per waiting request; %d clients, %.0f requests/s, p50 %.1f ms, p99 %.1f ms",
+                name, heapPerRequest, CLIENTS, load.served.sum() / (double) LOAD_SECONDS,
+                load.percentile(50) / 1e6, load.percentile(99) / 1e6)
+    }
+
+    private void seedCatalog() {
+        if (jdbcTemplate.queryForObject("SELECT count(*) FROM books", Long) > 0) {
+            return
+        }
+        jdbcTemplate.update("INSERT INTO authors (name, age) SELECT 'Author ' || i, 20 + i % 60 FROM generate_series(1, 1000) AS i")
+        jdbcTemplate.update("""
+                INSERT INTO books (isbn, title, author_id)
+                SELECT lpad(i::text, 13, '0'), 'Title ' || i, (SELECT min(id) FROM authors) + i % 1000
+                FROM generate_series(0, ?) AS i""", BOOKS - 1)
+        jdbcTemplate.execute("ANALYZE books")
+    }
+
+    private static String isbn(int i) {
+        String.valueOf(i).padLeft(13, "0")
+    }
+
+    private static class LoadResult {
+        final Queue<Long> latencies = new ConcurrentLinkedQueue<>()
+        final LongAdder served = new LongAdder()
+        final LongAdder failed = new LongAdder()
+
+        long percentile(int percent) {
+            def sorted = latencies.sort(false)
+            sorted.isEmpty() ? 0 : sorted[Math.min(sorted.size() - 1, (sorted.size() * percent).intdiv(100))]
+        }
+    }
+}
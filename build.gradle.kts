@@ -3,8 +3,13 @@ plugins {
     groovy
     id("org.springframework.boot") version "3.4.5"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
+// Ahead-of-time processing of the application context for the fast-start mode, see
+// application-fast-start.properties; the plugin ships with Spring Boot's but has no marker
+apply(plugin = "org.springframework.boot.aot")
+
 group = "com.example"
 version = "0.0.1-SNAPSHOT"
 
@@ -26,9 +31,24 @@ repositories {
 
 dependencies {
     // Core
+    implementation(project(":book-api-model"))
     implementation(libs.org.springframework.boot.spring.boot.starter.data.jpa)
     implementation(libs.org.springframework.boot.spring.boot.starter.validation)
     implementation(libs.org.springframework.boot.spring.boot.starter.web)
+    implementation(libs.org.springframework.boot.spring.boot.starter.actuator)
+
+    // Binary response formats, negotiated through the Accept header
+    implementation(libs.com.fasterxml.jackson.dataformat.jackson.dataformat.smile)
+    implementation(libs.com.fasterxml.jackson.dataformat.jackson.dataformat.cbor)
+
+    // Observability
+    implementation(libs.org.springframework.boot.spring.boot.starter.aop)
+    runtimeOnly(libs.org.hibernate.orm.hibernate.micrometer)
+    runtimeOnly(libs.io.micrometer.micrometer.registry.prometheus)
+
+    // Caching
+    implementation(libs.org.springframework.boot.spring.boot.starter.cache)
+    implementation(libs.com.github.ben.manes.caffeine.caffeine)
 
     // Database
     implementation(libs.org.flywaydb.flyway.core)
@@ -62,4 +82,104 @@ dependencies {
 
 tasks.withType<Test> {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("perf", "startup")
+    }
+}
+
+val perfTest by tasks.registering(Test::class) {
+    description = "Runs the specs tagged with 'perf' against large seeded tables."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    systemProperties(providers.systemPropertiesPrefixedBy("perf.").get())
+    useJUnitPlatform {
+        includeTags("perf")
+    }
+    testLogging {
+        showStandardStreams = true
+    }
+    shouldRunAfter(tasks.test)
+}
+
+// The fast-start mode of application-fast-start.properties: the context is processed ahead of
+// time with that profile, and cdsArchive extracts the boot jar and records the classes loaded
+// up to the refresh of the context in a class data sharing archive next to it. The training
+// run needs no database, as neither Flyway nor Hibernate connect before the refresh ends.
+tasks.named<org.springframework.boot.gradle.tasks.aot.ProcessAot>("processAot") {
+    args("--spring.profiles.active=fast-start")
+}
+
+// the contexts of the specs are not processed ahead of time, they need their Testcontainers
+// databases to be refreshed
+tasks.named("processTestAot") {
+    enabled = false
+}
+
+val fastStartDir = layout.buildDirectory.dir("fast-start")
+val javaLauncher = javaToolchains.launcherFor { languageVersion = JavaLanguageVersion.of(21) }
+val bootJarFile = tasks.bootJar.flatMap { it.archiveFile }
+
+val extractBootJar by tasks.registering(Exec::class) {
+    description = "Extracts the boot jar into a layout that class data sharing can use."
+    group = "build"
+    inputs.file(bootJarFile)
+    outputs.dir(fastStartDir)
+    executable = javaLauncher.get().executablePath.asFile.absolutePath
+    args("-Djarmode=tools", "-jar", bootJarFile.get().asFile.absolutePath,
+        "extract", "--force", "--destination", fastStartDir.get().asFile.absolutePath)
+}
+
+val cdsArchive by tasks.registering(Exec::class) {
+    description = "Creates the class data sharing archive of the fast-start mode."
+    group = "build"
+    dependsOn(extractBootJar)
+    inputs.file(bootJarFile)
+    outputs.file(fastStartDir.map { it.file("application.jsa") })
+    workingDir(fastStartDir)
+    executable = javaLauncher.get().executablePath.asFile.absolutePath
+    // proxies and other generated classes cannot be archived, which CDS warns about one by one
+    args("-XX:ArchiveClassesAtExit=application.jsa", "-Xlog:cds=error", "-Dspring.aot.enabled=true",
+        "-Dspring.context.exit=onRefresh", "-jar", "${project.name}-${project.version}.jar",
+        "--spring.profiles.active=fast-start", "--spring.flyway.enabled=false")
+}
+
+val startupBenchmark by tasks.registering(Test::class) {
+    description = "Runs the specs tagged with 'startup', which start the boot jar in every mode."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    dependsOn(cdsArchive)
+    systemProperty("startup.bootJar", bootJarFile.get().asFile.absolutePath)
+    systemProperty("startup.fastStartDir", fastStartDir.get().asFile.absolutePath)
+    systemProperty("startup.java", javaLauncher.get().executablePath.asFile.absolutePath)
+    systemProperties(providers.systemPropertiesPrefixedBy("perf.").get())
+    useJUnitPlatform {
+        includeTags("startup")
+    }
+    testLogging {
+        showStandardStreams = true
+    }
+    shouldRunAfter(tasks.test)
+}
+
+// Microbenchmarks of the per-request CPU cost in src/jmh, run with ./gradlew jmh. The
+// results are written as JSON, so runs of two commits can be compared side by side.
+jmh {
+    jmhVersion = libs.versions.org.openjdk.jmh.get()
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    fork = 1
+    warmupIterations = 3
+    warmup = "1s"
+    iterations = 5
+    timeOnIteration = "1s"
+}
+
+// the benchmark jar bundles the whole Spring runtime classpath
+tasks.named<Jar>("jmhJar") {
+    isZip64 = true
+}
@@ -1,5 +1,11 @@
 rootProject.name = "demo"
 
+// The DTOs of the API, shared with the reactive read API next to the servlet application
+include("book-api-model")
+include("book-api-reactive")
+// HTTP load tests of the servlet application with latency thresholds
+include("book-api-load")
+
 buildCache {
     local {
         isEnabled = true
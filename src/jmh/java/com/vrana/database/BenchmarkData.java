@@ -0,0 +1,61 @@
+package com.vrana.database;
+
+import com.vrana.database.domain.dto.AuthorDto;
+import com.vrana.database.domain.dto.BookDto;
+import com.vrana.database.domain.entities.AuthorEntity;
+import com.vrana.database.domain.entities.BookEntity;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Catalog rows of the size the API serves, shared by the benchmarks.
+ */
+public final class BenchmarkData {
+
+    public static final int BOOKS = 1000;
+
+    public static final int AUTHORS = 100;
+
+    private BenchmarkData() {
+    }
+
+    public static String isbn(int i) {
+        return String.format("978-0-%06d-%02d-0", i, i % 100);
+    }
+
+    public static AuthorEntity authorEntity(long id) {
+        return new AuthorEntity(id, "Author Name " + id, 20 + (int) (id % 60), 3L);
+    }
+
+    public static BookEntity bookEntity(int i, AuthorEntity author) {
+        return new BookEntity(isbn(i), "The Title of Book Number " + i, author, 7L);
+    }
+
+    public static AuthorDto authorDto(long id) {
+        return new AuthorDto(id, "Author Name " + id, 20 + (int) (id % 60));
+    }
+
+    public static BookDto bookDto(int i) {
+        return new BookDto(isbn(i), "The Title of Book Number " + i, authorDto(i % AUTHORS + 1));
+    }
+
+    public static Map<Long, AuthorEntity> authors() {
+        Map<Long, AuthorEntity> authors = new HashMap<>();
+        for (long id = 1; id <= AUTHORS; id++) {
+            authors.put(id, authorEntity(id));
+        }
+        return authors;
+    }
+
+    public static NavigableMap<String, BookEntity> books(Map<Long, AuthorEntity> authors) {
+        NavigableMap<String, BookEntity> books = new TreeMap<>();
+        for (int i = 0; i < BOOKS; i++) {
+            BookEntity book = bookEntity(i, authors.get((long) (i % AUTHORS + 1)));
+            books.put(book.getIsbn(), book);
+        }
+        return books;
+    }
+}
@@ -0,0 +1,67 @@
+package com.vrana.database.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vrana.database.BenchmarkData;
+import com.vrana.database.domain.dto.ApiErrorResponse;
+import com.vrana.database.domain.dto.BookDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Response bodies as the message converter writes them, with an object mapper configured
+ * the way Spring Boot configures the application's.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private BookDto bookDto;
+
+    private Page<BookDto> bookPage;
+
+    private ApiErrorResponse errorResponse;
+
+    @Setup
+    public void setUp() {
+        bookDto = BenchmarkData.bookDto(1);
+        List<BookDto> content = IntStream.range(0, 20).mapToObj(BenchmarkData::bookDto).toList();
+        bookPage = new PageImpl<>(content, PageRequest.of(0, 20), BenchmarkData.BOOKS);
+        errorResponse = ApiErrorResponse.builder()
+                .status(HttpStatus.NOT_FOUND.value())
+                .message("Book not found with isbn: " + BenchmarkData.isbn(1))
+                .build();
+    }
+
+    @Benchmark
+    public byte[] bookDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookDto);
+    }
+
+    @Benchmark
+    public byte[] bookPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookPage);
+    }
+
+    @Benchmark
+    public byte[] apiErrorResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(errorResponse);
+    }
+}
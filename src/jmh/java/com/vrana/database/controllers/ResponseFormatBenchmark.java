@@ -0,0 +1,94 @@
+package com.vrana.database.controllers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.vrana.database.BenchmarkData;
+import com.vrana.database.domain.dto.BookDto;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU cost and size of a page of books in every response format, with and without the
+ * compression Tomcat applies from {@code server.compression.min-response-size} on. The time
+ * is the benchmark's score; the bytes on the wire, which do not vary between invocations, are
+ * reported next to it as the secondary result {@code bookPage:bytes}, also in the results file
+ * of {@code -rf json}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private Page<BookDto> bookPage;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+
+    @Setup
+    public void setUp() {
+        JsonFactory factory = switch (format) {
+            case "smile" -> new SmileFactory();
+            case "cbor" -> new CBORFactory();
+            default -> new JsonFactory();
+        };
+        objectMapper = Jackson2ObjectMapperBuilder.json().factory(factory).build();
+        List<BookDto> content = IntStream.range(0, pageSize).mapToObj(BenchmarkData::bookDto).toList();
+        bookPage = new PageImpl<>(content, PageRequest.of(0, pageSize), BenchmarkData.BOOKS);
+    }
+
+    @Benchmark
+    public int bookPage(Size size) throws IOException {
+        buffer.reset();
+        if (!gzip) {
+            objectMapper.writeValue((OutputStream) buffer, bookPage);
+        } else {
+            try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                objectMapper.writeValue((OutputStream) out, bookPage);
+            }
+        }
+        size.bytes = buffer.size();
+        return buffer.size();
+    }
+
+    /**
+     * The size of the last serialized page; set rather than summed, so the reported value is
+     * the size of one response.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+
+        public long bytes;
+    }
+}
@@ -0,0 +1,57 @@
+package com.vrana.database.mappers;
+
+import com.vrana.database.BenchmarkData;
+import com.vrana.database.domain.dto.BookDto;
+import com.vrana.database.domain.entities.BookEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookMapperBenchmark {
+
+    private final BookMapper bookMapper = new BookMapperImpl();
+
+    private BookEntity bookEntity;
+
+    private BookDto bookDto;
+
+    private BookDto partialBookDto;
+
+    @Setup
+    public void setUp() {
+        bookEntity = BenchmarkData.bookEntity(1, BenchmarkData.authorEntity(1));
+        bookDto = BenchmarkData.bookDto(1);
+        partialBookDto = new BookDto(null, "A New Title", null);
+    }
+
+    @Benchmark
+    public BookDto mapTo() {
+        return bookMapper.mapTo(bookEntity);
+    }
+
+    @Benchmark
+    public BookEntity mapFrom() {
+        return bookMapper.mapFrom(bookDto);
+    }
+
+    @Benchmark
+    public BookEntity updateFullBookFromDto() {
+        bookMapper.updateFullBookFromDto(bookDto, bookEntity);
+        return bookEntity;
+    }
+
+    @Benchmark
+    public BookEntity updatePartialBookFromDto() {
+        bookMapper.updatePartialBookFromDto(partialBookDto, bookEntity);
+        return bookEntity;
+    }
+}
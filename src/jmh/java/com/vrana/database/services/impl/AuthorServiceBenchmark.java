@@ -0,0 +1,57 @@
+package com.vrana.database.services.impl;
+
+import com.vrana.database.BenchmarkData;
+import com.vrana.database.domain.dto.AuthorDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The author service's own work, set up like {@link BookServiceBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuthorServiceBenchmark {
+
+    private AuthorServiceImpl authorService;
+
+    private AuthorDto fullUpdate;
+
+    private AuthorDto partialUpdate;
+
+    @Setup
+    public void setUp() {
+        authorService = new BenchmarkServices().authorService();
+
+        fullUpdate = BenchmarkData.authorDto(1);
+        partialUpdate = new AuthorDto(null, null, 81);
+    }
+
+    @Benchmark
+    public AuthorDto findOneOrThrow() {
+        return authorService.findOneOrThrow(1L);
+    }
+
+    @Benchmark
+    public String findVersionTag() {
+        return authorService.findVersionTag(1L);
+    }
+
+    @Benchmark
+    public AuthorDto updateFullAuthor() {
+        return authorService.updateFullAuthor(1L, fullUpdate);
+    }
+
+    @Benchmark
+    public AuthorDto updatePartialAuthorIfMatch() {
+        return authorService.updatePartialAuthor(1L, partialUpdate, List.of(authorService.findVersionTag(1L)));
+    }
+}
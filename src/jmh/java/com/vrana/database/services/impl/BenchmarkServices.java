@@ -0,0 +1,67 @@
+package com.vrana.database.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vrana.database.BenchmarkData;
+import com.vrana.database.config.BookApiProperties;
+import com.vrana.database.config.CacheConfig;
+import com.vrana.database.domain.entities.AuthorEntity;
+import com.vrana.database.domain.entities.BookEntity;
+import com.vrana.database.mappers.AuthorMapperImpl;
+import com.vrana.database.mappers.BookMapperImpl;
+import com.vrana.database.repositories.AuthorRepository;
+import com.vrana.database.repositories.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+
+/**
+ * The services wired as the application context wires them, apart from the caching and
+ * transaction proxies, over {@link InMemoryRepositories} seeded with {@link BenchmarkData}
+ * and with the default {@link BookApiProperties}. A new collaborator of a service is added
+ * here, not in every benchmark.
+ */
+final class BenchmarkServices {
+
+    private final BookApiProperties properties;
+
+    private final BookRepository bookRepository;
+
+    private final AuthorRepository authorRepository;
+
+    private final EntityManager entityManager = InMemoryRepositories.entityManager();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final LookupCaches lookupCaches;
+
+    BenchmarkServices() {
+        this(BookApiProperties.defaults());
+    }
+
+    BenchmarkServices(BookApiProperties properties) {
+        Map<Long, AuthorEntity> authors = BenchmarkData.authors();
+        NavigableMap<String, BookEntity> books = BenchmarkData.books(authors);
+        this.properties = properties;
+        this.bookRepository = InMemoryRepositories.books(books, authors);
+        this.authorRepository = InMemoryRepositories.authors(authors, books);
+        this.lookupCaches = new LookupCaches(new CacheConfig().cacheManager(properties), bookRepository, Optional.empty());
+    }
+
+    BookServiceImpl bookService() {
+        BookMapperImpl bookMapper = new BookMapperImpl();
+        BookBatchImporter batchImporter = new BookBatchImporter(bookRepository, authorRepository, bookMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), entityManager);
+        return new BookServiceImpl(bookRepository, authorRepository, bookMapper, new KeysetCursorCodec(objectMapper),
+                objectMapper, entityManager, batchImporter, lookupCaches,
+                new BookWriteCoalescer(InMemoryRepositories.transactionManager(), properties));
+    }
+
+    AuthorServiceImpl authorService() {
+        return new AuthorServiceImpl(authorRepository, new AuthorMapperImpl(), objectMapper, entityManager,
+                new KeysetCursorCodec(objectMapper), lookupCaches);
+    }
+}
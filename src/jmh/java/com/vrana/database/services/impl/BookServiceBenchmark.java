@@ -0,0 +1,78 @@
+package com.vrana.database.services.impl;
+
+import com.vrana.database.BenchmarkData;
+import com.vrana.database.domain.dto.BookDto;
+import com.vrana.database.domain.dto.CursorPage;
+import com.vrana.database.services.BookSortKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The service's own work on its hot paths, over the map-backed repositories of
+ * {@link BenchmarkServices} and without the caching and transaction proxies, so that a
+ * regression in mapping, cursor handling or version checks is not hidden behind database time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookServiceBenchmark {
+
+    private BookServiceImpl bookService;
+
+    private String isbn;
+
+    private String nextCursor;
+
+    private BookDto fullUpdate;
+
+    private BookDto partialUpdate;
+
+    @Setup
+    public void setUp() {
+        bookService = new BenchmarkServices().bookService();
+
+        isbn = BenchmarkData.isbn(1);
+        nextCursor = bookService.findAllBooks(null, BookSortKey.ISBN, 20).getNext();
+        fullUpdate = BenchmarkData.bookDto(1);
+        partialUpdate = new BookDto(null, "A New Title", null);
+    }
+
+    @Benchmark
+    public BookDto findOneOrThrow() {
+        return bookService.findOneOrThrow(isbn);
+    }
+
+    @Benchmark
+    public String findVersionTag() {
+        return bookService.findVersionTag(isbn);
+    }
+
+    @Benchmark
+    public Page<BookDto> findAllBooksPage() {
+        return bookService.findAllBooks(PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public CursorPage<BookDto> findAllBooksCursor() {
+        return bookService.findAllBooks(nextCursor, BookSortKey.ISBN, 20);
+    }
+
+    @Benchmark
+    public BookDto updateFullBook() {
+        return bookService.updateFullBook(isbn, fullUpdate);
+    }
+
+    @Benchmark
+    public BookDto updatePartialBook() {
+        return bookService.updatePartialBook(isbn, partialUpdate);
+    }
+}
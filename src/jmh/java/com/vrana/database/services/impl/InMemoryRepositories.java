@@ -0,0 +1,327 @@
+package com.vrana.database.services.impl;
+
+import com.vrana.database.domain.EntityTags;
+import com.vrana.database.domain.entities.AuthorEntity;
+import com.vrana.database.domain.entities.BookEntity;
+import com.vrana.database.repositories.AuthorRepository;
+import com.vrana.database.repositories.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Map-backed stand-ins for the repositories, so that benchmarks measure the services'
+ * own work. The lookups and writes of single books and authors and the batch statements
+ * behave like the database: saving and the update statements bump the version, inserts
+ * skip taken isbns and new authors get the next id. Search, the author filters and the
+ * streams are not implemented; a path that calls them fails naming the missing method.
+ * Finding an author's books scans the map, so paths that evict them carry a cost the
+ * author_id index avoids.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static BookRepository books(NavigableMap<String, BookEntity> books, Map<Long, AuthorEntity> authors) {
+        return stub(BookRepository.class, (method, args) -> switch (method.getName()) {
+            case "findById" -> Optional.ofNullable(books.get((String) args[0]));
+            case "existsById" -> books.containsKey((String) args[0]);
+            case "count" -> {
+                if (args != null) {
+                    throw notImplemented(BookRepository.class, method);
+                }
+                yield (long) books.size();
+            }
+            case "save", "saveAndFlush" -> {
+                BookEntity book = (BookEntity) args[0];
+                book.setVersion(book.getVersion() == null ? 0 : book.getVersion() + 1);
+                books.put(book.getIsbn(), book);
+                yield book;
+            }
+            case "findAll" -> {
+                if (args == null) {
+                    yield List.copyOf(books.values());
+                }
+                if (args.length != 1 || !(args[0] instanceof Pageable pageable)) {
+                    throw notImplemented(BookRepository.class, method);
+                }
+                yield page(books.values(), pageable);
+            }
+            case "findByAuthorId" -> page(booksOf(books, (Long) args[0]), (Pageable) args[1]);
+            case "findAllById" -> StreamSupport.stream(((Iterable<?>) args[0]).spliterator(), false)
+                    .map(books::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            case "findAllOrderedByIsbn" -> first(books.values(), (Limit) args[0]);
+            case "findAllAfterIsbn" -> first(books.tailMap((String) args[0], false).values(), (Limit) args[1]);
+            case "findAllBeforeIsbn" -> first(books.headMap((String) args[0], false).descendingMap().values(), (Limit) args[1]);
+            case "findVersionsByIsbn" -> Optional.ofNullable(books.get((String) args[0])).map(InMemoryRepositories::versionsOf);
+            case "findIsbnsByAuthorId" -> isbnsOf(books, (Long) args[0]);
+            case "updateTitle" -> Optional.ofNullable(books.get((String) args[0]))
+                    .filter(book -> matches((String[]) args[2],
+                            EntityTags.versionTag(book.getVersion(), versionsOf(book).getAuthorVersion())))
+                    .map(book -> {
+                        if (args[1] != null && !args[1].equals(book.getTitle())) {
+                            book.setTitle((String) args[1]);
+                            book.setVersion(book.getVersion() + 1);
+                        }
+                        return bookRowOf(book);
+                    });
+            case "updateTitleAndUnlinkAuthor" -> Optional.ofNullable(books.get((String) args[0]))
+                    .filter(book -> matches((String[]) args[2],
+                            EntityTags.versionTag(book.getVersion(), versionsOf(book).getAuthorVersion())))
+                    .map(book -> {
+                        if (!Objects.equals(args[1], book.getTitle()) || book.getAuthor() != null) {
+                            book.setTitle((String) args[1]);
+                            book.setAuthor(null);
+                            book.setVersion(book.getVersion() + 1);
+                        }
+                        return bookRowOf(book);
+                    });
+            case "insertIfAbsent" -> {
+                String isbn = (String) args[0];
+                if (books.containsKey(isbn)) {
+                    yield Optional.empty();
+                }
+                AuthorEntity author = (boolean) args[3]
+                        ? insert(authors, new AuthorEntity(null, (String) args[4], (Integer) args[5], null))
+                        : args[2] == null ? null : authors.get((Long) args[2]);
+                if (args[2] != null && author == null) {
+                    yield Optional.empty();
+                }
+                BookEntity book = new BookEntity(isbn, (String) args[1], author, 0L);
+                books.put(isbn, book);
+                yield Optional.of(bookRowOf(book));
+            }
+            case "deleteWithAuthor" -> Optional.ofNullable(books.remove((String) args[0]))
+                    .map(BookEntity::getAuthor)
+                    .map(author -> {
+                        authors.remove(author.getId());
+                        return author.getId();
+                    });
+            case "findExistingIsbns" -> ((Collection<?>) args[0]).stream()
+                    .map(String.class::cast)
+                    .filter(books::containsKey)
+                    .collect(Collectors.toSet());
+            case "insertAllIfAbsent" -> ((List<?>) args[0]).stream()
+                    .map(BookEntity.class::cast)
+                    .filter(book -> books.putIfAbsent(book.getIsbn(),
+                            new BookEntity(book.getIsbn(), book.getTitle(), book.getAuthor(), 0L)) == null)
+                    .map(BookEntity::getIsbn)
+                    .collect(Collectors.toSet());
+            default -> throw notImplemented(BookRepository.class, method);
+        });
+    }
+
+    static AuthorRepository authors(Map<Long, AuthorEntity> authors, NavigableMap<String, BookEntity> books) {
+        return stub(AuthorRepository.class, (method, args) -> switch (method.getName()) {
+            case "findById" -> Optional.ofNullable(authors.get((Long) args[0]));
+            case "existsById" -> authors.containsKey((Long) args[0]);
+            case "count" -> {
+                if (args != null) {
+                    throw notImplemented(AuthorRepository.class, method);
+                }
+                yield (long) authors.size();
+            }
+            case "save", "saveAndFlush" -> {
+                AuthorEntity author = (AuthorEntity) args[0];
+                author.setVersion(author.getVersion() == null ? 0 : author.getVersion() + 1);
+                authors.put(author.getId(), author);
+                yield author;
+            }
+            case "findVersionById" -> Optional.ofNullable(authors.get((Long) args[0])).map(AuthorEntity::getVersion);
+            case "updateFull", "updatePartial" -> Optional.ofNullable(authors.get((Long) args[0]))
+                    .filter(author -> matches((String[]) args[3], String.valueOf(author.getVersion())))
+                    .map(author -> {
+                        boolean partial = method.getName().equals("updatePartial");
+                        String name = partial && args[1] == null ? author.getName() : (String) args[1];
+                        Integer age = partial && args[2] == null ? author.getAge() : (Integer) args[2];
+                        if (!Objects.equals(name, author.getName()) || !Objects.equals(age, author.getAge())) {
+                            author.setName(name);
+                            author.setAge(age);
+                            author.setVersion(author.getVersion() + 1);
+                        }
+                        return authorRowOf(author, isbnsOf(books, author.getId()));
+                    });
+            case "deleteDirectlyById" -> authors.remove((Long) args[0]) == null ? 0 : 1;
+            case "findExistingIds" -> ((Collection<?>) args[0]).stream()
+                    .map(Long.class::cast)
+                    .filter(authors::containsKey)
+                    .collect(Collectors.toSet());
+            case "insertAll" -> {
+                ((List<?>) args[0]).forEach(author -> insert(authors, (AuthorEntity) author));
+                yield null;
+            }
+            default -> throw notImplemented(AuthorRepository.class, method);
+        });
+    }
+
+    // the persistence context the services flush before and clear after their statements,
+    // which has nothing to write or forget as the entities live in the maps
+    static EntityManager entityManager() {
+        return stub(EntityManager.class, (method, args) -> switch (method.getName()) {
+            case "flush", "clear" -> null;
+            default -> throw notImplemented(EntityManager.class, method);
+        });
+    }
+
+    // begins, commits and rolls back nothing, as the repositories are not transactional
+    static PlatformTransactionManager transactionManager() {
+        return stub(PlatformTransactionManager.class, (method, args) ->
+                method.getName().equals("getTransaction") ? new SimpleTransactionStatus() : null);
+    }
+
+    // new authors get the next id and their first version, as the sequence and defaults would
+    private static AuthorEntity insert(Map<Long, AuthorEntity> authors, AuthorEntity author) {
+        author.setId(authors.keySet().stream().mapToLong(Long::longValue).max().orElse(0) + 1);
+        author.setVersion(0L);
+        authors.put(author.getId(), author);
+        return author;
+    }
+
+    private static IllegalStateException notImplemented(Class<?> type, Method method) {
+        return new IllegalStateException(type.getSimpleName() + "." + method.getName()
+                + " has no in-memory implementation; add it to InMemoryRepositories to benchmark a path that calls it");
+    }
+
+    private static Page<BookEntity> page(Collection<BookEntity> books, Pageable pageable) {
+        List<BookEntity> content = books.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .toList();
+        return new PageImpl<>(content, pageable, books.size());
+    }
+
+    private static List<BookEntity> booksOf(Map<String, BookEntity> books, Long authorId) {
+        return books.values().stream()
+                .filter(book -> book.getAuthor() != null && authorId.equals(book.getAuthor().getId()))
+                .toList();
+    }
+
+    private static boolean matches(String[] versionTags, String currentVersionTag) {
+        return versionTags.length == 0 || Arrays.asList(versionTags).contains(currentVersionTag);
+    }
+
+    private static List<String> isbnsOf(Map<String, BookEntity> books, Long authorId) {
+        return booksOf(books, authorId).stream().map(BookEntity::getIsbn).toList();
+    }
+
+    private static List<BookEntity> first(Collection<BookEntity> books, Limit limit) {
+        return books.stream().limit(limit.max()).toList();
+    }
+
+    private static BookRepository.Versions versionsOf(BookEntity book) {
+        return new BookRepository.Versions() {
+            @Override
+            public Long getVersion() {
+                return book.getVersion();
+            }
+
+            @Override
+            public Long getAuthorVersion() {
+                return book.getAuthor() == null ? null : book.getAuthor().getVersion();
+            }
+        };
+    }
+
+    private static BookRepository.BookRow bookRowOf(BookEntity book) {
+        AuthorEntity author = book.getAuthor();
+        return new BookRepository.BookRow() {
+            @Override
+            public String getIsbn() {
+                return book.getIsbn();
+            }
+
+            @Override
+            public String getTitle() {
+                return book.getTitle();
+            }
+
+            @Override
+            public Long getVersion() {
+                return book.getVersion();
+            }
+
+            @Override
+            public Long getAuthorId() {
+                return author == null ? null : author.getId();
+            }
+
+            @Override
+            public String getAuthorName() {
+                return author == null ? null : author.getName();
+            }
+
+            @Override
+            public Integer getAuthorAge() {
+                return author == null ? null : author.getAge();
+            }
+
+            @Override
+            public Long getAuthorVersion() {
+                return author == null ? null : author.getVersion();
+            }
+        };
+    }
+
+    private static AuthorRepository.AuthorRow authorRowOf(AuthorEntity author, List<String> isbns) {
+        return new AuthorRepository.AuthorRow() {
+            @Override
+            public Long getId() {
+                return author.getId();
+            }
+
+            @Override
+            public String getName() {
+                return author.getName();
+            }
+
+            @Override
+            public Integer getAge() {
+                return author.getAge();
+            }
+
+            @Override
+            public Long getVersion() {
+                return author.getVersion();
+            }
+
+            @Override
+            public String[] getIsbns() {
+                return isbns.toArray(String[]::new);
+            }
+        };
+    }
+
+    private static <T> T stub(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "in-memory " + type.getSimpleName();
+                    default -> handler.invoke(method, args);
+                }));
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(Method method, Object[] args);
+    }
+}
@@ -0,0 +1,117 @@
+package com.vrana.database.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Application settings under the {@code book-api} prefix.
+ *
+ * @param cache              lookup cache settings keyed by cache name, see {@link CacheConfig}
+ * @param connectionPermits  backpressure in front of the connection pool, see {@link DataSourceConfig}
+ * @param concurrencyLimit   load shedding in front of the controllers, see {@link ConcurrencyLimitConfig}
+ * @param slowQueryThreshold execution time from which a query is logged as slow, see {@link MetricsConfig}
+ * @param replica            routing of read-only transactions to a replica, see {@link ReplicaDataSourceConfig}
+ * @param changes            long polling and retention of the change feed
+ * @param writeCoalescing    grouping of concurrent writes of single books into one transaction
+ * @param queryDiagnostics   per-request statement counts in the response headers, see {@link QueryDiagnosticsConfig}
+ */
+@ConfigurationProperties("book-api")
+public record BookApiProperties(Map<String, CacheSpec> cache,
+                                @DefaultValue ConnectionPermitSpec connectionPermits,
+                                @DefaultValue ConcurrencyLimitSpec concurrencyLimit,
+                                @DefaultValue("200ms") Duration slowQueryThreshold,
+                                @DefaultValue ReplicaSpec replica,
+                                @DefaultValue ChangeFeedSpec changes,
+                                @DefaultValue WriteCoalescingSpec writeCoalescing,
+                                @DefaultValue QueryDiagnosticsSpec queryDiagnostics) {
+
+    public BookApiProperties {
+        cache = cache == null ? Map.of() : Map.copyOf(cache);
+    }
+
+    /**
+     * The settings with every value at its {@link DefaultValue}, as bound from an empty
+     * environment, for code that builds the beans without an application context.
+     */
+    public static BookApiProperties defaults() {
+        return new Binder().bindOrCreate("book-api", BookApiProperties.class);
+    }
+
+    /**
+     * @param maximumSize      number of entries kept before the least valuable ones are evicted
+     * @param expireAfterWrite time after which an entry is reloaded from the database
+     */
+    public record CacheSpec(@DefaultValue("10000") long maximumSize,
+                            @DefaultValue("10m") Duration expireAfterWrite) {
+
+        static final CacheSpec DEFAULT = new CacheSpec(10_000, Duration.ofMinutes(10));
+    }
+
+    /**
+     * @param maxWait time a request waits for one of the pool's connections before it is
+     *                rejected with 503 Service Unavailable
+     */
+    public record ConnectionPermitSpec(@DefaultValue("2s") Duration maxWait) {
+    }
+
+    /**
+     * @param initialLimit     requests let through at once before any latency was observed
+     * @param minLimit         lowest the limit is lowered to, however slow requests get
+     * @param maxLimit         highest the limit is raised to, however fast requests are
+     * @param latencyTolerance factor by which requests may take longer than without load before
+     *                         the limit is lowered
+     * @param writeReserve     share of the limit only writes may use, so reads are turned away first
+     * @param maxQueueWait     time a request over the limit waits for a place before it is rejected
+     *                         with 503 Service Unavailable; zero turns it away at once
+     */
+    public record ConcurrencyLimitSpec(@DefaultValue("20") int initialLimit,
+                                       @DefaultValue("4") int minLimit,
+                                       @DefaultValue("200") int maxLimit,
+                                       @DefaultValue("2.0") double latencyTolerance,
+                                       @DefaultValue("0.2") double writeReserve,
+                                       @DefaultValue("0s") Duration maxQueueWait) {
+    }
+
+    /**
+     * The replica's connection settings are bound from {@code book-api.replica.datasource}.
+     *
+     * @param maxLag        replay lag beyond which reads go to the primary instead
+     * @param checkInterval time between two checks of the replica's availability and lag
+     */
+    public record ReplicaSpec(@DefaultValue("1s") Duration maxLag,
+                              @DefaultValue("1s") Duration checkInterval) {
+    }
+
+    /**
+     * @param maxWait            longest time a request for changes waits for the first new one
+     * @param pollInterval       time between two looks for new changes while requests are waiting
+     * @param retention          age from which changes are removed from the log
+     * @param compactionInterval time between two removals of superseded and expired changes
+     */
+    public record ChangeFeedSpec(@DefaultValue("30s") Duration maxWait,
+                                 @DefaultValue("500ms") Duration pollInterval,
+                                 @DefaultValue("7d") Duration retention,
+                                 @DefaultValue("1m") Duration compactionInterval) {
+    }
+
+    /**
+     * @param enabled      whether concurrent writes of single books are committed together
+     * @param maxDelay     longest time the first write of a batch waits for others to join it
+     * @param maxBatchSize number of writes from which a batch is committed without waiting longer
+     */
+    public record WriteCoalescingSpec(@DefaultValue("false") boolean enabled,
+                                      @DefaultValue("2ms") Duration maxDelay,
+                                      @DefaultValue("100") int maxBatchSize) {
+    }
+
+    /**
+     * @param enabled whether the statements of every request are counted and reported in its
+     *                response headers
+     */
+    public record QueryDiagnosticsSpec(@DefaultValue("false") boolean enabled) {
+    }
+}
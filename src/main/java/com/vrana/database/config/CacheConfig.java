@@ -0,0 +1,72 @@
+package com.vrana.database.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+
+/**
+ * Bounded in-process caches for single book and author lookups.
+ * <p>
+ * The caching advice runs outside the transactional advice, so a hit is served without
+ * opening a transaction. Evictions issued inside a transaction are deferred until it
+ * commits, so a concurrent lookup cannot reload the row before the change is visible.
+ * <p>
+ * Lookups declared with {@code @Cacheable(sync = true)} that miss the same key at the same
+ * time share a single load, see {@link CoalescingCache}. The load includes the transaction,
+ * so the callers that wait for it do not hold a connection meanwhile.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+@EnableConfigurationProperties(BookApiProperties.class)
+public class CacheConfig {
+
+    public static final String BOOKS = "books";
+
+    public static final String AUTHORS = "authors";
+
+    @Bean
+    public CacheManager cacheManager(BookApiProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new CoalescingCache(name, cache, isAllowNullValues());
+            }
+        };
+        // only the caches registered below exist, nothing is created on the fly unbounded
+        cacheManager.setCacheNames(List.of());
+        cacheManager.setAllowNullValues(false);
+        for (String name : List.of(BOOKS, AUTHORS)) {
+            BookApiProperties.CacheSpec spec = properties.cache().getOrDefault(name, BookApiProperties.CacheSpec.DEFAULT);
+            cacheManager.registerCustomCache(name, Caffeine.newBuilder()
+                    .maximumSize(spec.maximumSize())
+                    .expireAfterWrite(spec.expireAfterWrite())
+                    .recordStats()
+                    .build());
+        }
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    @Bean
+    public MeterBinder coalescedLookupMetrics(CacheManager cacheManager) {
+        return registry -> cacheManager.getCacheNames().forEach(name -> {
+            Cache cache = cacheManager.getCache(name);
+            if (cache instanceof TransactionAwareCacheDecorator decorator) {
+                cache = decorator.getTargetCache();
+            }
+            if (cache instanceof CoalescingCache coalescingCache) {
+                coalescingCache.bindTo(registry);
+            }
+        });
+    }
+}
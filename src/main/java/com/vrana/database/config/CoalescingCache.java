@@ -0,0 +1,126 @@
+package com.vrana.database.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lookup cache that loads a missing key once for all the callers that miss it at the same
+ * time: the first one runs the load, the others wait for it and share its value or its
+ * exception, so a burst of lookups of one key that is not found runs one query as well. The
+ * load runs outside of Caffeine's own computation, which would hold a lock shared with other
+ * keys for its whole duration and would not share a failure.
+ * <p>
+ * A key evicted while its load is in flight is not cached with the loaded value, which may
+ * predate the write, and callers that arrive after the eviction start a load of their own.
+ * A caller inside a transaction of its own loads alone and caches nothing: its load may see
+ * the transaction's uncommitted writes, which is why the transaction-aware cache defers its
+ * puts until the commit.
+ * The callers that waited instead of loading are published as the {@code cache.coalesced}
+ * metric.
+ */
+final class CoalescingCache extends CaffeineCache implements MeterBinder {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    CoalescingCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            return loadAlone(key, valueLoader);
+        }
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            coalesced.increment();
+            return (T) await(key, valueLoader, inFlight);
+        }
+        try {
+            T value = valueLoader.call();
+            // cached only while no eviction has removed the load, atomically with evict
+            loads.computeIfPresent(key, (k, current) -> {
+                if (current == load) {
+                    put(key, value);
+                }
+                return current;
+            });
+            load.complete(value);
+            return value;
+        } catch (Throwable ex) {
+            load.completeExceptionally(ex);
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        loads.remove(key);
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        loads.remove(key);
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        loads.clear();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        loads.clear();
+        return super.invalidate();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.coalesced", coalesced, LongAdder::sum)
+                .description("Lookups that waited for the load of the same key by another caller")
+                .tag("cache", getName())
+                .register(registry);
+    }
+
+    private static <T> T loadAlone(Object key, Callable<T> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Throwable ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+    }
+
+    private static Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> load) {
+        try {
+            return load.get();
+        } catch (ExecutionException ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+    }
+}
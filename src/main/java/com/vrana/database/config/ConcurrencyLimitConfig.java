@@ -0,0 +1,38 @@
+package com.vrana.database.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Load shedding in front of the controllers.
+ * <p>
+ * The connection permits of {@link DataSourceConfig} keep a slow database from piling up
+ * requests inside the pool, but a request still waits up to their maximum wait before it is
+ * turned away, and meanwhile holds memory and a client's patience. The
+ * {@link ConcurrencyLimiter} lets only as many requests reach the controllers as the database
+ * serves without their latency rising, and answers the others with 503, at once unless
+ * {@code book-api.concurrency-limit.max-queue-wait} lets them wait for a place. Writes may use
+ * the whole limit, reads, the handlers marked {@link ReadOnlyEndpoint}, all but
+ * {@code book-api.concurrency-limit.write-reserve} of it, so reads are shed first. Actuator
+ * endpoints are not limited.
+ */
+@Configuration
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public ConcurrencyLimiter concurrencyLimiter(BookApiProperties properties) {
+        return new ConcurrencyLimiter(properties.concurrencyLimit());
+    }
+
+    @Bean
+    public WebMvcConfigurer concurrencyLimitInterceptor(ConcurrencyLimiter concurrencyLimiter) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new ConcurrencyLimiter.Interceptor(concurrencyLimiter));
+            }
+        };
+    }
+}
@@ -0,0 +1,374 @@
+package com.vrana.database.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of requests in flight to one that follows their latency, the way TCP's
+ * congestion control follows packet loss: while requests are served about as fast as without
+ * load the limit grows by one every window, and once they take longer than
+ * {@code latencyTolerance} times that, or fail for want of a connection, it is cut by a tenth.
+ * A request over the limit is turned away, at once unless {@code maxQueueWait} lets it wait
+ * that long for a place; the time waited is not part of its latency.
+ * <p>
+ * Every route, a handler method, is measured against its own latency without load, the lowest
+ * window average it has seen: a slow import or export then signals load by growing slower than
+ * it used to, not by being slower than a lookup, and a fast lookup does not average away a
+ * slow route's overload. A window that shows overload cuts the limit, at most once per window
+ * length, and the limit grows by one per window length while the routes keep up. The latency
+ * without load is let to rise slowly, so a database that became lastingly slower is followed
+ * within a minute or two instead of pinning the limit at its minimum.
+ */
+final class ConcurrencyLimiter implements MeterBinder {
+
+    // latencies are averaged over windows of at least this length and number of requests
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final int WINDOW_SAMPLES = 10;
+
+    private static final double NO_LOAD_DRIFT = 1.001;
+
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double latencyTolerance;
+
+    private final double writeReserve;
+
+    private final long maxQueueWaitNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // a lock rather than a monitor, so waiting virtual threads do not pin their carrier
+    private final ReentrantLock queueLock = new ReentrantLock();
+
+    private final Condition permitReturned = queueLock.newCondition();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private volatile double limit;
+
+    private final Map<Object, Route> routes = new ConcurrentHashMap<>();
+
+    // the most requests in flight since the limit was last adjusted
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    // guarded by this
+    private long lastAdjustment = System.nanoTime();
+
+    private long lastCut = System.nanoTime() - WINDOW_NANOS;
+
+    private volatile Counter readRejections;
+
+    private volatile Counter writeRejections;
+
+    ConcurrencyLimiter(BookApiProperties.ConcurrencyLimitSpec spec) {
+        this.minLimit = spec.minLimit();
+        this.maxLimit = spec.maxLimit();
+        this.latencyTolerance = spec.latencyTolerance();
+        this.writeReserve = spec.writeReserve();
+        this.maxQueueWaitNanos = spec.maxQueueWait().toNanos();
+        this.limit = clamp(spec.initialLimit());
+    }
+
+    /**
+     * Hands out a permit for a request to the given route while fewer requests than the limit
+     * are in flight. Reads get none once the share of the limit reserved for writes is all
+     * that is left.
+     */
+    Optional<Permit> tryAcquire(Object route, boolean write) {
+        return counted(admit(route, write), write);
+    }
+
+    /**
+     * Like {@link #tryAcquire}, but a request over the limit waits up to {@code maxQueueWait}
+     * for a permit given back by another.
+     */
+    Optional<Permit> acquire(Object route, boolean write) throws InterruptedException {
+        Optional<Permit> permit = admit(route, write);
+        if (permit.isPresent() || maxQueueWaitNanos == 0) {
+            return counted(permit, write);
+        }
+        queued.incrementAndGet();
+        queueLock.lock();
+        try {
+            long remaining = maxQueueWaitNanos;
+            while ((permit = admit(route, write)).isEmpty() && remaining > 0) {
+                remaining = permitReturned.awaitNanos(remaining);
+            }
+        } finally {
+            queueLock.unlock();
+            queued.decrementAndGet();
+        }
+        return counted(permit, write);
+    }
+
+    private Optional<Permit> admit(Object route, boolean write) {
+        int allowed = write ? (int) limit : Math.max(1, (int) (limit * (1 - writeReserve)));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return Optional.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return Optional.of(new Permit(route, current + 1));
+            }
+        }
+    }
+
+    private Optional<Permit> counted(Optional<Permit> permit, boolean write) {
+        Counter rejections = write ? writeRejections : readRejections;
+        if (permit.isEmpty() && rejections != null) {
+            rejections.increment();
+        }
+        return permit;
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    int getQueued() {
+        return queued.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("concurrency.limit", this, ConcurrencyLimiter::getLimit)
+                .description("Requests let through at once")
+                .register(registry);
+        Gauge.builder("concurrency.in.flight", this, ConcurrencyLimiter::getInFlight)
+                .description("Requests holding a permit of the concurrency limit")
+                .register(registry);
+        Gauge.builder("concurrency.queued", this, ConcurrencyLimiter::getQueued)
+                .description("Requests waiting for a permit of the concurrency limit")
+                .register(registry);
+        readRejections = Counter.builder("concurrency.rejections")
+                .description("Requests turned away over the concurrency limit")
+                .tag("operation", "read")
+                .register(registry);
+        writeRejections = Counter.builder("concurrency.rejections")
+                .description("Requests turned away over the concurrency limit")
+                .tag("operation", "write")
+                .register(registry);
+    }
+
+    void onSample(Object route, long latency, int inFlightAtStart, boolean dropped) {
+        maxInFlight.accumulateAndGet(inFlightAtStart, Math::max);
+        Verdict verdict = routes.computeIfAbsent(route, key -> new Route()).onSample(latency, dropped);
+        if (verdict != Verdict.PENDING) {
+            adjust(verdict);
+        }
+    }
+
+    private synchronized void adjust(Verdict verdict) {
+        long now = System.nanoTime();
+        if (verdict == Verdict.OVERLOADED && now - lastCut >= WINDOW_NANOS) {
+            limit = clamp(limit * BACKOFF);
+            lastCut = now;
+        } else if (verdict == Verdict.KEEPING_UP && now - lastAdjustment >= WINDOW_NANOS) {
+            // raised only while it is used, or an idle spell would let it grow unbounded
+            if (maxInFlight.get() * 2 >= limit) {
+                limit = clamp(limit + 1);
+            }
+        } else {
+            return;
+        }
+        lastAdjustment = now;
+        maxInFlight.set(0);
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    /**
+     * A request's place within the limit, given back exactly once by one of its methods.
+     */
+    final class Permit {
+
+        private final long start = System.nanoTime();
+
+        private final Object route;
+
+        private final int inFlightAtStart;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Object route, int inFlightAtStart) {
+            this.route = route;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Gives the permit back and adjusts the limit to the latency of the request.
+         */
+        void complete() {
+            release(true, false);
+        }
+
+        /**
+         * Gives the permit back for a request that failed for want of capacity further down,
+         * which lowers the limit.
+         */
+        void drop() {
+            release(true, true);
+        }
+
+        /**
+         * Gives the permit back for a request whose latency says nothing about the load.
+         */
+        void ignore() {
+            release(false, false);
+        }
+
+        private void release(boolean sample, boolean dropped) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            inFlight.decrementAndGet();
+            if (queued.get() > 0) {
+                queueLock.lock();
+                try {
+                    permitReturned.signal();
+                } finally {
+                    queueLock.unlock();
+                }
+            }
+            if (sample) {
+                onSample(route, System.nanoTime() - start, inFlightAtStart, dropped);
+            }
+        }
+    }
+
+    private enum Verdict {
+        PENDING, KEEPING_UP, OVERLOADED
+    }
+
+    /**
+     * The latencies of one route, averaged over windows of at least ten requests and the
+     * window length, or until a request fails for want of a connection.
+     */
+    private final class Route {
+
+        // guarded by this
+        private long windowStart = System.nanoTime();
+
+        private long windowLatency;
+
+        private int windowSamples;
+
+        private boolean windowDropped;
+
+        private double noLoadLatency = Double.MAX_VALUE;
+
+        synchronized Verdict onSample(long latency, boolean dropped) {
+            windowLatency += latency;
+            windowSamples++;
+            windowDropped |= dropped;
+            long now = System.nanoTime();
+            if (now - windowStart < WINDOW_NANOS || windowSamples < WINDOW_SAMPLES && !windowDropped) {
+                return Verdict.PENDING;
+            }
+            double averageLatency = (double) windowLatency / windowSamples;
+            noLoadLatency = Math.min(noLoadLatency * NO_LOAD_DRIFT, averageLatency);
+            Verdict verdict = windowDropped || averageLatency > noLoadLatency * latencyTolerance
+                    ? Verdict.OVERLOADED
+                    : Verdict.KEEPING_UP;
+            windowStart = now;
+            windowLatency = 0;
+            windowSamples = 0;
+            windowDropped = false;
+            return verdict;
+        }
+    }
+
+    /**
+     * Takes a permit before a handler runs and gives it back once the response is written.
+     * Requests that continue asynchronously, long polls of the change feed and streaming
+     * exports, give theirs back as soon as the handler returns: they hold no connection
+     * while waiting, and a streaming export is bounded by the connection permits. Handlers
+     * marked {@link ReadOnlyEndpoint}, and those that are not controller methods such as the
+     * API docs, are reads; every other handler is a write.
+     */
+    static final class Interceptor implements AsyncHandlerInterceptor {
+
+        private static final String PERMIT = Interceptor.class.getName() + ".PERMIT";
+
+        private final ConcurrencyLimiter limiter;
+
+        Interceptor(ConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+                throws InterruptedException {
+            if (request.getDispatcherType() == DispatcherType.ASYNC) {
+                // admitted on the first dispatch already
+                return true;
+            }
+            Permit permit = limiter.acquire(route(handler), isWrite(handler))
+                    .orElseThrow(() -> new ConcurrencyLimitExceededException(
+                            "More than " + limiter.getLimit() + " requests in flight"));
+            request.setAttribute(PERMIT, permit);
+            return true;
+        }
+
+        @Override
+        public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                   Object handler) {
+            if (request.getAttribute(PERMIT) instanceof Permit permit) {
+                request.removeAttribute(PERMIT);
+                permit.ignore();
+            }
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                    Exception ex) {
+            if (request.getAttribute(PERMIT) instanceof Permit permit) {
+                request.removeAttribute(PERMIT);
+                if (response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                    permit.drop();
+                } else {
+                    permit.complete();
+                }
+            }
+        }
+
+        private static Object route(Object handler) {
+            return handler instanceof HandlerMethod handlerMethod ? handlerMethod.getMethod() : handler.getClass();
+        }
+
+        private static boolean isWrite(Object handler) {
+            return handler instanceof HandlerMethod handlerMethod
+                    && !handlerMethod.hasMethodAnnotation(ReadOnlyEndpoint.class)
+                    && !handlerMethod.getBeanType().isAnnotationPresent(ReadOnlyEndpoint.class);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.vrana.database.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Backpressure in front of the Hikari pool.
+ * <p>
+ * With virtual threads ({@code spring.threads.virtual.enabled}) the number of requests in
+ * flight is no longer capped by Tomcat's thread pool, so thousands of them can queue inside
+ * {@code getConnection()} and fail together once the pool's connection timeout passes. The
+ * pool is therefore wrapped in {@link ConnectionPermitDataSource}: one permit per pooled
+ * connection, handed out in arrival order, and a request that cannot get one within
+ * {@code book-api.connection-permits.max-wait} is answered with 503 instead of waiting on.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public static BeanPostProcessor connectionPermitPostProcessor(ObjectProvider<BookApiProperties> properties) {
+        // ahead of the replica routing, which wraps the primary pool once it has its permits
+        return new OrderedBeanPostProcessor(Ordered.HIGHEST_PRECEDENCE) {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    // an unset pool size reads -1 until the pool starts and applies its default
+                    int poolSize = dataSource.getMaximumPoolSize() > 0 ? dataSource.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+                    return new ConnectionPermitDataSource(dataSource, poolSize,
+                            properties.getObject().connectionPermits().maxWait());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder connectionPermitMetrics(DataSource dataSource) {
+        return registry -> {
+            try {
+                // with lazy initialization the permits are found and bound as a meter binder bean
+                if (!(dataSource instanceof MeterBinder) && dataSource.isWrapperFor(ConnectionPermitDataSource.class)) {
+                    dataSource.unwrap(ConnectionPermitDataSource.class).bindTo(registry);
+                }
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Cannot unwrap the connection permits of " + dataSource, ex);
+            }
+        };
+    }
+
+    abstract static class OrderedBeanPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final int order;
+
+        OrderedBeanPostProcessor(int order) {
+            this.order = order;
+        }
+
+        @Override
+        public int getOrder() {
+            return order;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.vrana.database.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary encodings of the response bodies for clients that ask for them with
+ * {@code Accept: application/x-jackson-smile} or {@code Accept: application/cbor}; JSON stays
+ * the default. Both carry the same fields as the JSON body, so the published JSON schema
+ * describes them too, and with {@code server.compression} enabled any of the three is
+ * gzipped from {@code server.compression.min-response-size} on.
+ * <p>
+ * Spring registers converters for both formats on its own once they are on the classpath,
+ * but with object mappers of their own. These are built from Spring Boot's builder instead,
+ * so every format is written with the modules and {@code spring.jackson.*} settings of the
+ * JSON one.
+ */
+@Configuration
+public class MessageConverterConfig {
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,65 @@
+package com.vrana.database.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Set;
+
+/**
+ * Metrics beyond the ones Spring Boot publishes by default, scraped from
+ * {@code /actuator/prometheus}.
+ * <p>
+ * Request, service and connection wait timers are published with histogram buckets, from
+ * which {@code histogram_quantile} derives percentiles that, unlike percentiles computed
+ * in the application, can be aggregated across instances. Hibernate collects the
+ * statistics behind the {@code hibernate.*} metrics, and queries slower than
+ * {@code book-api.slow-query-threshold} are logged by the {@code org.hibernate.SQL_SLOW}
+ * logger.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Timer of the {@code @Timed} service classes, tagged with the class and method.
+     */
+    public static final String SERVICE_TIMER = "service.method";
+
+    private static final Set<String> LATENCY_TIMERS = Set.of("http.server.requests", SERVICE_TIMER,
+            "hikaricp.connections.acquire", "connection.permits.wait");
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MeterFilter latencyHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!LATENCY_TIMERS.contains(id.getName())) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateStatistics(BookApiProperties properties) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            hibernateProperties.put(AvailableSettings.LOG_SLOW_QUERY, properties.slowQueryThreshold().toMillis());
+        };
+    }
+}
@@ -0,0 +1,179 @@
+package com.vrana.database.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * The SQL statements of a request, counted by {@link StatementCountingDataSource} while
+ * {@code book-api.query-diagnostics.enabled} is set, see {@link QueryDiagnosticsConfig}.
+ * Every response gets the number of statements as the {@value #QUERY_COUNT_HEADER} header,
+ * and their time and rows as the {@code db} metric of the {@code Server-Timing} header, which
+ * browsers show next to the request's own timing. The headers are written when the response
+ * is committed, so statements run while its body is streamed are not included.
+ * <p>
+ * Statements are attributed to the request whose thread runs them: those of writes committed
+ * together by the write coalescer count for the request that runs the batch.
+ */
+public final class QueryDiagnostics {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final ThreadLocal<Statements> CURRENT = new ThreadLocal<>();
+
+    private QueryDiagnostics() {
+    }
+
+    /**
+     * Runs the work with the statements of its thread counted separately, for code that does
+     * not run in a request of its own.
+     */
+    public static Statements count(Runnable work) {
+        Statements enclosing = CURRENT.get();
+        Statements statements = new Statements();
+        CURRENT.set(statements);
+        try {
+            work.run();
+        } finally {
+            if (enclosing != null) {
+                CURRENT.set(enclosing);
+            } else {
+                CURRENT.remove();
+            }
+        }
+        return statements;
+    }
+
+    static Statements current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Statements run, the rows they returned or changed, and the time spent executing them.
+     * Updated by the thread of a single request only.
+     */
+    public static final class Statements {
+
+        private int count;
+
+        private long rows;
+
+        private long nanos;
+
+        void recordExecution(long executionNanos) {
+            count++;
+            nanos += executionNanos;
+        }
+
+        void recordRows(long rows) {
+            this.rows += rows;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public long rows() {
+            return rows;
+        }
+
+        public Duration duration() {
+            return Duration.ofNanos(nanos);
+        }
+
+        String serverTiming() {
+            return String.format(Locale.ROOT, "db;dur=%.3f;desc=\"%d statements, %d rows\"", nanos / 1e6, count, rows);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d statements, %d rows in %.3f ms", count, rows, nanos / 1e6);
+        }
+    }
+
+    static final class Filter extends OncePerRequestFilter {
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            Statements statements = new Statements();
+            DiagnosticsResponse diagnosticsResponse = new DiagnosticsResponse(response, statements);
+            CURRENT.set(statements);
+            try {
+                chain.doFilter(request, diagnosticsResponse);
+            } finally {
+                CURRENT.remove();
+                diagnosticsResponse.writeHeaders();
+            }
+        }
+    }
+
+    // Adds the headers right before anything commits the response.
+    private static final class DiagnosticsResponse extends HttpServletResponseWrapper {
+
+        private final Statements statements;
+
+        private boolean written;
+
+        DiagnosticsResponse(HttpServletResponse response, Statements statements) {
+            super(response);
+            this.statements = statements;
+        }
+
+        void writeHeaders() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            setHeader(QUERY_COUNT_HEADER, String.valueOf(statements.count()));
+            addHeader(SERVER_TIMING_HEADER, statements.serverTiming());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
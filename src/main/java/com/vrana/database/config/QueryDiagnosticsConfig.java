@@ -0,0 +1,43 @@
+package com.vrana.database.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Per-request SQL diagnostics, enabled by setting {@code book-api.query-diagnostics.enabled},
+ * as the {@code dev} profile does. Meant for development and tests rather than production: it
+ * proxies every statement and tells clients how the endpoints use the database.
+ * <p>
+ * Every pool is wrapped in {@link StatementCountingDataSource} once it has its connection
+ * permits, the primary as well as the replica, and every response gets the statements of its
+ * request in the headers described at {@link QueryDiagnostics}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "book-api.query-diagnostics", name = "enabled", havingValue = "true")
+public class QueryDiagnosticsConfig {
+
+    @Bean
+    public static BeanPostProcessor statementCountingPostProcessor() {
+        // right after the connection permits, and ahead of the replica routing
+        return new DataSourceConfig.OrderedBeanPostProcessor(Ordered.HIGHEST_PRECEDENCE + 1) {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ConnectionPermitDataSource dataSource) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryDiagnostics.Filter> queryDiagnosticsFilter() {
+        FilterRegistrationBean<QueryDiagnostics.Filter> registration = new FilterRegistrationBean<>(new QueryDiagnostics.Filter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
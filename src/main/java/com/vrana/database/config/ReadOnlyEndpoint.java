@@ -0,0 +1,18 @@
+package com.vrana.database.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method, or every handler of a controller, as one that only reads, whatever
+ * its HTTP method: such requests are shed before the writes by the {@link ConcurrencyLimiter}.
+ * Handlers without it are treated as writes.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface ReadOnlyEndpoint {
+}
@@ -0,0 +1,47 @@
+package com.vrana.database.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Per-request opt-in to read-your-writes while a replica serves reads. A request with the
+ * {@value #HEADER} header set to {@code true} reads from the primary and bypasses the lookup
+ * caches, which may hold rows read from the replica, so it sees every write committed before
+ * it was sent.
+ */
+public final class ReadYourWrites {
+
+    public static final String HEADER = "X-Read-Your-Writes";
+
+    private static final ThreadLocal<Boolean> REQUESTED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static boolean isRequested() {
+        return REQUESTED.get() != null;
+    }
+
+    static final class Filter extends OncePerRequestFilter {
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            if (!Boolean.parseBoolean(request.getHeader(HEADER))) {
+                chain.doFilter(request, response);
+                return;
+            }
+            REQUESTED.set(Boolean.TRUE);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                REQUESTED.remove();
+            }
+        }
+    }
+}
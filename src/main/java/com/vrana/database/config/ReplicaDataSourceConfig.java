@@ -0,0 +1,84 @@
+package com.vrana.database.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Read-only transactions on a streaming replica, enabled by setting
+ * {@code book-api.replica.datasource.url}.
+ * <p>
+ * The replica gets a Hikari pool of its own, configured under
+ * {@code book-api.replica.datasource} like the primary is under {@code spring.datasource}.
+ * The primary data source is wrapped in a {@link LazyConnectionDataSourceProxy}, which fetches
+ * the physical connection only once the transaction is set up and then takes it from
+ * {@link ReplicaRoutingDataSource} for {@code @Transactional(readOnly = true)}. Reads fall back
+ * to the primary while the replica is down or lags more than {@code book-api.replica.max-lag}
+ * behind, and for requests sent with {@value ReadYourWrites#HEADER}{@code : true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "book-api.replica.datasource", name = "url")
+public class ReplicaDataSourceConfig {
+
+    // a replica that does not answer is skipped, so waiting for its connections is pointless
+    private static final Duration CONNECTION_TIMEOUT = Duration.ofSeconds(1);
+
+    @Bean(defaultCandidate = false)
+    @Qualifier("replica")
+    @ConfigurationProperties("book-api.replica.datasource")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean(defaultCandidate = false)
+    @Qualifier("replica")
+    @ConfigurationProperties("book-api.replica.datasource.hikari")
+    public HikariDataSource replicaDataSource(@Qualifier("replica") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        dataSource.setConnectionTimeout(CONNECTION_TIMEOUT.toMillis());
+        dataSource.setReadOnly(true);
+        // the pool starts without connections, a replica that is down must not stop the application
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaMonitor replicaMonitor(@Qualifier("replica") DataSource replicaDataSource, BookApiProperties properties) {
+        return new ReplicaMonitor(replicaDataSource, properties.replica().maxLag(), properties.replica().checkInterval());
+    }
+
+    @Bean
+    public static BeanPostProcessor replicaRoutingPostProcessor(ObjectProvider<ReplicaMonitor> monitor) {
+        return new DataSourceConfig.OrderedBeanPostProcessor(Ordered.LOWEST_PRECEDENCE) {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource primary && "dataSource".equals(beanName)) {
+                    LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+                    proxy.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, monitor.getObject()));
+                    return proxy;
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWrites.Filter> readYourWritesFilter() {
+        FilterRegistrationBean<ReadYourWrites.Filter> registration = new FilterRegistrationBean<>(new ReadYourWrites.Filter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
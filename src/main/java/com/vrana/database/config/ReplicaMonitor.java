@@ -0,0 +1,123 @@
+package com.vrana.database.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells whether the replica may serve reads: it must answer and must not trail the primary
+ * by more than the maximum lag. A daemon thread checks both on a fixed interval, so routing
+ * a transaction only reads a flag. The replica is not used until the first check passes.
+ */
+@Slf4j
+public final class ReplicaMonitor implements SmartLifecycle, MeterBinder {
+
+    // Seconds since the last replayed transaction while replay is behind what was received;
+    // zero once everything received is replayed, or for a server that is not a standby.
+    private static final String LAG_QUERY = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE extract(epoch FROM now() - pg_last_xact_replay_timestamp()) END""";
+
+    private final DataSource replica;
+
+    private final Duration maxLag;
+
+    private final Duration checkInterval;
+
+    private volatile boolean usable;
+
+    private volatile double lagSeconds = Double.NaN;
+
+    private ScheduledExecutorService scheduler;
+
+    ReplicaMonitor(DataSource replica, Duration maxLag, Duration checkInterval) {
+        this.replica = replica;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+    }
+
+    DataSource replica() {
+        return replica;
+    }
+
+    boolean isUsable() {
+        return usable;
+    }
+
+    /**
+     * Takes the replica out of rotation after it refused a connection, until a check passes.
+     */
+    void markUnavailable(SQLException cause) {
+        if (usable) {
+            log.warn("Replica refused a connection, reading from the primary", cause);
+        }
+        usable = false;
+        lagSeconds = Double.NaN;
+    }
+
+    /**
+     * Runs the task once every read the replica served so far reflects the writes the primary
+     * committed before this call: after the maximum lag and one check interval have passed.
+     */
+    public void afterCatchUp(Runnable task) {
+        scheduler.schedule(task, maxLag.plus(checkInterval).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void check() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet lag = statement.executeQuery(LAG_QUERY)) {
+            lag.next();
+            lagSeconds = lag.getDouble(1);
+            boolean withinMaxLag = lagSeconds * 1000 <= maxLag.toMillis();
+            if (usable != withinMaxLag) {
+                log.info(withinMaxLag ? "Replica is {} s behind, reading from the replica"
+                        : "Replica is {} s behind, reading from the primary", lagSeconds);
+            }
+            usable = withinMaxLag;
+        } catch (SQLException | RuntimeException ex) {
+            markUnavailable(ex instanceof SQLException sqlException ? sqlException : new SQLException(ex));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("replica.usable", this, monitor -> monitor.usable ? 1 : 0)
+                .description("Whether read-only transactions are routed to the replica")
+                .register(registry);
+        Gauge.builder("replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Replay lag of the replica at the last check, in seconds")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("replica-monitor").factory());
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        scheduler = null;
+        usable = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.vrana.database.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The data source of read-only transactions: the replica while {@link ReplicaMonitor} finds
+ * it usable and the request did not ask to read its own writes, the primary otherwise. A
+ * replica that fails to hand out a connection is taken out of rotation until the next check,
+ * and the transaction reads from the primary instead of failing.
+ */
+final class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+
+    private final ReplicaMonitor monitor;
+
+    ReplicaRoutingDataSource(DataSource primary, ReplicaMonitor monitor) {
+        this.primary = primary;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReadYourWrites.isRequested() || !monitor.isUsable()) {
+            return primary.getConnection();
+        }
+        try {
+            return monitor.replica().getConnection();
+        } catch (SQLException ex) {
+            monitor.markUnavailable(ex);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (ReadYourWrites.isRequested() || !monitor.isUsable()) {
+            return primary.getConnection(username, password);
+        }
+        try {
+            return monitor.replica().getConnection(username, password);
+        } catch (SQLException ex) {
+            monitor.markUnavailable(ex);
+            return primary.getConnection(username, password);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.vrana.database.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts the statements executed on its connections for the {@link QueryDiagnostics} of the
+ * current thread, with the time spent in the {@code execute} methods and the rows read from
+ * their result sets or changed by their updates. A JDBC batch counts as one statement.
+ * Threads without diagnostics, such as the scheduled jobs, only pay for the proxies.
+ */
+final class StatementCountingDataSource extends DelegatingDataSource {
+
+    StatementCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private static Connection counting(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            Object result = invoke(connection, method, args);
+            // createStatement, prepareStatement and prepareCall declare the interface to proxy
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return counting(method.getReturnType().asSubclass(Statement.class), statement);
+            }
+            return result;
+        });
+    }
+
+    private static <S extends Statement> S counting(Class<S> type, Statement statement) {
+        return proxy(type, type.cast(statement), (method, args) -> {
+            QueryDiagnostics.Statements statements = QueryDiagnostics.current();
+            if (statements == null) {
+                return invoke(statement, method, args);
+            }
+            if (method.getName().equals("getResultSet")) {
+                return countingRows(statements, (ResultSet) invoke(statement, method, args));
+            }
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invoke(statement, method, args);
+            } finally {
+                statements.recordExecution(System.nanoTime() - start);
+            }
+            return switch (result) {
+                case ResultSet resultSet -> countingRows(statements, resultSet);
+                case Integer updated -> {
+                    statements.recordRows(updated);
+                    yield updated;
+                }
+                case Long updated -> {
+                    statements.recordRows(updated);
+                    yield updated;
+                }
+                case int[] updated -> {
+                    for (int rows : updated) {
+                        // batches of unknown outcome report negative counts
+                        statements.recordRows(Math.max(rows, 0));
+                    }
+                    yield updated;
+                }
+                case long[] updated -> {
+                    for (long rows : updated) {
+                        statements.recordRows(Math.max(rows, 0));
+                    }
+                    yield updated;
+                }
+                case null, default -> result;
+            };
+        });
+    }
+
+    private static ResultSet countingRows(QueryDiagnostics.Statements statements, ResultSet resultSet) {
+        if (resultSet == null) {
+            return null;
+        }
+        return proxy(ResultSet.class, resultSet, (method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                statements.recordRows(1);
+            }
+            return result;
+        });
+    }
+
+    // Proxies are equal to themselves only, as the wrapped objects would not recognize them
+    // as equal, and the registries of open statements are hash based.
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> target.toString();
+                    default -> handler.handle(method, args);
+                }));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+}
@@ -1,8 +1,13 @@
 package com.vrana.database.controllers;
 
+import com.vrana.database.config.ReadOnlyEndpoint;
 import com.vrana.database.domain.dto.ApiErrorResponse;
 import com.vrana.database.domain.dto.AuthorDto;
+import com.vrana.database.domain.dto.CursorPage;
+import com.vrana.database.services.AuthorFilter;
 import com.vrana.database.services.AuthorService;
+import com.vrana.database.services.AuthorSortKey;
+import com.vrana.database.services.ExportFormat;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import io.swagger.v3.oas.annotations.Operation;
@@ -12,6 +17,10 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -21,9 +30,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequiredArgsConstructor
@@ -46,20 +56,115 @@ public class AuthorController {
     @PostMapping(path = "/authors")
     public ResponseEntity<AuthorDto> createAuthor(
             @Valid @RequestBody AuthorDto authorDto) {
-        return new ResponseEntity<>(authorService.createAuthor(authorDto), HttpStatus.CREATED);
+        AuthorDto createdAuthorDto = authorService.createAuthor(authorDto);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ETags.of(createdAuthorDto)).body(createdAuthorDto);
     }
 
-    @Operation(summary = "Get a list of all authors")
+    @Operation(summary = "Get a paginated list of authors",
+            description = "All filters are optional and can be combined.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of authors",
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of authors",
                     content = {@Content(mediaType = "application/json",
-                            schema = @Schema(implementation = AuthorDto.class))}),
+                            schema = @Schema(implementation = Page.class, subTypes = {AuthorDto.class}))}),
+            @ApiResponse(responseCode = "304", description = "The page has not changed since the given entity tag",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid filter value",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @ReadOnlyEndpoint
     @GetMapping(path = "/authors")
-    public List<AuthorDto> listAuthors() {
-        return authorService.findAllAuthors();
+    public ResponseEntity<Page<AuthorDto>> listAuthors(
+            @Parameter(
+                    description = "lowest age to include")
+            @RequestParam(name = "minAge", required = false) Integer minAge,
+            @Parameter(
+                    description = "highest age to include")
+            @RequestParam(name = "maxAge", required = false) Integer maxAge,
+            @Parameter(
+                    description = "case-insensitive prefix of the author name")
+            @RequestParam(name = "namePrefix", required = false) String namePrefix,
+            @Parameter(
+                    description = "only authors with (true) or without (false) books")
+            @RequestParam(name = "hasBooks", required = false) Boolean hasBooks,
+            @Parameter(
+                    description = "Pagination parameters")
+            @PageableDefault(sort = "id") Pageable pageable) {
+        Page<AuthorDto> page = authorService.findAllAuthors(new AuthorFilter(minAge, maxAge, namePrefix, hasBooks), pageable);
+        return ResponseEntity.ok().eTag(ETags.ofAuthors(page)).body(page);
+    }
+
+    @Operation(summary = "Get a cursor-paginated list of authors",
+            description = "Seeks on an indexed sort key instead of using an offset and runs no count query. "
+                    + "Pass the returned next or prev cursor together with the same filters to move between pages.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of authors",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPage.class, subTypes = {AuthorDto.class}))}),
+            @ApiResponse(responseCode = "304", description = "The page has not changed since the given entity tag",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, sort key or filter value",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @ReadOnlyEndpoint
+    @GetMapping(path = "/authors/cursor")
+    public ResponseEntity<CursorPage<AuthorDto>> listAuthorsByCursor(
+            @Parameter(
+                    description = "cursor returned by a previous page, omit for the first page")
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @Parameter(
+                    description = "sort key of the first page, ignored when a cursor is given; "
+                            + "authors without a name are left out of the NAME order")
+            @RequestParam(name = "sort", defaultValue = "ID") AuthorSortKey sort,
+            @Parameter(
+                    description = "number of authors per page")
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            @Parameter(
+                    description = "lowest age to include")
+            @RequestParam(name = "minAge", required = false) Integer minAge,
+            @Parameter(
+                    description = "highest age to include")
+            @RequestParam(name = "maxAge", required = false) Integer maxAge,
+            @Parameter(
+                    description = "case-insensitive prefix of the author name")
+            @RequestParam(name = "namePrefix", required = false) String namePrefix,
+            @Parameter(
+                    description = "only authors with (true) or without (false) books")
+            @RequestParam(name = "hasBooks", required = false) Boolean hasBooks) {
+        CursorPage<AuthorDto> page = authorService.findAllAuthors(
+                new AuthorFilter(minAge, maxAge, namePrefix, hasBooks), cursor, sort, size);
+        return ResponseEntity.ok().eTag(ETags.ofAuthors(page)).body(page);
+    }
+
+    @Operation(summary = "Export all authors",
+            description = "Streams every author as newline-delimited JSON or CSV without paging. "
+                    + "Memory use does not depend on the number of authors.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Authors are being streamed",
+                    content = {@Content(mediaType = "application/x-ndjson",
+                            schema = @Schema(implementation = AuthorDto.class)),
+                            @Content(mediaType = "text/csv")}),
+            @ApiResponse(responseCode = "400", description = "Invalid export format",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @ReadOnlyEndpoint
+    @GetMapping(path = "/authors/export")
+    public ResponseEntity<StreamingResponseBody> exportAuthors(
+            @Parameter(
+                    description = "export format")
+            @RequestParam(name = "format", defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(
+                    description = "gzip the response body")
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip) {
+        return ExportResponses.stream("authors", format, gzip, authorService::exportAuthors);
     }
 
     @Operation(summary = "Get an author by its id")
@@ -67,6 +172,8 @@ public class AuthorController {
             @ApiResponse(responseCode = "200", description = "Author found successfully",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = AuthorDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Author has not changed since the given entity tag",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Author not found",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))}),
@@ -76,13 +183,25 @@ public class AuthorController {
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @ReadOnlyEndpoint
     @GetMapping(path = "/authors/{id}")
     public ResponseEntity<AuthorDto> getAuthor(
             @Parameter(
                     description = "id of author to be searched",
                     required = true)
-            @PathVariable("id") Long id) {
-        return new ResponseEntity<>(authorService.findOneOrThrow(id), HttpStatus.OK);
+            @PathVariable("id") Long id,
+            @Parameter(
+                    description = "entity tag of a previously fetched copy of the author")
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            // an unchanged author is confirmed from its version, without loading or serializing it
+            String eTag = ETags.of(authorService.findVersionTag(id));
+            if (ETags.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+        AuthorDto authorDto = authorService.findOneOrThrow(id);
+        return ResponseEntity.ok().eTag(ETags.of(authorDto)).body(authorDto);
     }
 
     @Operation(summary = "Completely update an author",
@@ -97,6 +216,9 @@ public class AuthorController {
             @ApiResponse(responseCode = "404", description = "Author not found",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))}),
+            @ApiResponse(responseCode = "412", description = "Author has changed since the entity tag given in If-Match",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))})})
@@ -106,8 +228,12 @@ public class AuthorController {
                     description = "id of author to be searched",
                     required = true)
             @PathVariable("id") Long id,
+            @Parameter(
+                    description = "entity tag the author must still have, the update is rejected otherwise")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody AuthorDto authorDto) {
-        return new ResponseEntity<>(authorService.updateFullAuthor(id, authorDto), HttpStatus.OK);
+        AuthorDto updatedAuthorDto = authorService.updateFullAuthor(id, authorDto, ETags.versionTags(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedAuthorDto)).body(updatedAuthorDto);
     }
 
     @Operation(summary = "Partially update an author",
@@ -122,6 +248,9 @@ public class AuthorController {
             @ApiResponse(responseCode = "404", description = "Author not found",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))}),
+            @ApiResponse(responseCode = "412", description = "Author has changed since the entity tag given in If-Match",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))})})
@@ -131,8 +260,12 @@ public class AuthorController {
                     description = "id of author to be updated",
                     required = true)
             @PathVariable("id") Long id,
+            @Parameter(
+                    description = "entity tag the author must still have, the update is rejected otherwise")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody AuthorDto authorDto) {
-        return new ResponseEntity<>(authorService.updatePartialAuthor(id, authorDto), HttpStatus.OK);
+        AuthorDto updatedAuthorDto = authorService.updatePartialAuthor(id, authorDto, ETags.versionTags(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedAuthorDto)).body(updatedAuthorDto);
     }
 
     @Operation(summary = "Delete an author")
@@ -1,8 +1,17 @@
 package com.vrana.database.controllers;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vrana.database.config.ReadOnlyEndpoint;
 import com.vrana.database.domain.dto.ApiErrorResponse;
+import com.vrana.database.domain.dto.BookBatchResultDto;
 import com.vrana.database.domain.dto.BookDto;
+import com.vrana.database.domain.dto.BookLookupRequestDto;
+import com.vrana.database.domain.dto.BookLookupResultDto;
+import com.vrana.database.domain.dto.CursorPage;
 import com.vrana.database.services.BookService;
+import com.vrana.database.services.BookSortKey;
+import com.vrana.database.services.ExportFormat;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,7 +23,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,7 +36,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 
 @RestController
 @RequiredArgsConstructor
@@ -32,6 +53,8 @@ public class BookController {
 
     private final BookService bookService;
 
+    private final ObjectMapper objectMapper;
+
     @Operation(summary = "Create a new book")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Book created successfully",
@@ -50,7 +73,56 @@ public class BookController {
                     required = true)
             @PathVariable("isbn") String isbn,
             @Valid @RequestBody BookDto bookDto) {
-        return new ResponseEntity<>(bookService.createBook(isbn, bookDto), HttpStatus.CREATED);
+        BookDto createdBookDto = bookService.createBook(isbn, bookDto);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ETags.of(createdBookDto)).body(createdBookDto);
+    }
+
+    @Operation(summary = "Create many books in one request",
+            description = "Accepts a JSON array or an NDJSON stream of books, each carrying its isbn. "
+                    + "Authors with an id must already exist; authors without one are created once per distinct "
+                    + "name and age. The body is read and imported in chunks of 5000 books, each committed on its "
+                    + "own, and the response reports the outcome of every book. A malformed book ends the import: "
+                    + "the books before it are imported and reported, it is reported as UNREADABLE and the books "
+                    + "after it are not read.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Books processed, see the per-row report",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BookBatchResultDto.class))}),
+            @ApiResponse(responseCode = "400", description = "Request body does not start with a book",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @PostMapping(path = "/books/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BookBatchResultDto> createBooks(InputStream body) throws IOException {
+        return new ResponseEntity<>(bookService.createBooks(readBooks(body)), HttpStatus.OK);
+    }
+
+    // Reads the books one at a time; a top-level array is unwrapped by Jackson, so
+    // JSON arrays and NDJSON streams share the same path.
+    private Iterator<BookDto> readBooks(InputStream body) throws IOException {
+        MappingIterator<BookDto> values = objectMapper.readerFor(BookDto.class).readValues(body);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return values.hasNextValue();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            @Override
+            public BookDto next() {
+                try {
+                    return values.nextValue();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        };
     }
 
     @Operation(summary = "Completely update a book",
@@ -65,6 +137,9 @@ public class BookController {
             @ApiResponse(responseCode = "404", description = "Book not found",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))),
+            @ApiResponse(responseCode = "412", description = "Book has changed since the entity tag given in If-Match",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))})})
@@ -74,8 +149,12 @@ public class BookController {
                     description = "book isbn",
                     required = true)
             @PathVariable("isbn") String isbn,
+            @Parameter(
+                    description = "entity tag the book must still have, the update is rejected otherwise")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody BookDto bookDto) {
-        return new ResponseEntity<>(bookService.updateFullBook(isbn, bookDto), HttpStatus.OK);
+        BookDto updatedBookDto = bookService.updateFullBook(isbn, bookDto, ETags.versionTags(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedBookDto)).body(updatedBookDto);
     }
 
     @Operation(summary = "Partially update a book",
@@ -90,6 +169,9 @@ public class BookController {
             @ApiResponse(responseCode = "404", description = "Book not found",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))),
+            @ApiResponse(responseCode = "412", description = "Book has changed since the entity tag given in If-Match",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))})})
@@ -99,8 +181,12 @@ public class BookController {
                     description = "book isbn",
                     required = true)
             @PathVariable("isbn") String isbn,
+            @Parameter(
+                    description = "entity tag the book must still have, the update is rejected otherwise")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody BookDto bookDto) {
-        return new ResponseEntity<>(bookService.updatePartialBook(isbn, bookDto), HttpStatus.OK);
+        BookDto updatedBookDto = bookService.updatePartialBook(isbn, bookDto, ETags.versionTags(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedBookDto)).body(updatedBookDto);
     }
 
     @Operation(summary = "Get a paginated list of all books")
@@ -108,15 +194,133 @@ public class BookController {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved the list of books",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = Page.class, subTypes = {BookDto.class}))}),
+            @ApiResponse(responseCode = "304", description = "The page has not changed since the given entity tag",
+                    content = @Content),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @ReadOnlyEndpoint
     @GetMapping(path = "/books")
-    public Page<BookDto> listBooks(
+    public ResponseEntity<Page<BookDto>> listBooks(
             @Parameter(
                     description = "Pagination parameters")
             Pageable pageable) {
-        return bookService.findAllBooks(pageable);
+        Page<BookDto> page = bookService.findAllBooks(pageable);
+        return ResponseEntity.ok().eTag(ETags.ofBooks(page)).body(page);
+    }
+
+    @Operation(summary = "Get a paginated list of the books of an author",
+            description = "Sorted by isbn unless requested otherwise; that order is read from an index on "
+                    + "author and isbn.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of books",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Page.class, subTypes = {BookDto.class}))}),
+            @ApiResponse(responseCode = "304", description = "The page has not changed since the given entity tag",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Author not found",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @ReadOnlyEndpoint
+    @GetMapping(path = "/authors/{id}/books")
+    public ResponseEntity<Page<BookDto>> listBooksByAuthor(
+            @Parameter(
+                    description = "id of the author",
+                    required = true)
+            @PathVariable("id") Long id,
+            @Parameter(
+                    description = "Pagination parameters")
+            @PageableDefault(sort = "isbn") Pageable pageable) {
+        Page<BookDto> page = bookService.findAllBooksByAuthor(id, pageable);
+        return ResponseEntity.ok().eTag(ETags.ofBooks(page)).body(page);
+    }
+
+    @Operation(summary = "Get a cursor-paginated list of all books",
+            description = "Seeks on an indexed sort key instead of using an offset and runs no count query. "
+                    + "Pass the returned next or prev cursor to move between pages; the cursor remembers the sort key.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of books",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPage.class, subTypes = {BookDto.class}))}),
+            @ApiResponse(responseCode = "304", description = "The page has not changed since the given entity tag",
+                    content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or sort key",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @ReadOnlyEndpoint
+    @GetMapping(path = "/books/cursor")
+    public ResponseEntity<CursorPage<BookDto>> listBooksByCursor(
+            @Parameter(
+                    description = "cursor returned by a previous page, omit for the first page")
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @Parameter(
+                    description = "sort key of the first page, ignored when a cursor is given; "
+                            + "books without a title are left out of the TITLE order")
+            @RequestParam(name = "sort", defaultValue = "ISBN") BookSortKey sort,
+            @Parameter(
+                    description = "number of books per page")
+            @RequestParam(name = "size", defaultValue = "20") int size) {
+        CursorPage<BookDto> page = bookService.findAllBooks(cursor, sort, size);
+        return ResponseEntity.ok().eTag(ETags.ofBooks(page)).body(page);
+    }
+
+    @Operation(summary = "Search books by title and author name",
+            description = "Ranks full-text matches of the query words in titles above matches in author names; "
+                    + "the words may be spread over both. Books of equal rank are ordered by ISBN. "
+                    + "When nothing matches, books with similarly spelled titles or author names are returned "
+                    + "instead, so small typos still find results. Pages do not report a total count.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the page of matching books",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = Slice.class, subTypes = {BookDto.class}))}),
+            @ApiResponse(responseCode = "400", description = "Missing query",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @ReadOnlyEndpoint
+    @GetMapping(path = "/books/search")
+    public Slice<BookDto> searchBooks(
+            @Parameter(
+                    description = "words to search for, quoted phrases and -exclusions are supported")
+            @RequestParam(name = "q") String query,
+            @Parameter(
+                    description = "Pagination parameters, sorting is ignored")
+            Pageable pageable) {
+        return bookService.searchBooks(query, pageable);
+    }
+
+    @Operation(summary = "Export all books",
+            description = "Streams every book as newline-delimited JSON or CSV without paging. "
+                    + "Memory use does not depend on the size of the catalog.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Books are being streamed",
+                    content = {@Content(mediaType = "application/x-ndjson",
+                            schema = @Schema(implementation = BookDto.class)),
+                            @Content(mediaType = "text/csv")}),
+            @ApiResponse(responseCode = "400", description = "Invalid export format",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @ReadOnlyEndpoint
+    @GetMapping(path = "/books/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @Parameter(
+                    description = "export format")
+            @RequestParam(name = "format", defaultValue = "NDJSON") ExportFormat format,
+            @Parameter(
+                    description = "gzip the response body")
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip) {
+        return ExportResponses.stream("books", format, gzip, bookService::exportBooks);
     }
 
     @Operation(summary = "Get a book by its isbn")
@@ -124,6 +328,8 @@ public class BookController {
             @ApiResponse(responseCode = "200", description = "Book found successfully",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = BookDto.class))}),
+            @ApiResponse(responseCode = "304", description = "Book has not changed since the given entity tag",
+                    content = @Content),
             @ApiResponse(responseCode = "404", description = "Book not found",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))),
@@ -133,13 +339,44 @@ public class BookController {
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = {@Content(mediaType = "application/json",
                             schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @ReadOnlyEndpoint
     @GetMapping(path = "/books/{isbn}")
     public ResponseEntity<BookDto> getBook(
             @Parameter(
                     description = "book isbn",
                     required = true)
-            @PathVariable("isbn") String isbn) {
-        return new ResponseEntity<>(bookService.findOneOrThrow(isbn), HttpStatus.OK);
+            @PathVariable("isbn") String isbn,
+            @Parameter(
+                    description = "entity tag of a previously fetched copy of the book")
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            // an unchanged book is confirmed from its versions, without loading or serializing it
+            String eTag = ETags.of(bookService.findVersionTag(isbn));
+            if (ETags.matches(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+        BookDto bookDto = bookService.findOneOrThrow(isbn);
+        return ResponseEntity.ok().eTag(ETags.of(bookDto)).body(bookDto);
+    }
+
+    @Operation(summary = "Get many books by isbn in one request",
+            description = "Fetches up to 1000 books and their authors with a single query. Books are returned in "
+                    + "request order and isbns without a book are listed as missing rather than failing the request.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Books fetched, see the missing isbns",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BookLookupResultDto.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid request body",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @ReadOnlyEndpoint
+    @PostMapping(path = "/books/lookup")
+    public ResponseEntity<BookLookupResultDto> lookupBooks(@Valid @RequestBody BookLookupRequestDto lookupRequestDto) {
+        return ResponseEntity.ok(bookService.findBooks(lookupRequestDto.getIsbns()));
     }
 
     @Operation(summary = "Delete a book")
@@ -0,0 +1,78 @@
+package com.vrana.database.controllers;
+
+import com.vrana.database.config.ReadOnlyEndpoint;
+import com.vrana.database.domain.dto.ApiErrorResponse;
+import com.vrana.database.domain.dto.ChangeFeedDto;
+import com.vrana.database.services.ChangeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@ReadOnlyEndpoint
+@RequiredArgsConstructor
+@Tag(name = "Changes", description = "Feed of changes to books and authors for keeping copies of the catalog in sync")
+public class ChangeController {
+
+    private final ChangeService changeService;
+
+    @Operation(summary = "Get the changes after a cursor",
+            description = "Returns books and authors that were created, updated or deleted after the cursor, in the "
+                    + "order the changes were made, and the cursor to continue from. A book or author changed "
+                    + "several times may only be listed with its latest change. Without new changes the request "
+                    + "waits up to the given number of seconds for one before it answers with none.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the changes",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ChangeFeedDto.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
+            @ApiResponse(responseCode = "410", description = "Changes after the cursor are no longer retained",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @GetMapping(path = "/changes")
+    public CompletableFuture<ResponseEntity<ChangeFeedDto>> listChanges(
+            @Parameter(
+                    description = "cursor returned by a previous request, omit to start at the oldest retained change")
+            @RequestParam(name = "since", required = false) String since,
+            @Parameter(
+                    description = "maximum number of changes to return")
+            @RequestParam(name = "limit", defaultValue = "100") int limit,
+            @Parameter(
+                    description = "seconds to wait for a change when there is none yet, 0 to answer at once")
+            @RequestParam(name = "wait", defaultValue = "30") int wait) {
+        return changeService.awaitChanges(since, limit, Duration.ofSeconds(wait))
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Get the cursor of the latest change",
+            description = "Take it before copying the catalog, and continue from it afterwards to receive every "
+                    + "change made during and after the copy.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the cursor",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ChangeFeedDto.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @GetMapping(path = "/changes/head")
+    public ResponseEntity<ChangeFeedDto> getHead() {
+        return ResponseEntity.ok(changeService.findHead());
+    }
+}
@@ -0,0 +1,117 @@
+package com.vrana.database.controllers;
+
+import com.vrana.database.domain.EntityTags;
+import com.vrana.database.domain.dto.AuthorDto;
+import com.vrana.database.domain.dto.BookDto;
+import com.vrana.database.domain.dto.CursorPage;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ETag;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * Entity tags of the read endpoints, the {@link EntityTags} the reactive read API sends as
+ * well. They are derived from the version columns, so a matching {@code If-None-Match} is
+ * answered without serializing the body, and for single lookups without loading the entity
+ * at all.
+ * <p>
+ * Single books and authors get strong tags, which {@code If-Match} needs. Pages get weak
+ * ones: they are only ever revalidated, and Tomcat compresses no response with a strong tag.
+ * A strong tag stands for the exact bytes of a response, so the Smile and CBOR variants carry
+ * their format in it, see {@link #ofVariant(String, MediaType)}; a tag of any variant names
+ * the same versions to {@code If-Match} and {@code If-None-Match}.
+ */
+final class ETags {
+
+    // never part of a version tag or a digest
+    private static final char VARIANT_SEPARATOR = '+';
+
+    private ETags() {
+    }
+
+    static String of(String versionTag) {
+        return EntityTags.of(versionTag);
+    }
+
+    static String of(BookDto bookDto) {
+        return EntityTags.of(bookDto);
+    }
+
+    static String of(AuthorDto authorDto) {
+        return EntityTags.of(authorDto);
+    }
+
+    static String ofBooks(Page<BookDto> page) {
+        return EntityTags.ofBooks(page.getContent(), pageState(page));
+    }
+
+    static String ofBooks(CursorPage<BookDto> page) {
+        return EntityTags.ofBooks(page);
+    }
+
+    static String ofAuthors(Page<AuthorDto> page) {
+        return EntityTags.ofAuthors(page.getContent(), pageState(page));
+    }
+
+    static String ofAuthors(CursorPage<AuthorDto> page) {
+        return EntityTags.ofAuthors(page);
+    }
+
+    /**
+     * The tag of the response body in the given format. JSON bodies keep the tag, the other
+     * formats get their media subtype appended to a strong tag, e.g. {@code "3.1+cbor"}. Weak
+     * tags stay shared by all formats, whose bodies are equivalent.
+     */
+    static String ofVariant(String eTag, MediaType contentType) {
+        if (contentType == null || eTag.startsWith("W/") || !eTag.endsWith("\"")
+                || contentType.getSubtype().equals("json") || contentType.getSubtype().endsWith("+json")) {
+            return eTag;
+        }
+        return eTag.substring(0, eTag.length() - 1) + VARIANT_SEPARATOR + contentType.getSubtype() + "\"";
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches the tag, using the weak comparison
+     * the header is defined with.
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        ETag current = ETag.create(eTag);
+        return ETag.parse(ifNoneMatch).stream()
+                .anyMatch(candidate -> candidate.isWildcard()
+                        || new ETag(withoutVariant(candidate.tag()), candidate.weak()).compare(current, false));
+    }
+
+    /**
+     * Version tags an {@code If-Match} header accepts; empty, so unconditional, when the header
+     * is absent or {@code *}. Weak tags never pass the strong comparison, so they, like a header
+     * that does not parse, are kept as they are and cannot match a version tag.
+     */
+    static List<String> versionTags(String ifMatch) {
+        if (ifMatch == null) {
+            return List.of();
+        }
+        List<ETag> eTags = ETag.parse(ifMatch);
+        if (eTags.isEmpty()) {
+            return List.of(ifMatch);
+        }
+        if (eTags.stream().anyMatch(ETag::isWildcard)) {
+            return List.of();
+        }
+        return eTags.stream()
+                .map(eTag -> eTag.weak() ? eTag.formattedTag() : withoutVariant(eTag.tag()))
+                .toList();
+    }
+
+    private static String withoutVariant(String tag) {
+        int separator = tag.indexOf(VARIANT_SEPARATOR);
+        return separator < 0 ? tag : tag.substring(0, separator);
+    }
+
+    private static String pageState(Page<?> page) {
+        return EntityTags.pageState(page.getNumber(), page.getSize(), page.getTotalElements(), page.getSort());
+    }
+}
@@ -1,18 +1,32 @@
 package com.vrana.database.controllers;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.vrana.database.config.ConcurrencyLimitExceededException;
 import com.vrana.database.domain.dto.ApiErrorResponse;
+import com.vrana.database.services.ExpiredCursorException;
+import com.vrana.database.services.InvalidCursorException;
+import com.vrana.database.services.VersionMismatchException;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.io.UncheckedIOException;
+import java.sql.SQLTransientConnectionException;
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
@@ -45,7 +59,7 @@ public class ErrorController {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
-    @ExceptionHandler(HttpMessageNotReadableException.class)
+    @ExceptionHandler({HttpMessageNotReadableException.class, JsonProcessingException.class})
     public ResponseEntity<ApiErrorResponse> handleHttpMessageNotReadableException() {
         ApiErrorResponse error = ApiErrorResponse.builder()
                 .status(HttpStatus.BAD_REQUEST.value())
@@ -55,6 +69,24 @@ public class ErrorController {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(UncheckedIOException.class)
+    public ResponseEntity<ApiErrorResponse> handleUncheckedIOException(UncheckedIOException ex) {
+        if (!(ex.getCause() instanceof JsonProcessingException)) {
+            return handleException(ex);
+        }
+        return handleHttpMessageNotReadableException();
+    }
+
+    @ExceptionHandler(MissingServletRequestParameterException.class)
+    public ResponseEntity<ApiErrorResponse> handleMissingServletRequestParameterException(MissingServletRequestParameterException ex) {
+        ApiErrorResponse error = ApiErrorResponse.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(String.format("Required parameter %s is missing", ex.getParameterName()))
+                .build();
+
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
     public ResponseEntity<ApiErrorResponse> handleHttpRequestMethodNotSupportedException(HttpRequestMethodNotSupportedException ex) {
         ApiErrorResponse error = ApiErrorResponse.builder()
@@ -84,4 +116,82 @@ public class ErrorController {
 
         return new ResponseEntity<>(error, HttpStatus.CONFLICT);
     }
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ApiErrorResponse> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException ex) {
+        ApiErrorResponse error = ApiErrorResponse.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(String.format("Invalid value '%s' for parameter %s", ex.getValue(), ex.getName()))
+                .build();
+
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ExpiredCursorException.class)
+    public ResponseEntity<ApiErrorResponse> handleExpiredCursorException(ExpiredCursorException ex) {
+        ApiErrorResponse error = ApiErrorResponse.builder()
+                .status(HttpStatus.GONE.value())
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(error, HttpStatus.GONE);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ApiErrorResponse> handleInvalidCursorException(InvalidCursorException ex) {
+        ApiErrorResponse error = ApiErrorResponse.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(VersionMismatchException.class)
+    public ResponseEntity<ApiErrorResponse> handleVersionMismatchException(VersionMismatchException ex) {
+        ApiErrorResponse error = ApiErrorResponse.builder()
+                .status(HttpStatus.PRECONDITION_FAILED.value())
+                .message(ex.getMessage())
+                .build();
+
+        return new ResponseEntity<>(error, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiErrorResponse> handleOptimisticLockingFailureException() {
+        ApiErrorResponse error = ApiErrorResponse.builder()
+                .status(HttpStatus.CONFLICT.value())
+                .message("The resource was modified concurrently, retry the request")
+                .build();
+
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    // A request that got no pooled connection in time is turned away rather than failed:
+    // the connection permits of DataSourceConfig and the pool's own timeout both end here.
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ApiErrorResponse> handleConnectionUnavailableException(Exception ex) {
+        if (!(NestedExceptionUtils.getRootCause(ex) instanceof SQLTransientConnectionException)) {
+            return handleException(ex);
+        }
+        return serviceUnavailable();
+    }
+
+    // A request over the concurrency limit of ConcurrencyLimitConfig is turned away before it
+    // reaches a controller.
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<ApiErrorResponse> handleConcurrencyLimitExceededException() {
+        return serviceUnavailable();
+    }
+
+    private static ResponseEntity<ApiErrorResponse> serviceUnavailable() {
+        ApiErrorResponse error = ApiErrorResponse.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message("The service is busy, retry the request")
+                .build();
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
 }
\ No newline at end of file
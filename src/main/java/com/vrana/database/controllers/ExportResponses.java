@@ -0,0 +1,50 @@
+package com.vrana.database.controllers;
+
+import com.vrana.database.services.ExportFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+final class ExportResponses {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private ExportResponses() {
+    }
+
+    @FunctionalInterface
+    interface Exporter {
+        void export(ExportFormat format, OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * Streams the export straight into the response body. The exporter runs once the
+     * response is being written, so its transaction, and with it the database
+     * connection, lives exactly as long as the stream.
+     */
+    static ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, boolean gzip, Exporter exporter) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.getFileExtension())
+                        .build()
+                        .toString());
+
+        if (!gzip) {
+            return response.body(outputStream -> exporter.export(format, outputStream));
+        }
+
+        return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(outputStream -> {
+                    GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE);
+                    exporter.export(format, gzipOutputStream);
+                    gzipOutputStream.finish();
+                });
+    }
+}
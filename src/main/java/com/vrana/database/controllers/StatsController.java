@@ -0,0 +1,41 @@
+package com.vrana.database.controllers;
+
+import com.vrana.database.config.ReadOnlyEndpoint;
+import com.vrana.database.domain.dto.ApiErrorResponse;
+import com.vrana.database.domain.dto.CatalogStatsDto;
+import com.vrana.database.services.StatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ReadOnlyEndpoint
+@RequiredArgsConstructor
+@Tag(name = "Statistics", description = "Aggregates over the whole catalog")
+public class StatsController {
+
+    private final StatsService statsService;
+
+    @Operation(summary = "Get catalog statistics",
+            description = "Totals, the distribution of books per author and the age distribution of authors. "
+                    + "The aggregates are maintained on every write, so the cost of this request does not "
+                    + "depend on the size of the catalog.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the statistics",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CatalogStatsDto.class))}),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ApiErrorResponse.class))})})
+    @GetMapping(path = "/stats")
+    public ResponseEntity<CatalogStatsDto> getCatalogStats() {
+        return ResponseEntity.ok(statsService.findCatalogStats());
+    }
+}
@@ -0,0 +1,53 @@
+package com.vrana.database.controllers;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Marks every response body as chosen by the {@code Accept} header, so that caches keep the
+ * JSON, Smile and CBOR variants of a resource apart, and gives each variant a strong entity tag
+ * of its own, as its bytes differ from the others'.
+ */
+@RestControllerAdvice
+public class VaryByAcceptAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        List<String> vary = response.getHeaders().getVary();
+        if (vary.stream().noneMatch(HttpHeaders.ACCEPT::equalsIgnoreCase)) {
+            List<String> merged = new ArrayList<>(vary);
+            merged.add(HttpHeaders.ACCEPT);
+            response.getHeaders().setVary(merged);
+        }
+        String eTag = response.getHeaders().getETag();
+        if (eTag != null) {
+            String variantTag = ETags.ofVariant(eTag, selectedContentType);
+            if (response instanceof ServletServerHttpResponse servletResponse) {
+                // the check for a conditional GET has set the tag on the servlet response already,
+                // to which the headers here would only add a second one
+                response.getHeaders().remove(HttpHeaders.ETAG);
+                servletResponse.getServletResponse().setHeader(HttpHeaders.ETAG, variantTag);
+            } else {
+                response.getHeaders().setETag(variantTag);
+            }
+        }
+        return body;
+    }
+}
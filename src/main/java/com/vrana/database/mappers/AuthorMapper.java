@@ -2,6 +2,7 @@ package com.vrana.database.mappers;
 
 import com.vrana.database.domain.dto.AuthorDto;
 import com.vrana.database.domain.entities.AuthorEntity;
+import com.vrana.database.repositories.AuthorRepository;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
@@ -13,13 +14,18 @@ public interface AuthorMapper {
 
     AuthorDto mapTo(AuthorEntity authorEntity);
 
+    AuthorDto mapTo(AuthorRepository.AuthorRow authorRow);
+
+    @Mapping(target = "version", ignore = true)
     AuthorEntity mapFrom(AuthorDto authorDto);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.SET_TO_NULL)
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void updateFullAuthorFromDto(AuthorDto authorDto, @MappingTarget AuthorEntity authorEntity);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void updatePartialAuthorFromDto(AuthorDto authorDto, @MappingTarget AuthorEntity authorEntity);
 }
\ No newline at end of file
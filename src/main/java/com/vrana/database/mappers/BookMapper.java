@@ -1,7 +1,9 @@
 package com.vrana.database.mappers;
 
+import com.vrana.database.domain.dto.AuthorDto;
 import com.vrana.database.domain.dto.BookDto;
 import com.vrana.database.domain.entities.BookEntity;
+import com.vrana.database.repositories.BookRepository;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
@@ -13,13 +15,26 @@ public interface BookMapper {
 
     BookDto mapTo(BookEntity bookEntity);
 
+    // a row without an author id belongs to a book without an author
+    default BookDto mapTo(BookRepository.BookRow bookRow) {
+        AuthorDto authorDto = bookRow.getAuthorId() == null ? null : new AuthorDto(bookRow.getAuthorId(),
+                bookRow.getAuthorName(), bookRow.getAuthorAge(), bookRow.getAuthorVersion());
+        return new BookDto(bookRow.getIsbn(), bookRow.getTitle(), authorDto, bookRow.getVersion());
+    }
+
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "author.version", ignore = true)
     BookEntity mapFrom(BookDto bookDto);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.SET_TO_NULL)
     @Mapping(target = "isbn", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "author.version", ignore = true)
     void updateFullBookFromDto(BookDto bookDto, @MappingTarget BookEntity bookEntity);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     @Mapping(target = "isbn", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "author.version", ignore = true)
     void updatePartialBookFromDto(BookDto bookDto, @MappingTarget BookEntity bookEntity);
 }
\ No newline at end of file
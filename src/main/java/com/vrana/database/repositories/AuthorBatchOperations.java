@@ -0,0 +1,21 @@
+package com.vrana.database.repositories;
+
+import com.vrana.database.domain.entities.AuthorEntity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Set-based statements for bulk writes. Each method costs a single round trip
+ * regardless of how many rows it is given.
+ */
+public interface AuthorBatchOperations {
+
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Inserts the authors and assigns the generated ids to the given entities.
+     */
+    void insertAll(List<AuthorEntity> authorEntities);
+}
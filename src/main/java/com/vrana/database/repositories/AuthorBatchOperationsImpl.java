@@ -0,0 +1,61 @@
+package com.vrana.database.repositories;
+
+import com.vrana.database.domain.entities.AuthorEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RequiredArgsConstructor
+class AuthorBatchOperationsImpl implements AuthorBatchOperations {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        List<Long> existing = jdbcTemplate.query(
+                connection -> {
+                    var statement = connection.prepareStatement("SELECT id FROM authors WHERE id = ANY (?)");
+                    statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                    return statement;
+                },
+                (rs, rowNum) -> rs.getLong(1));
+        return new HashSet<>(existing);
+    }
+
+    @Override
+    public void insertAll(List<AuthorEntity> authorEntities) {
+        if (authorEntities.isEmpty()) {
+            return;
+        }
+        // RETURNING does not guarantee the input order, so the ids are drawn up front
+        // and inserted explicitly to tie every generated id to its entity.
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence('authors', 'id')) FROM generate_series(1, ?)",
+                Long.class, authorEntities.size());
+        for (int i = 0; i < authorEntities.size(); i++) {
+            authorEntities.get(i).setId(ids.get(i));
+        }
+
+        jdbcTemplate.update(connection -> {
+            var statement = connection.prepareStatement("""
+                    INSERT INTO authors (id, name, age, version)
+                    SELECT id, name, age, 0
+                    FROM unnest(?::bigint[], ?::varchar[], ?::integer[]) AS a (id, name, age)""");
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            statement.setArray(2, connection.createArrayOf("varchar", authorEntities.stream()
+                    .map(AuthorEntity::getName)
+                    .toArray()));
+            statement.setArray(3, connection.createArrayOf("integer", authorEntities.stream()
+                    .map(AuthorEntity::getAge)
+                    .toArray()));
+            return statement;
+        });
+    }
+}
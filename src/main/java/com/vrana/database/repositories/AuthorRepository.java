@@ -1,13 +1,92 @@
 package com.vrana.database.repositories;
 
 import com.vrana.database.domain.entities.AuthorEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface AuthorRepository extends JpaRepository<AuthorEntity, Long> {
+public interface AuthorRepository extends JpaRepository<AuthorEntity, Long>,
+        JpaSpecificationExecutor<AuthorEntity>, AuthorBatchOperations {
 
     Iterable<AuthorEntity> findByAgeLessThan(int age);
 
     Iterable<AuthorEntity> findByAgeGreaterThan(int age);
+
+    @Query("select a.version from AuthorEntity a where a.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select a from AuthorEntity a order by a.id asc")
+    Stream<AuthorEntity> streamAll();
+
+    // Updates are one statement that checks the version tags on the locked row, raises the
+    // version only when a column changes and returns the isbns of the author's books, whose
+    // cached copies embed the author. No row means the author is missing or has moved on.
+
+    @Query(value = """
+            WITH updated AS (
+                UPDATE authors a
+                SET name = CAST(:name AS VARCHAR),
+                    age = CAST(:age AS INTEGER),
+                    version = a.version + CASE WHEN (a.name, a.age) IS NOT DISTINCT FROM
+                                                        (CAST(:name AS VARCHAR), CAST(:age AS INTEGER))
+                                               THEN 0 ELSE 1 END
+                WHERE a.id = :id
+                  AND (cardinality(CAST(:versionTags AS TEXT[])) = 0
+                       OR CAST(a.version AS TEXT) = ANY (CAST(:versionTags AS TEXT[])))
+                RETURNING a.id, a.name, a.age, a.version)
+            SELECT u.id, u.name, u.age, u.version,
+                   ARRAY(SELECT b.isbn FROM books b WHERE b.author_id = u.id) AS isbns
+            FROM updated u""",
+            nativeQuery = true)
+    Optional<AuthorRow> updateFull(@Param("id") Long id, @Param("name") String name, @Param("age") Integer age,
+                                   @Param("versionTags") String[] versionTags);
+
+    @Query(value = """
+            WITH updated AS (
+                UPDATE authors a
+                SET name = coalesce(CAST(:name AS VARCHAR), a.name),
+                    age = coalesce(CAST(:age AS INTEGER), a.age),
+                    version = a.version + CASE WHEN (a.name, a.age) IS NOT DISTINCT FROM
+                                                        (coalesce(CAST(:name AS VARCHAR), a.name),
+                                                         coalesce(CAST(:age AS INTEGER), a.age))
+                                               THEN 0 ELSE 1 END
+                WHERE a.id = :id
+                  AND (cardinality(CAST(:versionTags AS TEXT[])) = 0
+                       OR CAST(a.version AS TEXT) = ANY (CAST(:versionTags AS TEXT[])))
+                RETURNING a.id, a.name, a.age, a.version)
+            SELECT u.id, u.name, u.age, u.version,
+                   ARRAY(SELECT b.isbn FROM books b WHERE b.author_id = u.id) AS isbns
+            FROM updated u""",
+            nativeQuery = true)
+    Optional<AuthorRow> updatePartial(@Param("id") Long id, @Param("name") String name, @Param("age") Integer age,
+                                      @Param("versionTags") String[] versionTags);
+
+    @Modifying
+    @Query("delete from AuthorEntity a where a.id = :id")
+    int deleteDirectlyById(@Param("id") Long id);
+
+    interface AuthorRow {
+        Long getId();
+
+        String getName();
+
+        Integer getAge();
+
+        Long getVersion();
+
+        String[] getIsbns();
+    }
 }
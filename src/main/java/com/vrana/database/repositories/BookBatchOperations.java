@@ -0,0 +1,22 @@
+package com.vrana.database.repositories;
+
+import com.vrana.database.domain.entities.BookEntity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Set-based statements for bulk writes. Each method costs a single round trip
+ * regardless of how many rows it is given.
+ */
+public interface BookBatchOperations {
+
+    Set<String> findExistingIsbns(Collection<String> isbns);
+
+    /**
+     * Inserts the books that do not exist yet and returns the isbns that were inserted.
+     * Books whose isbn is already taken are skipped.
+     */
+    Set<String> insertAllIfAbsent(List<BookEntity> bookEntities);
+}
@@ -0,0 +1,64 @@
+package com.vrana.database.repositories;
+
+import com.vrana.database.domain.entities.BookEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RequiredArgsConstructor
+class BookBatchOperationsImpl implements BookBatchOperations {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Set<String> findExistingIsbns(Collection<String> isbns) {
+        if (isbns.isEmpty()) {
+            return Set.of();
+        }
+        List<String> existing = jdbcTemplate.query(
+                connection -> {
+                    var statement = connection.prepareStatement("SELECT isbn FROM books WHERE isbn = ANY (?)");
+                    statement.setArray(1, connection.createArrayOf("varchar", isbns.toArray()));
+                    return statement;
+                },
+                (rs, rowNum) -> rs.getString(1));
+        return new HashSet<>(existing);
+    }
+
+    // the search vectors are computed here for the whole chunk, which skips the row trigger
+    // that would look up every book's author on its own
+    @Override
+    public Set<String> insertAllIfAbsent(List<BookEntity> bookEntities) {
+        if (bookEntities.isEmpty()) {
+            return Set.of();
+        }
+        List<String> inserted = jdbcTemplate.query(
+                connection -> {
+                    var statement = connection.prepareStatement("""
+                            INSERT INTO books (isbn, title, author_id, version, search_vector)
+                            SELECT b.isbn, b.title, b.author_id, 0,
+                                   setweight(to_tsvector('english', coalesce(b.title, '')), 'A')
+                                       || coalesce(a.search_vector, '')
+                            FROM unnest(?::varchar[], ?::varchar[], ?::bigint[]) AS b (isbn, title, author_id)
+                                     LEFT JOIN authors a ON a.id = b.author_id
+                            ON CONFLICT (isbn) DO NOTHING
+                            RETURNING isbn""");
+                    statement.setArray(1, connection.createArrayOf("varchar", bookEntities.stream()
+                            .map(BookEntity::getIsbn)
+                            .toArray()));
+                    statement.setArray(2, connection.createArrayOf("varchar", bookEntities.stream()
+                            .map(BookEntity::getTitle)
+                            .toArray()));
+                    statement.setArray(3, connection.createArrayOf("bigint", bookEntities.stream()
+                            .map(book -> book.getAuthor() == null ? null : book.getAuthor().getId())
+                            .toArray()));
+                    return statement;
+                },
+                (rs, rowNum) -> rs.getString(1));
+        return new HashSet<>(inserted);
+    }
+}
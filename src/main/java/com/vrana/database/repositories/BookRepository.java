@@ -1,11 +1,213 @@
 package com.vrana.database.repositories;
 
 import com.vrana.database.domain.entities.BookEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface BookRepository extends JpaRepository<BookEntity, String>,
-        PagingAndSortingRepository<BookEntity, String> {
+        PagingAndSortingRepository<BookEntity, String>, BookBatchOperations {
+
+    // The author is lazy; read paths that return books load it with the
+    // "author" graph so that a page costs one joined select, not one per author.
+
+    @Override
+    @EntityGraph(attributePaths = "author")
+    Page<BookEntity> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "author")
+    Optional<BookEntity> findById(String isbn);
+
+    // Declared as a query so that Hibernate caches its plan; the derived version builds and
+    // translates a new criteria query on every call.
+    @Override
+    @EntityGraph(attributePaths = "author")
+    @Query("select b from BookEntity b where b.isbn in :isbns")
+    List<BookEntity> findAllById(@Param("isbns") Iterable<String> isbns);
+
+    @EntityGraph(attributePaths = "author")
+    Page<BookEntity> findByAuthorId(Long authorId, Pageable pageable);
+
+    // Keyset queries use row value comparisons so that PostgreSQL can seek
+    // the (isbn) and (title, isbn) indexes instead of filtering a full scan.
+
+    @EntityGraph(attributePaths = "author")
+    @Query("select b from BookEntity b order by b.isbn asc")
+    List<BookEntity> findAllOrderedByIsbn(Limit limit);
+
+    @EntityGraph(attributePaths = "author")
+    @Query("select b from BookEntity b where b.isbn > :isbn order by b.isbn asc")
+    List<BookEntity> findAllAfterIsbn(@Param("isbn") String isbn, Limit limit);
+
+    @EntityGraph(attributePaths = "author")
+    @Query("select b from BookEntity b where b.isbn < :isbn order by b.isbn desc")
+    List<BookEntity> findAllBeforeIsbn(@Param("isbn") String isbn, Limit limit);
+
+    @EntityGraph(attributePaths = "author")
+    @Query("select b from BookEntity b where b.title is not null order by b.title asc, b.isbn asc")
+    List<BookEntity> findAllOrderedByTitle(Limit limit);
+
+    @EntityGraph(attributePaths = "author")
+    @Query("select b from BookEntity b where (b.title, b.isbn) > (:title, :isbn) order by b.title asc, b.isbn asc")
+    List<BookEntity> findAllAfterTitle(@Param("title") String title, @Param("isbn") String isbn, Limit limit);
+
+    @EntityGraph(attributePaths = "author")
+    @Query("select b from BookEntity b where (b.title, b.isbn) < (:title, :isbn) order by b.title desc, b.isbn desc")
+    List<BookEntity> findAllBeforeTitle(@Param("title") String title, @Param("isbn") String isbn, Limit limit);
+
+    // Search matches the combined title and author name vector of V9 on its single GIN index,
+    // so a query may spread its words over both fields, and the page is cut before the books
+    // are loaded by isbn. Every match is ranked, the isbn breaking ties, so pages are stable
+    // and reach the last match; the vectors are read in one pass over the matching pages,
+    // a few milliseconds for the thousands of books a common word matches.
+
+    @Query(value = """
+            SELECT isbn
+            FROM books, websearch_to_tsquery('english', :query) q
+            WHERE search_vector @@ q
+            ORDER BY ts_rank(search_vector, q) DESC, isbn""",
+            nativeQuery = true)
+    Slice<String> searchIsbns(@Param("query") String query, Pageable pageable);
+
+    // Replaces each word of the query by the most similar word of a title or name; words
+    // nothing resembles are dropped, and no query is left when none does.
+    @Query(value = """
+            SELECT string_agg(corrected.word, ' ' ORDER BY q.position)
+            FROM regexp_split_to_table(lower(:query), '\\W+') WITH ORDINALITY AS q (word, position)
+            CROSS JOIN LATERAL (SELECT w.word FROM search_words w
+                                WHERE w.word % q.word
+                                ORDER BY similarity(w.word, q.word) DESC, w.word
+                                LIMIT 1) corrected
+            WHERE q.word <> ''""",
+            nativeQuery = true)
+    Optional<String> correctSpelling(@Param("query") String query);
+
+    @Query("select b.version as version, a.version as authorVersion from BookEntity b left join b.author a "
+            + "where b.isbn = :isbn")
+    Optional<Versions> findVersionsByIsbn(@Param("isbn") String isbn);
+
+    @Query("select b.isbn from BookEntity b where b.author.id = :authorId")
+    List<String> findIsbnsByAuthorId(@Param("authorId") Long authorId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select b from BookEntity b left join fetch b.author order by b.isbn asc")
+    Stream<BookEntity> streamAll();
+
+    // Writes of a single book are one statement each and return the written row with its
+    // author. A missing row, an existing isbn or an outdated version tag yield no row, and
+    // only that failure path pays for a second query telling the causes apart.
+
+    // The book references an existing author by id without loading it, or a new author
+    // inserted by the same statement; that author is skipped when the isbn is taken.
+    @Query(value = """
+            WITH new_author AS (
+                INSERT INTO authors (name, age)
+                SELECT CAST(:authorName AS VARCHAR), CAST(:authorAge AS INTEGER)
+                WHERE :newAuthor AND NOT EXISTS (SELECT FROM books WHERE isbn = :isbn)
+                RETURNING id, name, age, version),
+            author AS (
+                SELECT id, name, age, version FROM new_author
+                UNION ALL
+                SELECT id, name, age, version FROM authors WHERE id = CAST(:authorId AS BIGINT)),
+            inserted AS (
+                INSERT INTO books (isbn, title, author_id)
+                SELECT :isbn, CAST(:title AS VARCHAR), (SELECT id FROM author)
+                WHERE CAST(:authorId AS BIGINT) IS NULL OR EXISTS (SELECT FROM author)
+                ON CONFLICT (isbn) DO NOTHING
+                RETURNING isbn, title, version, author_id)
+            SELECT i.isbn, i.title, i.version, a.id AS "authorId", a.name AS "authorName",
+                   a.age AS "authorAge", a.version AS "authorVersion"
+            FROM inserted i LEFT JOIN author a ON a.id = i.author_id""",
+            nativeQuery = true)
+    Optional<BookRow> insertIfAbsent(@Param("isbn") String isbn, @Param("title") String title,
+                                     @Param("authorId") Long authorId, @Param("newAuthor") boolean newAuthor,
+                                     @Param("authorName") String authorName, @Param("authorAge") Integer authorAge);
+
+    // Version tags are compared in the WHERE clause of the update, so a concurrent change is
+    // detected on the locked row; an empty array makes the update unconditional. The version
+    // is only raised when a column actually changes, as Hibernate's dirty checking did.
+
+    @Query(value = """
+            UPDATE books b
+            SET title = CAST(:title AS VARCHAR),
+                author_id = NULL,
+                version = b.version + CASE WHEN (b.title, b.author_id) IS NOT DISTINCT FROM
+                                                    (CAST(:title AS VARCHAR), NULL)
+                                           THEN 0 ELSE 1 END
+            WHERE b.isbn = :isbn
+              AND (cardinality(CAST(:versionTags AS TEXT[])) = 0
+                   OR concat_ws('.', b.version, (SELECT a.version FROM authors a WHERE a.id = b.author_id))
+                          = ANY (CAST(:versionTags AS TEXT[])))
+            RETURNING b.isbn, b.title, b.version, NULL AS "authorId", NULL AS "authorName",
+                      NULL AS "authorAge", NULL AS "authorVersion\"""",
+            nativeQuery = true)
+    Optional<BookRow> updateTitleAndUnlinkAuthor(@Param("isbn") String isbn, @Param("title") String title,
+                                                 @Param("versionTags") String[] versionTags);
+
+    @Query(value = """
+            WITH updated AS (
+                UPDATE books b
+                SET title = coalesce(CAST(:title AS VARCHAR), b.title),
+                    version = b.version + CASE WHEN b.title IS NOT DISTINCT FROM
+                                                        coalesce(CAST(:title AS VARCHAR), b.title)
+                                               THEN 0 ELSE 1 END
+                WHERE b.isbn = :isbn
+                  AND (cardinality(CAST(:versionTags AS TEXT[])) = 0
+                       OR concat_ws('.', b.version, (SELECT a.version FROM authors a WHERE a.id = b.author_id))
+                              = ANY (CAST(:versionTags AS TEXT[])))
+                RETURNING b.isbn, b.title, b.version, b.author_id)
+            SELECT u.isbn, u.title, u.version, a.id AS "authorId", a.name AS "authorName",
+                   a.age AS "authorAge", a.version AS "authorVersion"
+            FROM updated u LEFT JOIN authors a ON a.id = u.author_id""",
+            nativeQuery = true)
+    Optional<BookRow> updateTitle(@Param("isbn") String isbn, @Param("title") String title,
+                                  @Param("versionTags") String[] versionTags);
+
+    // The author goes with the book, as the cascade of BookEntity removes it.
+    @Query(value = """
+            WITH deleted AS (DELETE FROM books WHERE isbn = :isbn RETURNING author_id)
+            DELETE FROM authors WHERE id IN (SELECT author_id FROM deleted)
+            RETURNING id""",
+            nativeQuery = true)
+    Optional<Long> deleteWithAuthor(@Param("isbn") String isbn);
+
+    interface Versions {
+        Long getVersion();
+
+        Long getAuthorVersion();
+    }
+
+    interface BookRow {
+        String getIsbn();
+
+        String getTitle();
+
+        Long getVersion();
+
+        Long getAuthorId();
+
+        String getAuthorName();
+
+        Integer getAuthorAge();
+
+        Long getAuthorVersion();
+    }
 }
@@ -0,0 +1,48 @@
+package com.vrana.database.repositories;
+
+import com.vrana.database.domain.dto.CatalogStatsDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Reads the aggregates that the triggers of V7 maintain. Each query sums a handful of slot
+ * rows per value, so none of them reads the books or authors tables.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CatalogStatsRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Totals findTotals() {
+        return jdbcTemplate.queryForObject(
+                "SELECT coalesce(sum(books), 0), coalesce(sum(authors), 0) FROM catalog_totals",
+                (rs, rowNum) -> new Totals(rs.getLong(1), rs.getLong(2)));
+    }
+
+    public List<CatalogStatsDto.BooksPerAuthor> findBooksPerAuthor() {
+        return jdbcTemplate.query("""
+                        SELECT books, sum(authors)
+                        FROM books_per_author_counts
+                        GROUP BY books
+                        HAVING sum(authors) > 0
+                        ORDER BY books""",
+                (rs, rowNum) -> new CatalogStatsDto.BooksPerAuthor(rs.getLong(1), rs.getLong(2)));
+    }
+
+    public List<CatalogStatsDto.AuthorAge> findAuthorAges() {
+        return jdbcTemplate.query("""
+                        SELECT age, sum(authors)
+                        FROM author_age_counts
+                        GROUP BY age
+                        HAVING sum(authors) > 0
+                        ORDER BY age NULLS LAST""",
+                (rs, rowNum) -> new CatalogStatsDto.AuthorAge(rs.getObject(1, Integer.class), rs.getLong(2)));
+    }
+
+    public record Totals(long books, long authors) {
+    }
+}
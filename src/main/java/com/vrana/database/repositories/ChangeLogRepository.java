@@ -0,0 +1,124 @@
+package com.vrana.database.repositories;
+
+import com.vrana.database.domain.dto.ChangeDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads and trims the change log that the triggers of V8 write. Only entries of transactions
+ * older than every transaction still in progress are read, see the migration.
+ * <p>
+ * The log is ordered by transaction id, which is taken at a transaction's first write and not
+ * at its commit, so a change can be logged ahead of an earlier change of the same book or
+ * author. Changes of one book or author are ordered by entry id instead, see V10: an entry
+ * listed after a later change of its book or author is left out, and compaction keeps the
+ * entry with the highest id.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ChangeLogRepository {
+
+    private static final String SETTLED = "c.txid < pg_snapshot_xmin(pg_current_snapshot())";
+
+    private static final String NOT_OVERTAKEN = """
+            NOT EXISTS (SELECT FROM catalog_changes l
+                        WHERE l.entity = c.entity AND l.entity_key = c.entity_key
+                          AND l.id > c.id AND l.txid < c.txid)""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Entry> findAfter(Position position, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT c.txid::text, c.id, c.entity, c.entity_key, c.operation, c.version, c.changed_at
+                        FROM catalog_changes c
+                        WHERE (c.txid, c.id) > (CAST(? AS xid8), ?) AND %s AND %s
+                        ORDER BY c.txid, c.id
+                        LIMIT ?""".formatted(SETTLED, NOT_OVERTAKEN),
+                (rs, rowNum) -> new Entry(
+                        new Position(Long.parseLong(rs.getString(1)), rs.getLong(2)),
+                        ChangeDto.builder()
+                                .entity(ChangeDto.Entity.valueOf(rs.getString(3)))
+                                .key(rs.getString(4))
+                                .operation(ChangeDto.Operation.valueOf(rs.getString(5)))
+                                .version(rs.getObject(6, Long.class))
+                                .changedAt(rs.getObject(7, OffsetDateTime.class).toInstant())
+                                .build()),
+                String.valueOf(position.txid()), position.id(), limit);
+    }
+
+    /**
+     * Position of the latest entry that can be read, if any.
+     */
+    public Optional<Position> findHead() {
+        return jdbcTemplate.query("""
+                        SELECT c.txid::text, c.id
+                        FROM catalog_changes c
+                        WHERE %s AND %s
+                        ORDER BY c.txid DESC, c.id DESC
+                        LIMIT 1""".formatted(SETTLED, NOT_OVERTAKEN),
+                (rs, rowNum) -> new Position(Long.parseLong(rs.getString(1)), rs.getLong(2))).stream().findFirst();
+    }
+
+    /**
+     * Position of the latest entry removed for its age; readers behind it have missed changes.
+     */
+    public Position findHorizon() {
+        return jdbcTemplate.queryForObject("SELECT txid::text, id FROM catalog_changes_horizon",
+                (rs, rowNum) -> new Position(Long.parseLong(rs.getString(1)), rs.getLong(2)));
+    }
+
+    /**
+     * Removes every entry that a later entry of the same book or author supersedes, later by
+     * entry id, whatever the order of their transactions.
+     */
+    public int deleteSuperseded() {
+        return jdbcTemplate.update("""
+                DELETE FROM catalog_changes c
+                WHERE EXISTS (SELECT FROM catalog_changes l
+                              WHERE l.entity = c.entity AND l.entity_key = c.entity_key
+                                AND l.id > c.id)""");
+    }
+
+    /**
+     * Removes the entries older than the retention and moves the horizon past them.
+     */
+    public int deleteOlderThan(Duration retention) {
+        return jdbcTemplate.queryForObject("""
+                        WITH deleted AS (DELETE FROM catalog_changes
+                                         WHERE changed_at < now() - make_interval(secs => ?)
+                                         RETURNING txid, id),
+                             latest AS (SELECT txid, id FROM deleted ORDER BY txid DESC, id DESC LIMIT 1),
+                             moved AS (UPDATE catalog_changes_horizon h
+                                       SET txid = l.txid, id = l.id
+                                       FROM latest l
+                                       WHERE (h.txid, h.id) < (l.txid, l.id))
+                        SELECT count(*) FROM deleted""",
+                Integer.class, (double) retention.toSeconds());
+    }
+
+    /**
+     * Place of an entry in the log: the id of the writing transaction, then the entry's id.
+     */
+    public record Position(long txid, long id) implements Comparable<Position> {
+
+        public static final Position START = new Position(0, 0);
+
+        private static final Comparator<Position> ORDER = Comparator.comparingLong(Position::txid)
+                .thenComparingLong(Position::id);
+
+        @Override
+        public int compareTo(Position other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    public record Entry(Position position, ChangeDto change) {
+    }
+}
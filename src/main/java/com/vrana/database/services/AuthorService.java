@@ -1,19 +1,34 @@
 package com.vrana.database.services;
 
 import com.vrana.database.domain.dto.AuthorDto;
+import com.vrana.database.domain.dto.CursorPage;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
 
 public interface AuthorService {
     AuthorDto createAuthor(AuthorDto authorDto);
 
-    List<AuthorDto> findAllAuthors();
+    Page<AuthorDto> findAllAuthors(AuthorFilter filter, Pageable pageable);
+
+    CursorPage<AuthorDto> findAllAuthors(AuthorFilter filter, String cursor, AuthorSortKey sortKey, int size);
+
+    void exportAuthors(ExportFormat format, OutputStream outputStream) throws IOException;
 
     AuthorDto findOneOrThrow(Long id);
 
+    String findVersionTag(Long id);
+
     AuthorDto updateFullAuthor(Long id, AuthorDto authorDto);
 
+    AuthorDto updateFullAuthor(Long id, AuthorDto authorDto, Collection<String> expectedVersionTags);
+
     AuthorDto updatePartialAuthor(Long id, AuthorDto authorDto);
 
+    AuthorDto updatePartialAuthor(Long id, AuthorDto authorDto, Collection<String> expectedVersionTags);
+
     void delete(Long id);
 }
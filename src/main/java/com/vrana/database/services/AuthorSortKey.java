@@ -0,0 +1,10 @@
+package com.vrana.database.services;
+
+/**
+ * Sort keys supported by cursor pagination of authors. Each key is backed by an index
+ * and ends with the unique id, so the keyset is a total order.
+ */
+public enum AuthorSortKey {
+    ID,
+    NAME
+}
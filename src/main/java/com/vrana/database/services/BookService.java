@@ -1,19 +1,47 @@
 package com.vrana.database.services;
 
+import com.vrana.database.domain.dto.BookBatchResultDto;
 import com.vrana.database.domain.dto.BookDto;
+import com.vrana.database.domain.dto.BookLookupResultDto;
+import com.vrana.database.domain.dto.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 
 public interface BookService {
     BookDto createBook(String isbn, BookDto bookDto);
 
+    BookBatchResultDto createBooks(Iterator<BookDto> bookDtos);
+
     Page<BookDto> findAllBooks(Pageable pageable);
 
+    Page<BookDto> findAllBooksByAuthor(Long authorId, Pageable pageable);
+
+    CursorPage<BookDto> findAllBooks(String cursor, BookSortKey sortKey, int size);
+
+    Slice<BookDto> searchBooks(String query, Pageable pageable);
+
+    void exportBooks(ExportFormat format, OutputStream outputStream) throws IOException;
+
     BookDto findOneOrThrow(String isbn);
 
+    BookLookupResultDto findBooks(List<String> isbns);
+
+    String findVersionTag(String isbn);
+
     BookDto updateFullBook(String isbn, BookDto bookDto);
 
+    BookDto updateFullBook(String isbn, BookDto bookDto, Collection<String> expectedVersionTags);
+
     BookDto updatePartialBook(String isbn, BookDto bookDto);
 
+    BookDto updatePartialBook(String isbn, BookDto bookDto, Collection<String> expectedVersionTags);
+
     void delete(String isbn);
 }
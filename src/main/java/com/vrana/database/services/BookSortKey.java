@@ -0,0 +1,10 @@
+package com.vrana.database.services;
+
+/**
+ * Sort keys supported by cursor pagination of books. Each key is backed by an index
+ * and ends with the unique isbn, so the keyset is a total order.
+ */
+public enum BookSortKey {
+    ISBN,
+    TITLE
+}
@@ -0,0 +1,18 @@
+package com.vrana.database.services;
+
+import com.vrana.database.domain.dto.ChangeFeedDto;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+public interface ChangeService {
+    ChangeFeedDto findChanges(String since, int limit);
+
+    /**
+     * Like {@link #findChanges}, but completes only once there is at least one change after
+     * {@code since} or {@code maxWait} has passed, whichever comes first.
+     */
+    CompletableFuture<ChangeFeedDto> awaitChanges(String since, int limit, Duration maxWait);
+
+    ChangeFeedDto findHead();
+}
@@ -0,0 +1,8 @@
+package com.vrana.database.services;
+
+public class ExpiredCursorException extends RuntimeException {
+
+    public ExpiredCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.vrana.database.services;
+
+import com.vrana.database.domain.dto.CatalogStatsDto;
+
+public interface StatsService {
+    CatalogStatsDto findCatalogStats();
+}
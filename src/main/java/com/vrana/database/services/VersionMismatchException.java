@@ -0,0 +1,12 @@
+package com.vrana.database.services;
+
+public class VersionMismatchException extends RuntimeException {
+
+    public VersionMismatchException(String message) {
+        super(message);
+    }
+
+    public VersionMismatchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
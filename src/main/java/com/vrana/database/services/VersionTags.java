@@ -0,0 +1,26 @@
+package com.vrana.database.services;
+
+import com.vrana.database.domain.EntityTags;
+
+import java.util.Collection;
+
+/**
+ * Checks of the conditional writes against the {@link EntityTags#versionTag version tags} of
+ * books and authors, opaque tags identifying one state of them.
+ */
+public final class VersionTags {
+
+    private VersionTags() {
+    }
+
+    /**
+     * Throws when expected tags are given and none of them is the current one; no expected
+     * tags means the write is unconditional.
+     */
+    public static void check(Collection<String> expectedVersionTags, String currentVersionTag, String subject) {
+        if (expectedVersionTags != null && !expectedVersionTags.isEmpty()
+                && !expectedVersionTags.contains(currentVersionTag)) {
+            throw new VersionMismatchException(subject + " has been modified, current version is " + currentVersionTag);
+        }
+    }
+}
@@ -1,25 +1,66 @@
 package com.vrana.database.services.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vrana.database.config.CacheConfig;
+import com.vrana.database.config.MetricsConfig;
+import com.vrana.database.domain.EntityTags;
 import com.vrana.database.domain.dto.AuthorDto;
+import com.vrana.database.domain.dto.CursorPage;
 import com.vrana.database.domain.entities.AuthorEntity;
 import com.vrana.database.mappers.AuthorMapper;
 import com.vrana.database.repositories.AuthorRepository;
+import com.vrana.database.services.AuthorFilter;
 import com.vrana.database.services.AuthorService;
+import com.vrana.database.services.AuthorSortKey;
+import com.vrana.database.services.ExportFormat;
+import com.vrana.database.services.InvalidCursorException;
+import com.vrana.database.services.VersionMismatchException;
+import com.vrana.database.services.VersionTags;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class AuthorServiceImpl implements AuthorService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 2000;
+
+    private static final List<String> CSV_HEADER = List.of("id", "name", "age");
+
     private final AuthorRepository authorRepository;
 
     private final AuthorMapper authorMapper;
 
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    private final KeysetCursorCodec cursorCodec;
+
+    private final LookupCaches lookupCaches;
+
     @Override
+    @Transactional
     public AuthorDto createAuthor(AuthorDto authorDto) {
         AuthorEntity authorEntity = authorMapper.mapFrom(authorDto);
         AuthorEntity savedAuthorEntity = authorRepository.save(authorEntity);
@@ -28,11 +69,72 @@ public class AuthorServiceImpl implements AuthorService {
     }
 
     @Override
-    public List<AuthorDto> findAllAuthors() {
-        return authorRepository.findAll()
-                .stream()
-                .map(authorMapper::mapTo)
-                .toList();
+    @Transactional(readOnly = true)
+    public Page<AuthorDto> findAllAuthors(AuthorFilter filter, Pageable pageable) {
+        return authorRepository.findAll(AuthorSpecifications.matching(filter), pageable)
+                .map(authorMapper::mapTo);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<AuthorDto> findAllAuthors(AuthorFilter filter, String cursor, AuthorSortKey sortKey, int size) {
+        KeysetCursorCodec.Cursor position = null;
+        if (cursor != null && !cursor.isBlank()) {
+            position = cursorCodec.decode(cursor);
+            sortKey = parseSortKey(position.sort());
+            if (position.isFirstPage()) {
+                position = null;
+            }
+        }
+
+        int pageSize = Math.clamp(size, 1, MAX_CURSOR_PAGE_SIZE);
+        Specification<AuthorEntity> specification = Specification.allOf(
+                AuthorSpecifications.matching(filter),
+                AuthorSpecifications.sortable(sortKey),
+                position == null ? null : AuthorSpecifications.beyond(sortKey, position));
+        var sort = AuthorSpecifications.sortOf(sortKey,
+                position == null ? KeysetCursorCodec.Direction.FORWARD : position.direction());
+        List<AuthorEntity> rows = authorRepository.findBy(specification,
+                query -> query.sortBy(sort).limit(pageSize + 1).all());
+
+        AuthorSortKey key = sortKey;
+        return cursorCodec.toPage(sortKey.name(), position, rows, pageSize,
+                author -> keysetOf(author, key), authorMapper::mapTo);
+    }
+
+    private static AuthorSortKey parseSortKey(String sort) {
+        try {
+            return AuthorSortKey.valueOf(sort);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("Unknown sort key in cursor: " + sort, ex);
+        }
+    }
+
+    private static Map<String, Object> keysetOf(AuthorEntity author, AuthorSortKey sortKey) {
+        return switch (sortKey) {
+            case ID -> Map.of("id", author.getId());
+            case NAME -> Map.of("name", author.getName(), "id", author.getId());
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAuthors(ExportFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<AuthorEntity> authors = authorRepository.streamAll();
+             ExportWriter<AuthorDto> writer = ExportWriter.create(format, outputStream, objectMapper, AuthorDto.class,
+                     CSV_HEADER, AuthorServiceImpl::csvRow)) {
+            Iterator<AuthorEntity> iterator = authors.iterator();
+            while (iterator.hasNext()) {
+                AuthorEntity authorEntity = iterator.next();
+                writer.write(authorMapper.mapTo(authorEntity));
+                // keeps the persistence context from growing with the table
+                entityManager.detach(authorEntity);
+            }
+        }
+    }
+
+    private static List<?> csvRow(AuthorDto authorDto) {
+        return Arrays.asList(authorDto.getId(), authorDto.getName(), authorDto.getAge());
     }
 
     private AuthorEntity getAuthorEntityOrThrow(Long id) {
@@ -41,6 +143,9 @@ public class AuthorServiceImpl implements AuthorService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.AUTHORS, key = "#id", sync = true,
+            condition = "!T(com.vrana.database.config.ReadYourWrites).isRequested()")
     public AuthorDto findOneOrThrow(Long id) {
         AuthorEntity authorEntity = getAuthorEntityOrThrow(id);
 
@@ -48,25 +153,65 @@ public class AuthorServiceImpl implements AuthorService {
     }
 
     @Override
+    public String findVersionTag(Long id) {
+        // a cached author is as current as the lookup would be, the version column is read otherwise
+        return lookupCaches.cachedAuthor(id)
+                .map(EntityTags::versionTag)
+                .orElseGet(() -> authorRepository.findVersionById(id)
+                        .map(String::valueOf)
+                        .orElseThrow(() -> new EntityNotFoundException("Author not found with id: " + id)));
+    }
+
+    @Override
+    @Transactional
     public AuthorDto updateFullAuthor(Long id, AuthorDto authorDto) {
-        AuthorEntity existingAuthorEntity = getAuthorEntityOrThrow(id);
-        authorMapper.updateFullAuthorFromDto(authorDto, existingAuthorEntity);
-        AuthorEntity savedAuthorEntity = authorRepository.save(existingAuthorEntity);
+        return updateFullAuthor(id, authorDto, List.of());
+    }
 
-        return authorMapper.mapTo(savedAuthorEntity);
+    @Override
+    @Transactional
+    public AuthorDto updateFullAuthor(Long id, AuthorDto authorDto, Collection<String> expectedVersionTags) {
+        return updateAuthor(id, expectedVersionTags, tags ->
+                authorRepository.updateFull(id, authorDto.getName(), authorDto.getAge(), tags));
     }
 
     @Override
+    @Transactional
     public AuthorDto updatePartialAuthor(Long id, AuthorDto authorDto) {
-        AuthorEntity existingAuthorEntity = getAuthorEntityOrThrow(id);
-        authorMapper.updatePartialAuthorFromDto(authorDto, existingAuthorEntity);
-        AuthorEntity savedAuthorEntity = authorRepository.save(existingAuthorEntity);
+        return updatePartialAuthor(id, authorDto, List.of());
+    }
 
-        return authorMapper.mapTo(savedAuthorEntity);
+    @Override
+    @Transactional
+    public AuthorDto updatePartialAuthor(Long id, AuthorDto authorDto, Collection<String> expectedVersionTags) {
+        return updateAuthor(id, expectedVersionTags, tags ->
+                authorRepository.updatePartial(id, authorDto.getName(), authorDto.getAge(), tags));
+    }
+
+    private AuthorDto updateAuthor(Long id, Collection<String> expectedVersionTags,
+                                   Function<String[], Optional<AuthorRepository.AuthorRow>> update) {
+        AuthorRepository.AuthorRow authorRow = update.apply(expectedVersionTags.toArray(String[]::new))
+                .orElseThrow(() -> updateFailure(id, expectedVersionTags));
+        // the statement bypassed the persistence context, so no copy loaded before may be reused
+        entityManager.clear();
+        lookupCaches.evictAuthorWithBooks(id, authorRow.getIsbns());
+
+        return authorMapper.mapTo(authorRow);
+    }
+
+    private RuntimeException updateFailure(Long id, Collection<String> expectedVersionTags) {
+        String currentVersionTag = authorRepository.findVersionById(id)
+                .map(String::valueOf)
+                .orElseThrow(() -> new EntityNotFoundException("Author not found with id: " + id));
+        VersionTags.check(expectedVersionTags, currentVersionTag, "Author " + id);
+        return new VersionMismatchException("Author " + id + " has been modified concurrently");
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
-        authorRepository.deleteById(id);
+        authorRepository.deleteDirectlyById(id);
+        entityManager.clear();
+        lookupCaches.evictAuthor(id);
     }
 }
@@ -0,0 +1,101 @@
+package com.vrana.database.services.impl;
+
+import com.vrana.database.domain.entities.AuthorEntity;
+import com.vrana.database.domain.entities.BookEntity;
+import com.vrana.database.services.AuthorFilter;
+import com.vrana.database.services.AuthorSortKey;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Locale;
+
+/**
+ * Criteria for listing authors. Every filter maps onto an index added in
+ * {@code V3__add_authors_indexes.sql}.
+ */
+final class AuthorSpecifications {
+
+    private AuthorSpecifications() {
+    }
+
+    static Specification<AuthorEntity> matching(AuthorFilter filter) {
+        return Specification.allOf(
+                ageAtLeast(filter.minAge()),
+                ageAtMost(filter.maxAge()),
+                nameStartsWith(filter.namePrefix()),
+                hasBooks(filter.hasBooks()));
+    }
+
+    /**
+     * Restricts to the authors past {@code position} in its direction. The name keyset is
+     * written as {@code name >= :name and (name > :name or id > :id)} because criteria
+     * queries cannot compare row values; the first conjunct keeps the index seek.
+     */
+    static Specification<AuthorEntity> beyond(AuthorSortKey sortKey, KeysetCursorCodec.Cursor position) {
+        boolean forward = position.direction() == KeysetCursorCodec.Direction.FORWARD;
+        Long id = position.longKey("id");
+        return switch (sortKey) {
+            case ID -> (root, query, cb) -> forward
+                    ? cb.greaterThan(root.get("id"), id)
+                    : cb.lessThan(root.get("id"), id);
+            case NAME -> {
+                String name = position.key("name");
+                yield (root, query, cb) -> forward
+                        ? cb.and(cb.greaterThanOrEqualTo(root.get("name"), name),
+                        cb.or(cb.greaterThan(root.get("name"), name), cb.greaterThan(root.get("id"), id)))
+                        : cb.and(cb.lessThanOrEqualTo(root.get("name"), name),
+                        cb.or(cb.lessThan(root.get("name"), name), cb.lessThan(root.get("id"), id)));
+            }
+        };
+    }
+
+    static Specification<AuthorEntity> sortable(AuthorSortKey sortKey) {
+        return switch (sortKey) {
+            case ID -> null;
+            case NAME -> (root, query, cb) -> cb.isNotNull(root.get("name"));
+        };
+    }
+
+    static Sort sortOf(AuthorSortKey sortKey, KeysetCursorCodec.Direction direction) {
+        Sort.Direction sortDirection = direction == KeysetCursorCodec.Direction.FORWARD
+                ? Sort.Direction.ASC
+                : Sort.Direction.DESC;
+        return switch (sortKey) {
+            case ID -> Sort.by(sortDirection, "id");
+            case NAME -> Sort.by(sortDirection, "name", "id");
+        };
+    }
+
+    private static Specification<AuthorEntity> ageAtLeast(Integer minAge) {
+        return minAge == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("age"), minAge);
+    }
+
+    private static Specification<AuthorEntity> ageAtMost(Integer maxAge) {
+        return maxAge == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("age"), maxAge);
+    }
+
+    private static Specification<AuthorEntity> nameStartsWith(String namePrefix) {
+        if (namePrefix == null || namePrefix.isEmpty()) {
+            return null;
+        }
+        String pattern = namePrefix.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, '\\');
+    }
+
+    private static Specification<AuthorEntity> hasBooks(Boolean hasBooks) {
+        if (hasBooks == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Subquery<Integer> books = query.subquery(Integer.class);
+            Root<BookEntity> book = books.from(BookEntity.class);
+            books.select(cb.literal(1)).where(cb.equal(book.get("author"), root));
+            return hasBooks ? cb.exists(books) : cb.not(cb.exists(books));
+        };
+    }
+}
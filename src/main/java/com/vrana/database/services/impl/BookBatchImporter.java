@@ -0,0 +1,152 @@
+package com.vrana.database.services.impl;
+
+import com.vrana.database.domain.dto.AuthorDto;
+import com.vrana.database.domain.dto.BookBatchResultDto.RowResult;
+import com.vrana.database.domain.dto.BookBatchResultDto.Status;
+import com.vrana.database.domain.dto.BookDto;
+import com.vrana.database.domain.entities.AuthorEntity;
+import com.vrana.database.domain.entities.BookEntity;
+import com.vrana.database.mappers.BookMapper;
+import com.vrana.database.repositories.AuthorRepository;
+import com.vrana.database.repositories.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Imports one chunk of a batch request in its own transaction. Every step is a single
+ * set-based statement, so a chunk costs at most five round trips whatever its size.
+ * New authors are remembered in {@code createdAuthorIds} so that later chunks of the
+ * same request reuse them.
+ */
+@Component
+@RequiredArgsConstructor
+class BookBatchImporter {
+
+    private final BookRepository bookRepository;
+
+    private final AuthorRepository authorRepository;
+
+    private final BookMapper bookMapper;
+
+    private final Validator validator;
+
+    private final EntityManager entityManager;
+
+    @Transactional
+    public List<RowResult> importChunk(int firstIndex, List<BookDto> bookDtos, Map<List<Object>, Long> createdAuthorIds) {
+        // the batch statements go through JDBC, which does not trigger Hibernate's auto flush
+        entityManager.flush();
+
+        RowResult[] results = new RowResult[bookDtos.size()];
+        Map<String, Integer> pending = new LinkedHashMap<>();
+
+        for (int i = 0; i < bookDtos.size(); i++) {
+            BookDto bookDto = bookDtos.get(i);
+            String violations = validate(bookDto);
+            if (violations != null) {
+                results[i] = result(firstIndex + i, bookDto, Status.INVALID, violations);
+            } else if (pending.putIfAbsent(bookDto.getIsbn(), i) != null) {
+                results[i] = result(firstIndex + i, bookDto, Status.CONFLICT,
+                        "Book with ISBN " + bookDto.getIsbn() + " appears more than once in the request");
+            }
+        }
+
+        for (String isbn : bookRepository.findExistingIsbns(pending.keySet())) {
+            int i = pending.remove(isbn);
+            results[i] = result(firstIndex + i, bookDtos.get(i), Status.CONFLICT,
+                    "Book with ISBN " + isbn + " already exists");
+        }
+
+        Set<Long> existingAuthorIds = authorRepository.findExistingIds(pending.values().stream()
+                .map(i -> bookDtos.get(i).getAuthor())
+                .filter(author -> author != null && author.getId() != null)
+                .map(AuthorDto::getId)
+                .collect(Collectors.toSet()));
+
+        // authors without an id are created once per distinct name and age
+        Map<List<Object>, AuthorEntity> newAuthors = new LinkedHashMap<>();
+        List<BookEntity> bookEntities = new ArrayList<>(pending.size());
+        for (var iterator = pending.values().iterator(); iterator.hasNext(); ) {
+            int i = iterator.next();
+            BookDto bookDto = bookDtos.get(i);
+            AuthorDto author = bookDto.getAuthor();
+            BookEntity bookEntity = bookMapper.mapFrom(bookDto);
+
+            if (author == null) {
+                bookEntity.setAuthor(null);
+            } else if (author.getId() == null) {
+                List<Object> authorKey = Arrays.asList(author.getName(), author.getAge());
+                Long createdAuthorId = createdAuthorIds.get(authorKey);
+                bookEntity.setAuthor(createdAuthorId != null
+                        ? new AuthorEntity(createdAuthorId, null, null, null)
+                        : newAuthors.computeIfAbsent(authorKey,
+                                key -> new AuthorEntity(null, author.getName(), author.getAge(), null)));
+            } else if (existingAuthorIds.contains(author.getId())) {
+                bookEntity.setAuthor(new AuthorEntity(author.getId(), null, null, null));
+            } else {
+                results[i] = result(firstIndex + i, bookDto, Status.AUTHOR_NOT_FOUND,
+                        "Author not found with id: " + author.getId());
+                iterator.remove();
+                continue;
+            }
+            bookEntities.add(bookEntity);
+        }
+
+        authorRepository.insertAll(new ArrayList<>(newAuthors.values()));
+        newAuthors.forEach((key, authorEntity) -> createdAuthorIds.put(key, authorEntity.getId()));
+        Set<String> inserted = bookRepository.insertAllIfAbsent(bookEntities);
+
+        for (Map.Entry<String, Integer> entry : pending.entrySet()) {
+            int i = entry.getValue();
+            // a concurrent writer may have taken the isbn since it was checked
+            results[i] = inserted.contains(entry.getKey())
+                    ? result(firstIndex + i, bookDtos.get(i), Status.CREATED, null)
+                    : result(firstIndex + i, bookDtos.get(i), Status.CONFLICT,
+                            "Book with ISBN " + entry.getKey() + " already exists");
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private String validate(BookDto bookDto) {
+        if (bookDto == null) {
+            return "Book cannot be null";
+        }
+        Stream<String> isbnViolation = bookDto.getIsbn() == null || bookDto.getIsbn().isBlank()
+                ? Stream.of("ISBN cannot be blank")
+                : Stream.empty();
+        Stream<String> authorViolations = bookDto.getAuthor() == null || bookDto.getAuthor().getId() != null
+                ? Stream.empty()
+                : messages(validator.validate(bookDto.getAuthor()));
+        String violations = Stream.of(isbnViolation, messages(validator.validate(bookDto)), authorViolations)
+                .flatMap(s -> s)
+                .collect(Collectors.joining(", "));
+        return violations.isEmpty() ? null : violations;
+    }
+
+    private static Stream<String> messages(Set<? extends ConstraintViolation<?>> violations) {
+        return violations.stream().map(ConstraintViolation::getMessage).sorted();
+    }
+
+    private static RowResult result(int index, BookDto bookDto, Status status, String message) {
+        return RowResult.builder()
+                .index(index)
+                .isbn(bookDto == null ? null : bookDto.getIsbn())
+                .status(status)
+                .message(message)
+                .build();
+    }
+}
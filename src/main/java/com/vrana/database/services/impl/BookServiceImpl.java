@@ -1,76 +1,426 @@
 package com.vrana.database.services.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vrana.database.config.CacheConfig;
+import com.vrana.database.config.MetricsConfig;
+import com.vrana.database.domain.EntityTags;
+import com.vrana.database.domain.dto.AuthorDto;
+import com.vrana.database.domain.dto.BookBatchResultDto;
 import com.vrana.database.domain.dto.BookDto;
+import com.vrana.database.domain.dto.BookLookupResultDto;
+import com.vrana.database.domain.dto.CursorPage;
 import com.vrana.database.domain.entities.BookEntity;
 import com.vrana.database.mappers.BookMapper;
+import com.vrana.database.repositories.AuthorRepository;
 import com.vrana.database.repositories.BookRepository;
 import com.vrana.database.services.BookService;
+import com.vrana.database.services.BookSortKey;
+import com.vrana.database.services.ExportFormat;
+import com.vrana.database.services.InvalidCursorException;
+import com.vrana.database.services.VersionMismatchException;
+import com.vrana.database.services.VersionTags;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class BookServiceImpl implements BookService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 2000;
+
+    private static final int BATCH_CHUNK_SIZE = 5000;
+
+    private static final List<String> CSV_HEADER = List.of("isbn", "title", "author_id", "author_name", "author_age");
+
     private final BookRepository bookRepository;
 
+    private final AuthorRepository authorRepository;
+
     private final BookMapper bookMapper;
 
+    private final KeysetCursorCodec cursorCodec;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    private final BookBatchImporter batchImporter;
+
+    private final LookupCaches lookupCaches;
+
+    private final BookWriteCoalescer writeCoalescer;
+
+    // The writes of single books are not @Transactional: they may wait to be committed together
+    // with the writes of other requests without holding a connection meanwhile, and the
+    // coalescer runs them in a transaction.
     @Override
     public BookDto createBook(String isbn, BookDto bookDto) {
-        if (bookRepository.existsById(isbn)) {
-            throw new EntityExistsException("Book with ISBN " + isbn + " already exists");
-        }
+        return writeCoalescer.write(() -> insertBook(isbn, bookDto));
+    }
 
-        BookEntity bookEntity = bookMapper.mapFrom(bookDto);
-        bookEntity.setIsbn(isbn);
-        BookEntity savedBookEntity = bookRepository.save(bookEntity);
+    private BookDto insertBook(String isbn, BookDto bookDto) {
+        AuthorDto authorDto = bookDto.getAuthor();
+        Long authorId = authorIdOf(bookDto);
+        // an existing author is referenced as stored, an author without an id is created with the book
+        return bookRepository.insertIfAbsent(isbn, bookDto.getTitle(), authorId,
+                        authorDto != null && authorId == null,
+                        authorDto == null ? null : authorDto.getName(),
+                        authorDto == null ? null : authorDto.getAge())
+                .map(bookMapper::mapTo)
+                .orElseThrow(() -> bookRepository.existsById(isbn)
+                        ? new EntityExistsException("Book with ISBN " + isbn + " already exists")
+                        : new EntityNotFoundException("Author not found with id: " + authorId));
+    }
 
-        return bookMapper.mapTo(savedBookEntity);
+    @Override
+    public BookBatchResultDto createBooks(Iterator<BookDto> bookDtos) {
+        List<BookBatchResultDto.RowResult> rows = new ArrayList<>();
+        Map<List<Object>, Long> createdAuthorIds = new HashMap<>();
+        List<BookDto> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+        JsonProcessingException unreadable = null;
+        while (true) {
+            try {
+                if (!bookDtos.hasNext()) {
+                    break;
+                }
+                chunk.add(bookDtos.next());
+            } catch (UncheckedIOException ex) {
+                // a body that does not start with a book is rejected as a whole; after the first,
+                // the chunks before the malformed one are committed and stay in the report
+                if (!(ex.getCause() instanceof JsonProcessingException cause) || rows.isEmpty() && chunk.isEmpty()) {
+                    throw ex;
+                }
+                unreadable = cause;
+                break;
+            }
+            if (chunk.size() == BATCH_CHUNK_SIZE) {
+                rows.addAll(batchImporter.importChunk(rows.size(), chunk, createdAuthorIds));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            rows.addAll(batchImporter.importChunk(rows.size(), chunk, createdAuthorIds));
+        }
+        if (unreadable != null) {
+            rows.add(BookBatchResultDto.RowResult.builder()
+                    .index(rows.size())
+                    .status(BookBatchResultDto.Status.UNREADABLE)
+                    .message("Book could not be read, the books after it were not imported: "
+                            + unreadable.getOriginalMessage())
+                    .build());
+        }
+
+        int created = (int) rows.stream()
+                .filter(row -> row.getStatus() == BookBatchResultDto.Status.CREATED)
+                .count();
+        return BookBatchResultDto.builder()
+                .created(created)
+                .rejected(rows.size() - created)
+                .rows(rows)
+                .build();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<BookDto> findAllBooks(Pageable pageable) {
         return bookRepository.findAll(pageable)
                         .map(bookMapper::mapTo);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BookDto> findAllBooksByAuthor(Long authorId, Pageable pageable) {
+        Page<BookEntity> page = bookRepository.findByAuthorId(authorId, pageable);
+        // only an empty page needs telling an author without books from a missing one
+        if (page.isEmpty() && !authorRepository.existsById(authorId)) {
+            throw new EntityNotFoundException("Author not found with id: " + authorId);
+        }
+        return page.map(bookMapper::mapTo);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<BookDto> findAllBooks(String cursor, BookSortKey sortKey, int size) {
+        KeysetCursorCodec.Cursor position = null;
+        if (cursor != null && !cursor.isBlank()) {
+            position = cursorCodec.decode(cursor);
+            sortKey = parseSortKey(position.sort());
+            if (position.isFirstPage()) {
+                position = null;
+            }
+        }
+
+        int pageSize = Math.clamp(size, 1, MAX_CURSOR_PAGE_SIZE);
+        List<BookEntity> rows = fetchKeysetRows(sortKey, position, Limit.of(pageSize + 1));
+
+        BookSortKey sort = sortKey;
+        return cursorCodec.toPage(sortKey.name(), position, rows, pageSize,
+                book -> keysetOf(book, sort), bookMapper::mapTo);
+    }
+
+    private List<BookEntity> fetchKeysetRows(BookSortKey sortKey, KeysetCursorCodec.Cursor position, Limit limit) {
+        if (position == null) {
+            return switch (sortKey) {
+                case ISBN -> bookRepository.findAllOrderedByIsbn(limit);
+                case TITLE -> bookRepository.findAllOrderedByTitle(limit);
+            };
+        }
+
+        boolean forward = position.direction() == KeysetCursorCodec.Direction.FORWARD;
+        return switch (sortKey) {
+            case ISBN -> forward
+                    ? bookRepository.findAllAfterIsbn(position.key("isbn"), limit)
+                    : bookRepository.findAllBeforeIsbn(position.key("isbn"), limit);
+            case TITLE -> forward
+                    ? bookRepository.findAllAfterTitle(position.key("title"), position.key("isbn"), limit)
+                    : bookRepository.findAllBeforeTitle(position.key("title"), position.key("isbn"), limit);
+        };
+    }
+
+    private static BookSortKey parseSortKey(String sort) {
+        try {
+            return BookSortKey.valueOf(sort);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("Unknown sort key in cursor: " + sort, ex);
+        }
+    }
+
+    private static Map<String, Object> keysetOf(BookEntity book, BookSortKey sortKey) {
+        return switch (sortKey) {
+            case ISBN -> Map.of("isbn", book.getIsbn());
+            case TITLE -> Map.of("title", book.getTitle(), "isbn", book.getIsbn());
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<BookDto> searchBooks(String query, Pageable pageable) {
+        // ranking defines the order, so a requested sort is dropped
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        if (query == null || query.isBlank()) {
+            return new SliceImpl<>(List.of(), page, false);
+        }
+
+        Slice<String> isbns = bookRepository.searchIsbns(query, page);
+        // typo tolerance: a query that matches nothing is searched again with its words corrected
+        if (!isbns.hasContent()
+                && (page.getPageNumber() == 0 || !bookRepository.searchIsbns(query, PageRequest.ofSize(1)).hasContent())) {
+            Optional<String> corrected = bookRepository.correctSpelling(query)
+                    .filter(correction -> !correction.equalsIgnoreCase(query));
+            if (corrected.isPresent()) {
+                isbns = bookRepository.searchIsbns(corrected.get(), page);
+            }
+        }
+
+        Map<String, BookEntity> books = bookRepository.findAllById(isbns.getContent()).stream()
+                .collect(Collectors.toMap(BookEntity::getIsbn, Function.identity()));
+        return isbns.map(isbn -> bookMapper.mapTo(books.get(isbn)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBooks(ExportFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<BookEntity> books = bookRepository.streamAll();
+             ExportWriter<BookDto> writer = ExportWriter.create(format, outputStream, objectMapper, BookDto.class,
+                     CSV_HEADER, BookServiceImpl::csvRow)) {
+            Iterator<BookEntity> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                BookEntity bookEntity = iterator.next();
+                writer.write(bookMapper.mapTo(bookEntity));
+                // keeps the persistence context from growing with the table
+                entityManager.detach(bookEntity);
+            }
+        }
+    }
+
+    private static List<?> csvRow(BookDto bookDto) {
+        if (bookDto.getAuthor() == null) {
+            return Arrays.asList(bookDto.getIsbn(), bookDto.getTitle(), null, null, null);
+        }
+        return Arrays.asList(bookDto.getIsbn(), bookDto.getTitle(),
+                bookDto.getAuthor().getId(), bookDto.getAuthor().getName(), bookDto.getAuthor().getAge());
+    }
+
     private BookEntity getBookEntityOrThrow(String isbn) {
         return bookRepository.findById(isbn)
                 .orElseThrow(() -> new EntityNotFoundException("Book not found with isbn: " + isbn));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.BOOKS, key = "#isbn", sync = true,
+            condition = "!T(com.vrana.database.config.ReadYourWrites).isRequested()")
     public BookDto findOneOrThrow(String isbn) {
         BookEntity bookEntity = getBookEntityOrThrow(isbn);
 
         return bookMapper.mapTo(bookEntity);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public BookLookupResultDto findBooks(List<String> isbns) {
+        // a repeated isbn is answered once, at its first position
+        List<String> requested = isbns.stream().distinct().toList();
+        Map<String, BookEntity> books = bookRepository.findAllById(requested).stream()
+                .collect(Collectors.toMap(BookEntity::getIsbn, Function.identity()));
+
+        return BookLookupResultDto.builder()
+                .books(requested.stream()
+                        .filter(books::containsKey)
+                        .map(isbn -> bookMapper.mapTo(books.get(isbn)))
+                        .toList())
+                .missing(requested.stream()
+                        .filter(isbn -> !books.containsKey(isbn))
+                        .toList())
+                .build();
+    }
+
+    @Override
+    public String findVersionTag(String isbn) {
+        // a cached book is as current as the lookup would be, the version columns are read otherwise
+        return lookupCaches.cachedBook(isbn)
+                .map(EntityTags::versionTag)
+                .orElseGet(() -> bookRepository.findVersionsByIsbn(isbn)
+                        .map(versions -> EntityTags.versionTag(versions.getVersion(), versions.getAuthorVersion()))
+                        .orElseThrow(() -> new EntityNotFoundException("Book not found with isbn: " + isbn)));
+    }
+
     @Override
     public BookDto updateFullBook(String isbn, BookDto bookDto) {
-        BookEntity existingBookEntity = getBookEntityOrThrow(isbn);
-        bookMapper.updateFullBookFromDto(bookDto, existingBookEntity);
-        BookEntity savedBookEntity = bookRepository.save(existingBookEntity);
+        return updateFullBook(isbn, bookDto, List.of());
+    }
 
-        return bookMapper.mapTo(savedBookEntity);
+    @Override
+    public BookDto updateFullBook(String isbn, BookDto bookDto, Collection<String> expectedVersionTags) {
+        return writeCoalescer.write(() -> {
+            if (bookDto.getAuthor() == null) {
+                return updateBookRow(isbn, expectedVersionTags, tags ->
+                        bookRepository.updateTitleAndUnlinkAuthor(isbn, bookDto.getTitle(), tags));
+            }
+            return updateBook(isbn, bookDto, expectedVersionTags, bookMapper::updateFullBookFromDto);
+        });
     }
 
     @Override
     public BookDto updatePartialBook(String isbn, BookDto bookDto) {
+        return updatePartialBook(isbn, bookDto, List.of());
+    }
+
+    @Override
+    public BookDto updatePartialBook(String isbn, BookDto bookDto, Collection<String> expectedVersionTags) {
+        return writeCoalescer.write(() -> {
+            if (bookDto.getAuthor() == null) {
+                return updateBookRow(isbn, expectedVersionTags, tags ->
+                        bookRepository.updateTitle(isbn, bookDto.getTitle(), tags));
+            }
+            return updateBook(isbn, bookDto, expectedVersionTags, bookMapper::updatePartialBookFromDto);
+        });
+    }
+
+    // Updates that leave the author as it is, or unlink it, are a single statement; only
+    // the book's cache entry can be outdated by them.
+    private BookDto updateBookRow(String isbn, Collection<String> expectedVersionTags,
+                                  Function<String[], Optional<BookRepository.BookRow>> update) {
+        BookRepository.BookRow bookRow = update.apply(expectedVersionTags.toArray(String[]::new))
+                .orElseThrow(() -> updateFailure(isbn, expectedVersionTags));
+        // the statement bypassed the persistence context, so no copy loaded before may be reused
+        entityManager.clear();
+        lookupCaches.evictBook(isbn);
+
+        return bookMapper.mapTo(bookRow);
+    }
+
+    private RuntimeException updateFailure(String isbn, Collection<String> expectedVersionTags) {
+        String currentVersionTag = bookRepository.findVersionsByIsbn(isbn)
+                .map(versions -> EntityTags.versionTag(versions.getVersion(), versions.getAuthorVersion()))
+                .orElseThrow(() -> new EntityNotFoundException("Book not found with isbn: " + isbn));
+        VersionTags.check(expectedVersionTags, currentVersionTag, "Book " + isbn);
+        return new VersionMismatchException("Book " + isbn + " has been modified concurrently");
+    }
+
+    // Updates that touch the author go through the entity, as the mapper writes the requested
+    // author into the book's current one. The expected tags are compared with the state read
+    // here, and the versioned update of the flush rejects a change that another transaction
+    // committed after that read.
+    private BookDto updateBook(String isbn, BookDto bookDto, Collection<String> expectedVersionTags,
+                               BiConsumer<BookDto, BookEntity> update) {
         BookEntity existingBookEntity = getBookEntityOrThrow(isbn);
-        bookMapper.updatePartialBookFromDto(bookDto, existingBookEntity);
-        BookEntity savedBookEntity = bookRepository.save(existingBookEntity);
+        VersionTags.check(expectedVersionTags, versionTagOf(existingBookEntity), "Book " + isbn);
+        Long previousAuthorId = authorIdOf(existingBookEntity);
+        update.accept(bookDto, existingBookEntity);
+        BookEntity savedBookEntity;
+        try {
+            // flushed so that the returned versions are the ones just written
+            savedBookEntity = bookRepository.saveAndFlush(existingBookEntity);
+        } catch (OptimisticLockingFailureException ex) {
+            if (expectedVersionTags.isEmpty()) {
+                throw ex;
+            }
+            throw new VersionMismatchException("Book " + isbn + " has been modified concurrently", ex);
+        }
+        evictUpdatedBook(isbn, bookDto, previousAuthorId);
 
         return bookMapper.mapTo(savedBookEntity);
     }
 
+    private static String versionTagOf(BookEntity bookEntity) {
+        return EntityTags.versionTag(bookEntity.getVersion(),
+                bookEntity.getAuthor() == null ? null : bookEntity.getAuthor().getVersion());
+    }
+
+    // The mapper writes an author from the request into the book's current author
+    // entity, so both that author and the requested one may have changed.
+    private void evictUpdatedBook(String isbn, BookDto bookDto, Long previousAuthorId) {
+        lookupCaches.evictBook(isbn);
+        if (bookDto.getAuthor() != null) {
+            lookupCaches.evictAuthorsWithBooks(previousAuthorId, authorIdOf(bookDto));
+        }
+    }
+
+    private static Long authorIdOf(BookEntity bookEntity) {
+        return bookEntity.getAuthor() == null ? null : bookEntity.getAuthor().getId();
+    }
+
+    private static Long authorIdOf(BookDto bookDto) {
+        return bookDto.getAuthor() == null ? null : bookDto.getAuthor().getId();
+    }
+
     @Override
+    @Transactional
     public void delete(String isbn) {
-        bookRepository.deleteById(isbn);
+        bookRepository.deleteWithAuthor(isbn).ifPresent(lookupCaches::evictAuthor);
+        entityManager.clear();
+        lookupCaches.evictBook(isbn);
     }
 }
@@ -0,0 +1,197 @@
+package com.vrana.database.services.impl;
+
+import com.vrana.database.config.BookApiProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the writes of single books, each in a transaction of its own, or with
+ * {@code book-api.write-coalescing.enabled} grouped with the writes of other requests into
+ * one transaction, so that a burst of them pays for one commit rather than one each.
+ * <p>
+ * The first write to arrive opens a batch, which the writes of the next
+ * {@code max-delay} join until {@code max-batch-size} of them are collected, and then runs
+ * all of them on its thread, one after the other. A write's outcome, its row or its
+ * exception, is handed to its caller once the batch has committed, and a caller waits for
+ * it without holding a connection. Not found, conflicts and outdated version tags are
+ * outcomes of the single write; a write that fails the whole transaction, such as one
+ * violating a constraint, rolls the batch back, and every write of it is repeated alone.
+ * The batches are published as {@code book.write.batches}, whose count is that of the
+ * commits and whose total is that of the writes.
+ */
+@Component
+class BookWriteCoalescer implements MeterBinder {
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final Duration maxDelay;
+
+    private final int maxBatchSize;
+
+    private final Object lock = new Object();
+
+    // the batch new writes join, guarded by lock
+    private Batch open;
+
+    private volatile DistributionSummary batchSizes;
+
+    private volatile Counter repeatedBatches;
+
+    BookWriteCoalescer(PlatformTransactionManager transactionManager, BookApiProperties properties) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = properties.writeCoalescing().enabled();
+        this.maxDelay = properties.writeCoalescing().maxDelay();
+        this.maxBatchSize = properties.writeCoalescing().maxBatchSize();
+    }
+
+    <T> T write(Supplier<T> write) {
+        // a caller's own transaction is joined, the write has to see and be undone with it
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(status -> write.get());
+        }
+        PendingWrite<T> pendingWrite = new PendingWrite<>(write);
+        Batch batch;
+        boolean first;
+        synchronized (lock) {
+            first = open == null;
+            if (first) {
+                open = new Batch();
+            }
+            batch = open;
+            batch.writes.add(pendingWrite);
+            if (batch.writes.size() >= maxBatchSize) {
+                open = null;
+                batch.full.countDown();
+            }
+        }
+        if (first) {
+            batch.awaitFull(maxDelay);
+            synchronized (lock) {
+                if (open == batch) {
+                    open = null;
+                }
+            }
+            flush(batch.writes);
+        }
+        return pendingWrite.outcome();
+    }
+
+    private void flush(List<PendingWrite<?>> writes) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> writes.forEach(write -> write.run(status)));
+            if (batchSizes != null) {
+                batchSizes.record(writes.size());
+            }
+            writes.forEach(PendingWrite::publish);
+        } catch (RuntimeException ex) {
+            if (repeatedBatches != null) {
+                repeatedBatches.increment();
+            }
+            writes.forEach(PendingWrite::runAlone);
+        } finally {
+            // no caller is left waiting should the batch end in an error
+            writes.forEach(PendingWrite::abandon);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        batchSizes = DistributionSummary.builder("book.write.batches")
+                .description("Writes of single books committed together in one transaction")
+                .register(registry);
+        repeatedBatches = Counter.builder("book.write.batches.repeated")
+                .description("Batches rolled back by one of their writes and repeated write by write")
+                .register(registry);
+    }
+
+    private static final class Batch {
+
+        // no more than the writes collected so far are added once open no longer refers to it
+        final List<PendingWrite<?>> writes = new ArrayList<>();
+
+        final CountDownLatch full = new CountDownLatch(1);
+
+        void awaitFull(Duration maxDelay) {
+            try {
+                full.await(maxDelay.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final class PendingWrite<T> {
+
+        private final Supplier<T> write;
+
+        private final CompletableFuture<T> outcome = new CompletableFuture<>();
+
+        private T value;
+
+        private RuntimeException failure;
+
+        PendingWrite(Supplier<T> write) {
+            this.write = write;
+        }
+
+        void run(TransactionStatus status) {
+            try {
+                value = write.get();
+            } catch (RuntimeException ex) {
+                if (status.isRollbackOnly()) {
+                    throw ex;
+                }
+                failure = ex;
+            }
+        }
+
+        void runAlone() {
+            try {
+                outcome.complete(transactionTemplate.execute(status -> write.get()));
+            } catch (RuntimeException ex) {
+                outcome.completeExceptionally(ex);
+            }
+        }
+
+        void publish() {
+            if (failure != null) {
+                outcome.completeExceptionally(failure);
+            } else {
+                outcome.complete(value);
+            }
+        }
+
+        void abandon() {
+            outcome.completeExceptionally(new IllegalStateException("The batch of writes ended without an outcome"));
+        }
+
+        T outcome() {
+            try {
+                return outcome.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.vrana.database.services.impl;
+
+import com.vrana.database.config.BookApiProperties;
+import com.vrana.database.repositories.ChangeLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background work of the change feed on one daemon thread.
+ * <p>
+ * Requests waiting for changes are parked here without a thread or a connection. While any
+ * are parked, the head of the log is read once per poll interval, and only the requests it
+ * has moved past read their changes. Independently, superseded and expired entries are
+ * removed from the log on the compaction interval, so it holds at most one entry per book
+ * and author changed within the retention.
+ */
+@Slf4j
+@Component
+class ChangeLogPoller implements SmartLifecycle {
+
+    private final ChangeLogRepository changeLogRepository;
+
+    private final BookApiProperties.ChangeFeedSpec spec;
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService scheduler;
+
+    ChangeLogPoller(ChangeLogRepository changeLogRepository, BookApiProperties properties) {
+        this.changeLogRepository = changeLogRepository;
+        this.spec = properties.changes();
+    }
+
+    /**
+     * Completes with the entries after {@code since} once there are any, or with none once
+     * {@code maxWait}, at most the configured maximum wait, has passed.
+     */
+    CompletableFuture<List<ChangeLogRepository.Entry>> await(ChangeLogRepository.Position since, int limit,
+                                                              Duration maxWait) {
+        Duration wait = maxWait.compareTo(spec.maxWait()) < 0 ? maxWait : spec.maxWait();
+        Waiter waiter = new Waiter(since, limit, System.nanoTime() + wait.toNanos(), new CompletableFuture<>());
+        waiters.add(waiter);
+        return waiter.result();
+    }
+
+    void poll() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        try {
+            ChangeLogRepository.Position head = changeLogRepository.findHead().orElse(ChangeLogRepository.Position.START);
+            long now = System.nanoTime();
+            for (Waiter waiter : waiters) {
+                if (waiter.result().isDone()) {
+                    // the request went away
+                    waiters.remove(waiter);
+                } else if (head.compareTo(waiter.since()) > 0) {
+                    waiters.remove(waiter);
+                    waiter.result().complete(changeLogRepository.findAfter(waiter.since(), waiter.limit()));
+                } else if (now - waiter.deadline() >= 0) {
+                    waiters.remove(waiter);
+                    waiter.result().complete(List.of());
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not look for new changes, retrying in {}", spec.pollInterval(), ex);
+        }
+    }
+
+    void compact() {
+        try {
+            int superseded = changeLogRepository.deleteSuperseded();
+            int expired = changeLogRepository.deleteOlderThan(spec.retention());
+            log.debug("Removed {} superseded and {} expired changes", superseded, expired);
+        } catch (RuntimeException ex) {
+            log.warn("Could not compact the change log, retrying in {}", spec.compactionInterval(), ex);
+        }
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("change-log").factory());
+        scheduler.scheduleWithFixedDelay(this::poll, spec.pollInterval().toMillis(), spec.pollInterval().toMillis(),
+                TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::compact, spec.compactionInterval().toMillis(),
+                spec.compactionInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        scheduler = null;
+        Waiter waiter;
+        while ((waiter = waiters.poll()) != null) {
+            waiter.result().complete(List.of());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private record Waiter(ChangeLogRepository.Position since, int limit, long deadline,
+                          CompletableFuture<List<ChangeLogRepository.Entry>> result) {
+    }
+}
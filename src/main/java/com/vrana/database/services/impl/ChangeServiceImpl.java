@@ -0,0 +1,92 @@
+package com.vrana.database.services.impl;
+
+import com.vrana.database.config.MetricsConfig;
+import com.vrana.database.domain.dto.ChangeFeedDto;
+import com.vrana.database.repositories.ChangeLogRepository;
+import com.vrana.database.services.ChangeService;
+import com.vrana.database.services.ExpiredCursorException;
+import com.vrana.database.services.InvalidCursorException;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The change feed over the log of V8. A cursor is the position of the last change a client
+ * has received, written as {@code <transaction id>-<entry id>}; without one the feed starts
+ * at the oldest retained change.
+ */
+@Service
+@RequiredArgsConstructor
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ChangeServiceImpl implements ChangeService {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final ChangeLogRepository changeLogRepository;
+
+    private final ChangeLogPoller changeLogPoller;
+
+    @Override
+    public ChangeFeedDto findChanges(String since, int limit) {
+        ChangeLogRepository.Position position = decode(since);
+        List<ChangeLogRepository.Entry> entries = changeLogRepository.findAfter(position, clamp(limit));
+        // read after the entries, so that entries removed meanwhile are noticed
+        checkRetained(since, position);
+        return toFeed(position, entries);
+    }
+
+    @Override
+    public CompletableFuture<ChangeFeedDto> awaitChanges(String since, int limit, Duration maxWait) {
+        ChangeFeedDto changes = findChanges(since, limit);
+        if (!changes.getChanges().isEmpty() || maxWait.isZero() || maxWait.isNegative()) {
+            return CompletableFuture.completedFuture(changes);
+        }
+        ChangeLogRepository.Position position = decode(since);
+        return changeLogPoller.await(position, clamp(limit), maxWait)
+                .thenApply(entries -> toFeed(position, entries));
+    }
+
+    @Override
+    public ChangeFeedDto findHead() {
+        ChangeLogRepository.Position head = changeLogRepository.findHead()
+                .orElse(ChangeLogRepository.Position.START);
+        ChangeLogRepository.Position horizon = changeLogRepository.findHorizon();
+        return toFeed(head.compareTo(horizon) >= 0 ? head : horizon, List.of());
+    }
+
+    private void checkRetained(String since, ChangeLogRepository.Position position) {
+        if (since != null && position.compareTo(changeLogRepository.findHorizon()) < 0) {
+            throw new ExpiredCursorException("Changes after cursor " + since
+                    + " are no longer retained, resynchronize and continue from GET /changes/head");
+        }
+    }
+
+    private static ChangeFeedDto toFeed(ChangeLogRepository.Position since, List<ChangeLogRepository.Entry> entries) {
+        ChangeLogRepository.Position next = entries.isEmpty() ? since : entries.getLast().position();
+        return ChangeFeedDto.builder()
+                .changes(entries.stream().map(ChangeLogRepository.Entry::change).toList())
+                .next(next.txid() + "-" + next.id())
+                .build();
+    }
+
+    private ChangeLogRepository.Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ChangeLogRepository.Position.START;
+        }
+        int separator = cursor.indexOf('-');
+        try {
+            return new ChangeLogRepository.Position(Long.parseLong(cursor.substring(0, separator)),
+                    Long.parseLong(cursor.substring(separator + 1)));
+        } catch (IndexOutOfBoundsException | NumberFormatException ex) {
+            throw new InvalidCursorException("Malformed cursor: " + cursor, ex);
+        }
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
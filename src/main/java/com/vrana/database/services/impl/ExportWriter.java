@@ -0,0 +1,114 @@
+package com.vrana.database.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vrana.database.services.ExportFormat;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes exported rows one at a time so that an export never holds more than
+ * a single row in memory. Closing the writer flushes it but leaves the target
+ * stream open.
+ */
+abstract class ExportWriter<T> implements Closeable {
+
+    static <T> ExportWriter<T> create(ExportFormat format, OutputStream out, ObjectMapper objectMapper, Class<T> type,
+                                      List<String> csvHeader, Function<T, List<?>> csvRow) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonWriter<>(out, objectMapper, type);
+            case CSV -> new CsvWriter<>(out, csvHeader, csvRow);
+        };
+    }
+
+    abstract void write(T row) throws IOException;
+
+    private static final class NdjsonWriter<T> extends ExportWriter<T> {
+
+        private final SequenceWriter sequenceWriter;
+
+        private final Writer writer;
+
+        private boolean empty = true;
+
+        private NdjsonWriter(OutputStream out, ObjectMapper objectMapper, Class<T> type) throws IOException {
+            ObjectWriter objectWriter = objectMapper.writerFor(type)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n");
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.sequenceWriter = objectWriter.writeValues(writer);
+        }
+
+        @Override
+        void write(T row) throws IOException {
+            sequenceWriter.write(row);
+            empty = false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            sequenceWriter.flush();
+            if (!empty) {
+                writer.write('\n');
+            }
+            writer.flush();
+        }
+    }
+
+    private static final class CsvWriter<T> extends ExportWriter<T> {
+
+        private final Writer writer;
+
+        private final Function<T, List<?>> rowMapper;
+
+        private CsvWriter(OutputStream out, List<String> header, Function<T, List<?>> rowMapper) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.rowMapper = rowMapper;
+            writeLine(header);
+        }
+
+        @Override
+        void write(T row) throws IOException {
+            writeLine(rowMapper.apply(row));
+        }
+
+        private void writeLine(List<?> values) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeValue(values.get(i));
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
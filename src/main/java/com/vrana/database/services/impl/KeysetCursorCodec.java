@@ -0,0 +1,129 @@
+package com.vrana.database.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vrana.database.domain.dto.CursorPage;
+import com.vrana.database.services.InvalidCursorException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Encodes keyset positions into opaque, URL-safe cursors and back, and assembles
+ * {@link CursorPage}s from rows fetched past such a position. The cursor carries the
+ * sort key it was produced for, so follow-up requests do not have to repeat it.
+ */
+@Component
+@RequiredArgsConstructor
+class KeysetCursorCodec {
+
+    private final ObjectMapper objectMapper;
+
+    String encode(Cursor cursor) {
+        try {
+            return Base64.getUrlEncoder()
+                    .withoutPadding()
+                    .encodeToString(objectMapper.writeValueAsBytes(cursor));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not encode cursor", ex);
+        }
+    }
+
+    Cursor decode(String encoded) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(encoded.getBytes(StandardCharsets.US_ASCII));
+            Cursor cursor = objectMapper.readValue(json, Cursor.class);
+            if (cursor.sort() == null || cursor.direction() == null || cursor.keys() == null
+                    || cursor.keys().isEmpty() && cursor.direction() != Direction.FORWARD) {
+                throw new InvalidCursorException("Malformed cursor: " + encoded);
+            }
+            return cursor;
+        } catch (IllegalArgumentException | IOException ex) {
+            throw new InvalidCursorException("Malformed cursor: " + encoded, ex);
+        }
+    }
+
+    /**
+     * Builds a page from {@code rows}, which were fetched with a limit of {@code size + 1}
+     * in the scroll direction of {@code requested} (a {@code null} cursor stands for the
+     * first page). The extra row only tells whether there is more data in that direction.
+     * An empty backward page, left when the rows before its cursor were deleted, points
+     * forward to the first page.
+     */
+    <T, R> CursorPage<R> toPage(String sort, Cursor requested, List<T> rows, int size,
+                                Function<? super T, Map<String, Object>> keyExtractor,
+                                Function<? super T, ? extends R> mapper) {
+        boolean forward = requested == null || requested.direction() == Direction.FORWARD;
+        boolean hasMore = rows.size() > size;
+        List<T> window = new ArrayList<>(rows.subList(0, Math.min(rows.size(), size)));
+        if (!forward) {
+            Collections.reverse(window);
+        }
+
+        if (window.isEmpty()) {
+            String next = forward ? null : encode(Cursor.firstPage(sort));
+            String prev = forward && requested != null
+                    ? encode(new Cursor(sort, Direction.BACKWARD, requested.keys()))
+                    : null;
+            return new CursorPage<>(List.of(), 0, next, prev);
+        }
+
+        boolean hasNext = !forward || hasMore;
+        boolean hasPrev = forward ? requested != null : hasMore;
+        String next = hasNext
+                ? encode(new Cursor(sort, Direction.FORWARD, keyExtractor.apply(window.getLast())))
+                : null;
+        String prev = hasPrev
+                ? encode(new Cursor(sort, Direction.BACKWARD, keyExtractor.apply(window.getFirst())))
+                : null;
+
+        List<R> content = window.stream()
+                .<R>map(mapper)
+                .toList();
+        return new CursorPage<>(content, content.size(), next, prev);
+    }
+
+    enum Direction {
+        FORWARD,
+        BACKWARD
+    }
+
+    /**
+     * A position in the order of {@code sort}. A forward cursor without keys stands for
+     * the first page.
+     */
+    record Cursor(String sort, Direction direction, Map<String, Object> keys) {
+
+        static Cursor firstPage(String sort) {
+            return new Cursor(sort, Direction.FORWARD, Map.of());
+        }
+
+        boolean isFirstPage() {
+            return direction == Direction.FORWARD && keys.isEmpty();
+        }
+
+        String key(String name) {
+            Object value = keys.get(name);
+            if (value == null) {
+                throw new InvalidCursorException("Cursor is missing key " + name);
+            }
+            return value.toString();
+        }
+
+        Long longKey(String name) {
+            try {
+                return Long.valueOf(key(name));
+            } catch (NumberFormatException ex) {
+                throw new InvalidCursorException("Cursor key " + name + " is not a number", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.vrana.database.services.impl;
+
+import com.vrana.database.config.CacheConfig;
+import com.vrana.database.config.ReadYourWrites;
+import com.vrana.database.config.ReplicaMonitor;
+import com.vrana.database.domain.dto.AuthorDto;
+import com.vrana.database.domain.dto.BookDto;
+import com.vrana.database.repositories.BookRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Direct access to the lookup caches: peeking at cached entries without loading them, and
+ * evicting them after writes. A cached book embeds its author, so a change to an author
+ * also evicts every book that references it.
+ * <p>
+ * While a replica serves reads, a lookup that missed right after a write may still load the
+ * old row from the replica and cache it, so every eviction is repeated once the replica has
+ * caught up with the commit. A request that asks to read its own writes does not see
+ * cached entries at all.
+ */
+@Component
+@RequiredArgsConstructor
+class LookupCaches {
+
+    private final CacheManager cacheManager;
+
+    private final BookRepository bookRepository;
+
+    private final Optional<ReplicaMonitor> replicaMonitor;
+
+    Optional<BookDto> cachedBook(String isbn) {
+        if (ReadYourWrites.isRequested()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache(CacheConfig.BOOKS).get(isbn, BookDto.class));
+    }
+
+    Optional<AuthorDto> cachedAuthor(Long authorId) {
+        if (ReadYourWrites.isRequested()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache(CacheConfig.AUTHORS).get(authorId, AuthorDto.class));
+    }
+
+    void evictBook(String isbn) {
+        evict(cache(CacheConfig.BOOKS), isbn);
+    }
+
+    void evictAuthor(Long authorId) {
+        if (authorId != null) {
+            evict(cache(CacheConfig.AUTHORS), authorId);
+        }
+    }
+
+    void evictAuthorsWithBooks(Long... authorIds) {
+        Cache books = cache(CacheConfig.BOOKS);
+        Stream.of(authorIds)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(authorId -> {
+                    evictAuthor(authorId);
+                    bookRepository.findIsbnsByAuthorId(authorId).forEach(isbn -> evict(books, isbn));
+                });
+    }
+
+    // for writes that returned the isbns of the author's books along with the author
+    void evictAuthorWithBooks(Long authorId, String... isbns) {
+        evictAuthor(authorId);
+        Cache books = cache(CacheConfig.BOOKS);
+        Stream.of(isbns).forEach(isbn -> evict(books, isbn));
+    }
+
+    private void evict(Cache cache, Object key) {
+        cache.evict(key);
+        replicaMonitor.ifPresent(monitor -> afterCommit(() -> monitor.afterCatchUp(() -> cache.evict(key))));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private Cache cache(String name) {
+        return Objects.requireNonNull(cacheManager.getCache(name), () -> "Cache " + name + " is not configured");
+    }
+}
@@ -0,0 +1,40 @@
+package com.vrana.database.services.impl;
+
+import com.vrana.database.config.MetricsConfig;
+import com.vrana.database.domain.dto.CatalogStatsDto;
+import com.vrana.database.repositories.CatalogStatsRepository;
+import com.vrana.database.services.StatsService;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class StatsServiceImpl implements StatsService {
+
+    private final CatalogStatsRepository catalogStatsRepository;
+
+    @Override
+    // one snapshot for all aggregates, so that they add up to the same totals
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public CatalogStatsDto findCatalogStats() {
+        CatalogStatsRepository.Totals totals = catalogStatsRepository.findTotals();
+        List<CatalogStatsDto.BooksPerAuthor> booksPerAuthor = catalogStatsRepository.findBooksPerAuthor();
+        long booksWithAuthor = booksPerAuthor.stream()
+                .mapToLong(bucket -> bucket.getBooks() * bucket.getAuthors())
+                .sum();
+
+        return CatalogStatsDto.builder()
+                .books(totals.books())
+                .booksWithoutAuthor(totals.books() - booksWithAuthor)
+                .authors(totals.authors())
+                .booksPerAuthor(booksPerAuthor)
+                .authorAges(catalogStatsRepository.findAuthorAges())
+                .build();
+    }
+}
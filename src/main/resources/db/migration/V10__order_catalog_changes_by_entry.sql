@@ -0,0 +1,12 @@
+-- The transaction id of V8 is taken at a transaction's first write, not at its commit, so a
+-- transaction that started first can log a change of a book after a later transaction has
+-- logged one of the same book and committed. Changes of one book or author are ordered by
+-- the entry id instead: writes to the same row wait for each other's row lock, and a
+-- re-created book for the delete through its unique key, so each entry's id is drawn only
+-- after the entry of the write before it. This holds as long as the identity caches no
+-- values per session, which it does not by default.
+--
+-- Compaction and the feed look up the later entries of a book or author by id.
+DROP INDEX idx_catalog_changes_entity_key;
+
+CREATE INDEX idx_catalog_changes_entity_key_id ON catalog_changes (entity, entity_key, id);
@@ -0,0 +1 @@
+CREATE INDEX idx_books_title_isbn ON books (title, isbn);
@@ -0,0 +1,5 @@
+CREATE INDEX idx_authors_age ON authors (age);
+
+CREATE INDEX idx_authors_name_id ON authors (name, id);
+
+CREATE INDEX idx_authors_lower_name_pattern ON authors (lower(name) text_pattern_ops);
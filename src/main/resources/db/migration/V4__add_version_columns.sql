@@ -0,0 +1,3 @@
+ALTER TABLE books ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE authors ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
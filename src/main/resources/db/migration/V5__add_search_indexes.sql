@@ -0,0 +1,75 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Titles outrank author names: the vectors carry weights A and B and are ranked together.
+ALTER TABLE books
+    ADD COLUMN search_vector tsvector
+        GENERATED ALWAYS AS (setweight(to_tsvector('english', coalesce(title, '')), 'A')) STORED;
+
+ALTER TABLE authors
+    ADD COLUMN search_vector tsvector
+        GENERATED ALWAYS AS (setweight(to_tsvector('english', coalesce(name, '')), 'B')) STORED;
+
+CREATE INDEX idx_books_search_vector ON books USING gin (search_vector);
+
+CREATE INDEX idx_authors_search_vector ON authors USING gin (search_vector);
+
+-- Matches on an author name reach the author's books through this index.
+CREATE INDEX idx_books_author_id ON books (author_id);
+
+-- Typo tolerance: the distinct words of all titles and names, trigram indexed. A misspelled
+-- query word is corrected to its most similar word here, which stays fast because the
+-- vocabulary is far smaller than the tables. Words are only ever added; a stale word
+-- corrects to a query that finds nothing, as the misspelling would.
+CREATE TABLE search_words
+(
+    word TEXT PRIMARY KEY
+);
+
+CREATE INDEX idx_search_words_trgm ON search_words USING gin (word gin_trgm_ops);
+
+CREATE FUNCTION add_book_search_words() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO search_words (word)
+    SELECT DISTINCT word
+    FROM new_rows, unnest(tsvector_to_array(to_tsvector('simple', coalesce(new_rows.title, '')))) AS word
+    ON CONFLICT DO NOTHING;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION add_author_search_words() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO search_words (word)
+    SELECT DISTINCT word
+    FROM new_rows, unnest(tsvector_to_array(to_tsvector('simple', coalesce(new_rows.name, '')))) AS word
+    ON CONFLICT DO NOTHING;
+    RETURN NULL;
+END;
+$$;
+
+-- Statement level, so a batch import adds its words in one insert; a trigger with a
+-- transition table can only fire on a single event, hence one per event.
+CREATE TRIGGER books_search_words_insert
+    AFTER INSERT ON books REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION add_book_search_words();
+
+CREATE TRIGGER books_search_words_update
+    AFTER UPDATE ON books REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION add_book_search_words();
+
+CREATE TRIGGER authors_search_words_insert
+    AFTER INSERT ON authors REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION add_author_search_words();
+
+CREATE TRIGGER authors_search_words_update
+    AFTER UPDATE ON authors REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION add_author_search_words();
+
+INSERT INTO search_words (word)
+SELECT word FROM books, unnest(tsvector_to_array(to_tsvector('simple', coalesce(title, '')))) AS word
+UNION
+SELECT word FROM authors, unnest(tsvector_to_array(to_tsvector('simple', coalesce(name, '')))) AS word;
@@ -0,0 +1,6 @@
+-- Serves the books of one author in isbn order from the index alone, and still covers the
+-- foreign key checks on author_id through its leading column, so it replaces the single-column
+-- index of V5.
+CREATE INDEX idx_books_author_id_isbn ON books (author_id, isbn);
+
+DROP INDEX idx_books_author_id;
@@ -0,0 +1,254 @@
+-- Catalog statistics kept up to date by statement-level triggers, so reading them costs the
+-- same whatever the catalog size. Every aggregate row is split into slots picked by the
+-- backend's pid: concurrent writers mostly add to different rows instead of queueing on one
+-- counter until commit, and readers sum the slots.
+CREATE TABLE catalog_totals
+(
+    slot    SMALLINT PRIMARY KEY,
+    books   BIGINT NOT NULL,
+    authors BIGINT NOT NULL
+);
+
+-- The number of books of every author, which tells the bucket of the distribution below an
+-- author moves out of when a book is added or removed. Not a foreign key: the triggers of a
+-- statement writing both tables may fire in either order.
+CREATE TABLE author_book_counts
+(
+    author_id BIGINT PRIMARY KEY,
+    books     BIGINT NOT NULL
+);
+
+-- Number of authors having a given number of books
+CREATE TABLE books_per_author_counts
+(
+    books   BIGINT   NOT NULL,
+    slot    SMALLINT NOT NULL,
+    authors BIGINT   NOT NULL,
+    PRIMARY KEY (books, slot)
+);
+
+-- Number of authors of a given age; authors without an age count under NULL
+CREATE TABLE author_age_counts
+(
+    age     INTEGER,
+    slot    SMALLINT NOT NULL,
+    authors BIGINT   NOT NULL,
+    UNIQUE NULLS NOT DISTINCT (age, slot)
+);
+
+CREATE FUNCTION catalog_stats_slot() RETURNS SMALLINT
+    LANGUAGE sql AS
+$$
+SELECT (pg_backend_pid() % 8)::SMALLINT
+$$;
+
+CREATE FUNCTION add_catalog_totals(books_delta BIGINT, authors_delta BIGINT) RETURNS void
+    LANGUAGE sql AS
+$$
+INSERT INTO catalog_totals (slot, books, authors)
+VALUES (catalog_stats_slot(), books_delta, authors_delta)
+ON CONFLICT (slot) DO UPDATE SET books   = catalog_totals.books + EXCLUDED.books,
+                                 authors = catalog_totals.authors + EXCLUDED.authors
+$$;
+
+CREATE FUNCTION add_books_per_author_counts(books_values BIGINT[], authors_deltas BIGINT[]) RETURNS void
+    LANGUAGE sql AS
+$$
+INSERT INTO books_per_author_counts (books, slot, authors)
+SELECT d.books, catalog_stats_slot(), sum(d.delta)
+FROM unnest(books_values, authors_deltas) AS d (books, delta)
+GROUP BY d.books
+HAVING sum(d.delta) <> 0
+ON CONFLICT (books, slot) DO UPDATE SET authors = books_per_author_counts.authors + EXCLUDED.authors
+$$;
+
+CREATE FUNCTION add_author_age_counts(added INTEGER[], removed INTEGER[]) RETURNS void
+    LANGUAGE sql AS
+$$
+INSERT INTO author_age_counts (age, slot, authors)
+SELECT d.age, catalog_stats_slot(), sum(d.delta)
+FROM (SELECT age, 1 AS delta FROM unnest(added) AS age
+      UNION ALL
+      SELECT age, -1 FROM unnest(removed) AS age) d
+GROUP BY d.age
+HAVING sum(d.delta) <> 0
+ON CONFLICT (age, slot) DO UPDATE SET authors = author_age_counts.authors + EXCLUDED.authors
+$$;
+
+-- Moves every author that gained or lost books from its old to its new count. An author
+-- inserted by the same statement may not be counted yet; it starts from no books here and
+-- the authors trigger then leaves it alone. A deleted author is no longer counted or is
+-- removed by the authors trigger afterwards, either way its books are not counted again.
+CREATE FUNCTION add_author_book_counts(added BIGINT[], removed BIGINT[]) RETURNS void
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    moved_books   BIGINT[];
+    moved_authors BIGINT[];
+BEGIN
+    WITH deltas AS (SELECT d.author_id, sum(d.delta) AS delta
+                    FROM (SELECT author_id, 1 AS delta FROM unnest(added) AS author_id
+                          UNION ALL
+                          SELECT author_id, -1 FROM unnest(removed) AS author_id) d
+                    WHERE d.author_id IS NOT NULL
+                    GROUP BY d.author_id
+                    HAVING sum(d.delta) <> 0),
+         updated AS (UPDATE author_book_counts c
+                     SET books = c.books + d.delta
+                     FROM deltas d
+                     WHERE c.author_id = d.author_id
+                     RETURNING c.books - d.delta AS old_books, c.books AS new_books),
+         inserted AS (INSERT INTO author_book_counts (author_id, books)
+                      SELECT d.author_id, d.delta
+                      FROM deltas d
+                      WHERE EXISTS (SELECT FROM authors a WHERE a.id = d.author_id)
+                        AND NOT EXISTS (SELECT FROM author_book_counts c WHERE c.author_id = d.author_id)
+                      RETURNING books),
+         moves AS (SELECT old_books AS books, -1 AS delta FROM updated
+                   UNION ALL
+                   SELECT new_books, 1 FROM updated
+                   UNION ALL
+                   SELECT books, 1 FROM inserted)
+    SELECT array_agg(books), array_agg(delta)
+    INTO moved_books, moved_authors
+    FROM moves;
+
+    IF moved_books IS NOT NULL THEN
+        PERFORM add_books_per_author_counts(moved_books, moved_authors);
+    END IF;
+END;
+$$;
+
+CREATE FUNCTION count_inserted_books() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF EXISTS (SELECT FROM new_rows) THEN
+        PERFORM add_catalog_totals((SELECT count(*) FROM new_rows), 0);
+        PERFORM add_author_book_counts(ARRAY(SELECT author_id FROM new_rows), '{}');
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION count_updated_books() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF EXISTS (SELECT FROM new_rows) THEN
+        PERFORM add_author_book_counts(ARRAY(SELECT author_id FROM new_rows), ARRAY(SELECT author_id FROM old_rows));
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION count_deleted_books() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF EXISTS (SELECT FROM old_rows) THEN
+        PERFORM add_catalog_totals(-(SELECT count(*) FROM old_rows), 0);
+        PERFORM add_author_book_counts('{}', ARRAY(SELECT author_id FROM old_rows));
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION count_inserted_authors() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    uncounted BIGINT;
+BEGIN
+    IF EXISTS (SELECT FROM new_rows) THEN
+        PERFORM add_catalog_totals(0, (SELECT count(*) FROM new_rows));
+        PERFORM add_author_age_counts(ARRAY(SELECT age FROM new_rows), '{}');
+        -- authors whose books were counted first already sit in their bucket
+        WITH inserted AS (INSERT INTO author_book_counts (author_id, books)
+                          SELECT id, 0 FROM new_rows
+                          ON CONFLICT (author_id) DO NOTHING
+                          RETURNING author_id)
+        SELECT count(*) INTO uncounted FROM inserted;
+        IF uncounted > 0 THEN
+            PERFORM add_books_per_author_counts(ARRAY[0::BIGINT], ARRAY[uncounted]);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION count_updated_authors() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF EXISTS (SELECT FROM new_rows) THEN
+        PERFORM add_author_age_counts(ARRAY(SELECT age FROM new_rows), ARRAY(SELECT age FROM old_rows));
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION count_deleted_authors() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    removed_books BIGINT[];
+BEGIN
+    IF EXISTS (SELECT FROM old_rows) THEN
+        PERFORM add_catalog_totals(0, -(SELECT count(*) FROM old_rows));
+        PERFORM add_author_age_counts('{}', ARRAY(SELECT age FROM old_rows));
+        WITH deleted AS (DELETE FROM author_book_counts c
+                         USING old_rows o
+                         WHERE c.author_id = o.id
+                         RETURNING c.books)
+        SELECT array_agg(books) INTO removed_books FROM deleted;
+        IF removed_books IS NOT NULL THEN
+            PERFORM add_books_per_author_counts(removed_books, array_fill(-1::BIGINT, ARRAY[cardinality(removed_books)]));
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER books_stats_insert
+    AFTER INSERT ON books REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_inserted_books();
+
+CREATE TRIGGER books_stats_update
+    AFTER UPDATE ON books REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_updated_books();
+
+CREATE TRIGGER books_stats_delete
+    AFTER DELETE ON books REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_deleted_books();
+
+CREATE TRIGGER authors_stats_insert
+    AFTER INSERT ON authors REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_inserted_authors();
+
+CREATE TRIGGER authors_stats_update
+    AFTER UPDATE ON authors REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_updated_authors();
+
+CREATE TRIGGER authors_stats_delete
+    AFTER DELETE ON authors REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION count_deleted_authors();
+
+INSERT INTO catalog_totals (slot, books, authors)
+VALUES (0, (SELECT count(*) FROM books), (SELECT count(*) FROM authors));
+
+INSERT INTO author_book_counts (author_id, books)
+SELECT a.id, count(b.isbn)
+FROM authors a
+         LEFT JOIN books b ON b.author_id = a.id
+GROUP BY a.id;
+
+INSERT INTO books_per_author_counts (books, slot, authors)
+SELECT books, 0, count(*)
+FROM author_book_counts
+GROUP BY books;
+
+INSERT INTO author_age_counts (age, slot, authors)
+SELECT age, 0, count(*)
+FROM authors
+GROUP BY age;
@@ -0,0 +1,128 @@
+-- Change log of books and authors, written by the same statement-level triggers as the
+-- aggregates of V7, so every write path records its changes in its own transaction.
+--
+-- Entries are ordered by the id of the writing transaction and then by insertion. Readers
+-- only see entries of transactions older than every transaction still in progress, so an
+-- entry can never appear behind a position a reader has already passed, whatever the order
+-- in which concurrent transactions commit.
+CREATE TABLE catalog_changes
+(
+    txid       xid8         NOT NULL DEFAULT pg_current_xact_id(),
+    id         BIGINT GENERATED ALWAYS AS IDENTITY,
+    entity     VARCHAR(10)  NOT NULL,
+    entity_key VARCHAR(255) NOT NULL,
+    operation  VARCHAR(10)  NOT NULL,
+    version    BIGINT,
+    changed_at TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    PRIMARY KEY (txid, id)
+);
+
+-- Compaction keeps only the latest entry of every book and author.
+CREATE INDEX idx_catalog_changes_entity_key ON catalog_changes (entity, entity_key);
+
+CREATE INDEX idx_catalog_changes_changed_at ON catalog_changes (changed_at);
+
+-- Position of the latest entry removed by retention; a reader behind it has missed entries.
+CREATE TABLE catalog_changes_horizon
+(
+    txid xid8   NOT NULL,
+    id   BIGINT NOT NULL
+);
+
+INSERT INTO catalog_changes_horizon (txid, id)
+VALUES ('0', 0);
+
+CREATE FUNCTION log_inserted_books() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO catalog_changes (entity, entity_key, operation, version)
+    SELECT 'BOOK', isbn, 'UPSERT', version
+    FROM new_rows;
+    RETURN NULL;
+END;
+$$;
+
+-- Updates that leave a row as it was are not logged.
+CREATE FUNCTION log_updated_books() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO catalog_changes (entity, entity_key, operation, version)
+    SELECT 'BOOK', n.isbn, 'UPSERT', n.version
+    FROM new_rows n
+             JOIN old_rows o ON o.isbn = n.isbn
+    WHERE o IS DISTINCT FROM n;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION log_deleted_books() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO catalog_changes (entity, entity_key, operation, version)
+    SELECT 'BOOK', isbn, 'DELETE', version
+    FROM old_rows;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION log_inserted_authors() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO catalog_changes (entity, entity_key, operation, version)
+    SELECT 'AUTHOR', id, 'UPSERT', version
+    FROM new_rows;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION log_updated_authors() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO catalog_changes (entity, entity_key, operation, version)
+    SELECT 'AUTHOR', n.id, 'UPSERT', n.version
+    FROM new_rows n
+             JOIN old_rows o ON o.id = n.id
+    WHERE o IS DISTINCT FROM n;
+    RETURN NULL;
+END;
+$$;
+
+CREATE FUNCTION log_deleted_authors() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO catalog_changes (entity, entity_key, operation, version)
+    SELECT 'AUTHOR', id, 'DELETE', version
+    FROM old_rows;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER books_changes_insert
+    AFTER INSERT ON books REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION log_inserted_books();
+
+CREATE TRIGGER books_changes_update
+    AFTER UPDATE ON books REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION log_updated_books();
+
+CREATE TRIGGER books_changes_delete
+    AFTER DELETE ON books REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION log_deleted_books();
+
+CREATE TRIGGER authors_changes_insert
+    AFTER INSERT ON authors REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION log_inserted_authors();
+
+CREATE TRIGGER authors_changes_update
+    AFTER UPDATE ON authors REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION log_updated_authors();
+
+CREATE TRIGGER authors_changes_delete
+    AFTER DELETE ON authors REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION log_deleted_authors();
@@ -0,0 +1,68 @@
+-- One search vector per book covering its title (weight A) and its author's name (weight B),
+-- so that a query is a single match on one GIN index, also when its words span both fields.
+-- A generated column cannot read the author, hence the triggers: the book's vector is set
+-- whenever its title or author changes, and rewritten for all of an author's books when the
+-- author is renamed. The authors keep their own vector as the source of the name's lexemes.
+ALTER TABLE books
+    DROP COLUMN search_vector;
+
+ALTER TABLE books
+    ADD COLUMN search_vector tsvector;
+
+-- Row level, so the vector is in place before the row is written; the author may have been
+-- inserted by the same statement, which the queries of a volatile function already see.
+CREATE FUNCTION set_book_search_vector() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    NEW.search_vector := setweight(to_tsvector('english', coalesce(NEW.title, '')), 'A')
+                             || coalesce((SELECT a.search_vector FROM authors a WHERE a.id = NEW.author_id), '');
+    RETURN NEW;
+END;
+$$;
+
+CREATE FUNCTION update_books_search_vector() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    UPDATE books b
+    SET search_vector = setweight(to_tsvector('english', coalesce(b.title, '')), 'A') || n.search_vector
+    FROM new_rows n
+             JOIN old_rows o ON o.id = n.id
+    WHERE b.author_id = n.id
+      AND n.name IS DISTINCT FROM o.name;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER books_search_vector
+    BEFORE INSERT OR UPDATE OF title, author_id ON books
+    FOR EACH ROW EXECUTE FUNCTION set_book_search_vector();
+
+CREATE TRIGGER authors_search_vector_update
+    AFTER UPDATE ON authors REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION update_books_search_vector();
+
+UPDATE books b
+SET search_vector = setweight(to_tsvector('english', coalesce(b.title, '')), 'A')
+                        || coalesce((SELECT a.search_vector FROM authors a WHERE a.id = b.author_id), '');
+
+CREATE INDEX idx_books_search_vector ON books USING gin (search_vector);
+
+-- Searches no longer match the authors on their own.
+DROP INDEX idx_authors_search_vector;
+
+-- A book whose vector is rewritten for a renamed author has not changed itself; it is logged
+-- only when one of its own columns changes, as before.
+CREATE OR REPLACE FUNCTION log_updated_books() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    INSERT INTO catalog_changes (entity, entity_key, operation, version)
+    SELECT 'BOOK', n.isbn, 'UPSERT', n.version
+    FROM new_rows n
+             JOIN old_rows o ON o.isbn = n.isbn
+    WHERE (o.title, o.author_id, o.version) IS DISTINCT FROM (n.title, n.author_id, n.version);
+    RETURN NULL;
+END;
+$$;
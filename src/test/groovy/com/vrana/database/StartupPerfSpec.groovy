@@ -0,0 +1,174 @@
+package com.vrana.database
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.jdbc.core.JdbcTemplate
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Stepwise
+import spock.lang.Tag
+
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+/**
+ * Time from launching the boot jar to the first successful {@code GET /books/{isbn}}, and the
+ * resident memory of the process once it has been idle for a while, in the default mode and in
+ * every step of the fast-start mode of {@code application-fast-start.properties}. Each run is a
+ * new JVM against the same database, which this spec's context migrates and seeds.
+ * Excluded from the regular test run, execute with {@code ./gradlew startupBenchmark}, which
+ * builds the jars and the class data sharing archive first; the number of runs per mode and
+ * the idle time can be changed with {@code -Dperf.startupRuns} and {@code -Dperf.idleSeconds}.
+ * The resident memory is read from {@code /proc} and is only reported on Linux.
+ */
+@Tag("startup")
+@Stepwise
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@Testcontainers
+class StartupPerfSpec extends Specification {
+
+    private static final int RUNS = Integer.getInteger("perf.startupRuns", 3)
+
+    private static final int IDLE_SECONDS = Integer.getInteger("perf.idleSeconds", 5)
+
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(120)
+
+    private static final String ISBN = "978-0-000000"
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private JdbcConnectionDetails connectionDetails
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    @Shared
+    private Map<String, List<Startup>> startups = [:]
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "the application started in #mode answers GET /books/{isbn}"() {
+        given: "a book to ask for"
+        if (jdbcTemplate.queryForObject("SELECT count(*) FROM books WHERE isbn = ?", Long, ISBN) == 0) {
+            jdbcTemplate.update("INSERT INTO authors (name, age) VALUES ('Ann Writer', 40)")
+            jdbcTemplate.update("INSERT INTO books (isbn, title, author_id) VALUES (?, 'Title', (SELECT max(id) FROM authors))", ISBN)
+        }
+
+        when: "it is started a number of times"
+        startups[mode] = (1..RUNS).collect { start(mode, jvmArguments, arguments) }
+
+        then: "every start ends with the book being served"
+        startups[mode].size() == RUNS
+
+        where:
+        mode                   | jvmArguments                                                           | arguments
+        "default"              | []                                                                     | []
+        "fast-start"           | []                                                                     | ["--spring.profiles.active=fast-start"]
+        "fast-start, AOT"      | ["-Dspring.aot.enabled=true"]                                          | ["--spring.profiles.active=fast-start"]
+        "fast-start, AOT, CDS" | ["-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=application.jsa"] | ["--spring.profiles.active=fast-start"]
+    }
+
+    def "the fast-start mode serves its first request sooner than the default one"() {
+        when:
+        startups.each { mode, runs ->
+            println String.format("%-22s first GET /books/{isbn} after %5d ms, %4d MB resident after %d s idle (median of %d)",
+                    mode, median(runs*.firstResponse*.toMillis()), median(runs*.residentBytes).intdiv(1024 * 1024),
+                    IDLE_SECONDS, RUNS)
+        }
+
+        then:
+        median(startups["fast-start, AOT, CDS"]*.firstResponse*.toMillis()) < median(startups["default"]*.firstResponse*.toMillis())
+    }
+
+    private Startup start(String mode, List<String> jvmArguments, List<String> arguments) {
+        // the default mode runs the jar as it is deployed, the fast-start one the extracted jar
+        // the archive was created for
+        def fastStart = mode.startsWith("fast-start")
+        def directory = Path.of(System.getProperty(fastStart ? "startup.fastStartDir" : "startup.bootJar"))
+        def jar = fastStart ? Files.list(directory).withCloseable { files ->
+            files.filter { it.fileName.toString().endsWith(".jar") }.findFirst().orElseThrow()
+        } : directory
+        def port = new ServerSocket(0).withCloseable { it.localPort }
+        def command = [System.getProperty("startup.java", "java")] + jvmArguments + ["-jar", jar.toString(),
+                       "--server.port=$port",
+                       "--spring.datasource.url=${connectionDetails.jdbcUrl}",
+                       "--spring.datasource.username=${connectionDetails.username}",
+                       "--spring.datasource.password=${connectionDetails.password}"] + arguments
+        def log = Files.createTempFile("startup", ".log")
+        long started = System.nanoTime()
+        def process = new ProcessBuilder(command*.toString())
+                .directory(fastStart ? directory.toFile() : jar.parent.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start()
+        try {
+            def firstResponse = awaitBook(process, port, started, log)
+            Thread.sleep(Duration.ofSeconds(IDLE_SECONDS))
+            new Startup(firstResponse, residentBytes(process))
+        } finally {
+            process.destroy()
+            process.waitFor()
+            Files.delete(log)
+        }
+    }
+
+    private static Duration awaitBook(Process process, int port, long started, Path log) {
+        def client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build()
+        def request = HttpRequest.newBuilder(URI.create("http://localhost:$port/books/$ISBN"))
+                .timeout(Duration.ofSeconds(10)).build()
+        long deadline = started + START_TIMEOUT.toNanos()
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The application exited with ${process.exitValue()}:\n${Files.readString(log)}")
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return Duration.ofNanos(System.nanoTime() - started)
+                }
+            } catch (IOException ignored) {
+                // not listening yet
+            }
+            Thread.sleep(5)
+        }
+        throw new IllegalStateException("The application did not serve $ISBN within $START_TIMEOUT:\n${Files.readString(log)}")
+    }
+
+    private static long residentBytes(Process process) {
+        def status = Path.of("/proc/${process.pid()}/status")
+        if (!Files.exists(status)) {
+            return 0
+        }
+        def line = Files.readAllLines(status).find { it.startsWith("VmRSS:") }
+        Long.parseLong(line.split(/\s+/)[1]) * 1024
+    }
+
+    private static long median(List<Long> values) {
+        values.sort()[values.size().intdiv(2)]
+    }
+
+    private static class Startup {
+        final Duration firstResponse
+        final long residentBytes
+
+        Startup(Duration firstResponse, long residentBytes) {
+            this.firstResponse = firstResponse
+            this.residentBytes = residentBytes
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.vrana.database
+
+import com.vrana.database.config.QueryDiagnostics
+import org.springframework.test.web.servlet.MvcResult
+import org.springframework.test.web.servlet.ResultMatcher
+
+/**
+ * Statement budgets for specs run with {@code book-api.query-diagnostics.enabled=true}:
+ * <pre>
+ * mockMvc.perform(get("/books/{isbn}", isbn)).andExpect(executesAtMost(1))
+ *
+ * def statements = countStatements { bookService.createBooks(books) }
+ * statements.count() <= 3
+ * </pre>
+ * A request over its budget fails with its statement count, time and rows.
+ */
+final class StatementBudget {
+
+    private StatementBudget() {
+    }
+
+    /**
+     * Expects the request to have run no more than the given number of statements.
+     */
+    static ResultMatcher executesAtMost(int budget) {
+        return { MvcResult result ->
+            def statements = statementCount(result)
+            if (statements > budget) {
+                throw new AssertionError("${describe(result)} executed $statements statements, "
+                        + "$budget at most were expected: ${result.response.getHeader(QueryDiagnostics.SERVER_TIMING_HEADER)}")
+            }
+        } as ResultMatcher
+    }
+
+    /**
+     * Expects the request to have run exactly the given number of statements, for the
+     * endpoints whose count must not grow, such as those served from a cache.
+     */
+    static ResultMatcher executesExactly(int expected) {
+        return { MvcResult result ->
+            def statements = statementCount(result)
+            if (statements != expected) {
+                throw new AssertionError("${describe(result)} executed $statements statements, "
+                        + "$expected were expected: ${result.response.getHeader(QueryDiagnostics.SERVER_TIMING_HEADER)}")
+            }
+        } as ResultMatcher
+    }
+
+    /**
+     * Counts the statements the work runs on this thread, for code called outside a request.
+     */
+    static QueryDiagnostics.Statements countStatements(Closure<?> work) {
+        return QueryDiagnostics.count { work.call() }
+    }
+
+    private static int statementCount(MvcResult result) {
+        def header = result.response.getHeader(QueryDiagnostics.QUERY_COUNT_HEADER)
+        if (header == null) {
+            throw new AssertionError("${describe(result)} has no ${QueryDiagnostics.QUERY_COUNT_HEADER} header, "
+                    + "is book-api.query-diagnostics.enabled set?")
+        }
+        return Integer.parseInt(header)
+    }
+
+    private static String describe(MvcResult result) {
+        return "${result.request.method} ${result.request.requestURI}"
+    }
+}
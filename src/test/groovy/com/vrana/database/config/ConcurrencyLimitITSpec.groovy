@@ -0,0 +1,195 @@
+package com.vrana.database.config
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.vrana.database.domain.dto.ChangeFeedDto
+import io.micrometer.core.instrument.MeterRegistry
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.http.HttpHeaders
+import org.springframework.http.MediaType
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+@SpringBootTest(properties = ["book-api.concurrency-limit.initial-limit=10", "book-api.concurrency-limit.write-reserve=0.2"])
+@AutoConfigureMockMvc
+@Testcontainers
+class ConcurrencyLimitITSpec extends Specification {
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private MockMvc mockMvc
+
+    @Autowired
+    private ObjectMapper objectMapper
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter
+
+    @Autowired
+    private MeterRegistry meterRegistry
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "a read over the limit is answered with HttpStatus 503 SERVICE UNAVAILABLE while a write still passes"() {
+        given: "as many reads in flight as the limit lets through"
+        def reads = holdAllReads()
+        double rejectedBefore = meterRegistry.counter("concurrency.rejections", "operation", "read").count()
+
+        when: "a book page is requested"
+        def read = mockMvc.perform(MockMvcRequestBuilders.get("/books"))
+
+        then: "the request is turned away at once with a hint to retry"
+        read.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(MockMvcResultMatchers.jsonPath('$.status').value(503))
+
+        and: "the rejection is counted"
+        meterRegistry.counter("concurrency.rejections", "operation", "read").count() == rejectedBefore + 1
+
+        when: "an author is created"
+        def write = mockMvc.perform(MockMvcRequestBuilders.post("/authors")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"name": "Ann Writer", "age": 40}'))
+
+        then: "the share reserved for writes lets it through"
+        write.andExpect(MockMvcResultMatchers.status().isCreated())
+
+        when: "the reads complete and the page is requested again"
+        reads*.ignore()
+        def retry = mockMvc.perform(MockMvcRequestBuilders.get("/books"))
+
+        then: "the request is served"
+        retry.andExpect(MockMvcResultMatchers.status().isOk())
+        concurrencyLimiter.getInFlight() == 0
+    }
+
+    def "a read over the limit waits up to the queue wait for a permit given back"() {
+        given: "a limiter that lets requests wait for a place, its only permit held"
+        def limiter = new ConcurrencyLimiter(new BookApiProperties.ConcurrencyLimitSpec(1, 1, 1, 2.0, 0.0, Duration.ofSeconds(5)))
+        def held = limiter.tryAcquire("held", false).get()
+
+        when: "a read asks for a permit and the held one is given back meanwhile"
+        def waiting = CompletableFuture.supplyAsync { limiter.acquire("waiting", false) }
+        Thread.sleep(100)
+        held.ignore()
+
+        then: "the read gets the permit given back"
+        waiting.get(5, TimeUnit.SECONDS).isPresent()
+        limiter.getInFlight() == 1
+        limiter.getQueued() == 0
+    }
+
+    def "a read over the limit is turned away once the queue wait has passed"() {
+        given: "a limiter with a short queue wait, its only permit held"
+        def limiter = new ConcurrencyLimiter(new BookApiProperties.ConcurrencyLimitSpec(1, 1, 1, 2.0, 0.0, Duration.ofMillis(200)))
+        limiter.tryAcquire("held", false)
+
+        when: "a read asks for a permit"
+        long start = System.nanoTime()
+        def permit = limiter.acquire("waiting", false)
+
+        then: "it gets none, and only after the wait"
+        permit.isEmpty()
+        Duration.ofNanos(System.nanoTime() - start) >= Duration.ofMillis(200)
+        limiter.getQueued() == 0
+    }
+
+    def "a lookup of books is a read although it is posted"() {
+        given: "as many reads in flight as the limit lets through"
+        def reads = holdAllReads()
+        double rejectedBefore = meterRegistry.counter("concurrency.rejections", "operation", "read").count()
+
+        when: "books are looked up"
+        def lookup = mockMvc.perform(MockMvcRequestBuilders.post("/books/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"isbns": ["978-0-000001"]}'))
+
+        then: "the lookup is turned away with the reads instead of taking the share reserved for writes"
+        lookup.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+        meterRegistry.counter("concurrency.rejections", "operation", "read").count() == rejectedBefore + 1
+
+        cleanup:
+        reads*.ignore()
+    }
+
+    def "a slow route does not lower the limit for a fast one, an overloaded route does"() {
+        given: "two routes, one fifty times slower than the other, each at its usual latency"
+        def limit = concurrencyLimiter.getLimit()
+        3.times {
+            window("fast", 1, limit)
+            window("slow", 50, limit)
+        }
+
+        expect: "the slow route's latency is no sign of load"
+        concurrencyLimiter.getLimit() >= limit
+
+        when: "the fast route turns ten times slower than it used to be"
+        def keptUp = concurrencyLimiter.getLimit()
+        2.times { window("fast", 10, limit) }
+
+        then: "the limit is cut"
+        concurrencyLimiter.getLimit() < keptUp
+    }
+
+    def "a long poll gives its permit back while it waits"() {
+        given: "the cursor of the latest change"
+        def head = objectMapper.readValue(mockMvc.perform(MockMvcRequestBuilders.get("/changes/head"))
+                .andReturn().getResponse().getContentAsString(), ChangeFeedDto).next
+
+        when: "the changes after it are requested with a wait"
+        def pending = mockMvc.perform(MockMvcRequestBuilders.get("/changes")
+                .param("since", head)
+                .param("wait", "1"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn()
+
+        then: "no permit is held while the request waits"
+        concurrencyLimiter.getInFlight() == 0
+
+        when: "the wait passes"
+        def result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(pending))
+
+        then: "the request is answered and holds no permit either"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        concurrencyLimiter.getInFlight() == 0
+    }
+
+    def "the current limit is published as a metric"() {
+        expect:
+        meterRegistry.get("concurrency.limit").gauge().value() == concurrencyLimiter.getLimit()
+    }
+
+    private List<ConcurrencyLimiter.Permit> holdAllReads() {
+        def reads = []
+        for (def permit = concurrencyLimiter.tryAcquire("held", false); permit.isPresent();
+             permit = concurrencyLimiter.tryAcquire("held", false)) {
+            reads << permit.get()
+        }
+        reads
+    }
+
+    // A window's worth of requests to the route, each taking the given milliseconds, after
+    // the window length has passed; the first of them closes the route's previous window.
+    private void window(String route, long millis, int inFlight) {
+        Thread.sleep(110)
+        10.times { concurrencyLimiter.onSample(route, millis * 1_000_000L, inFlight, false) }
+    }
+}
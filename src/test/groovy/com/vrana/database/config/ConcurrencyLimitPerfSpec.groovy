@@ -0,0 +1,190 @@
+package com.vrana.database.config
+
+import com.vrana.database.BookApiApplication
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails
+import org.springframework.boot.builder.SpringApplicationBuilder
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.boot.web.context.WebServerApplicationContext
+import org.springframework.http.HttpHeaders
+import org.springframework.jdbc.core.JdbcTemplate
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Stepwise
+import spock.lang.Tag
+
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.time.Duration
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Goodput, the requests per second served within the latency objective, as the number of
+ * clients grows past what the database serves, once with the concurrency limit and once
+ * without. Each run starts a separate application on a real port against the same database.
+ * Excluded from the regular test run, execute with {@code ./gradlew perfTest}; the client
+ * counts and the duration of every step can be changed with {@code -Dperf.clientSteps} and
+ * {@code -Dperf.stepSeconds}, the objective with {@code -Dperf.sloMillis}. Turned away
+ * clients wait as long as the Retry-After header asks before they send their next request.
+ * The goodput target assumes a multi-core host, on which the clients do not compete with the
+ * application for the CPU, and can be adjusted with {@code -Dperf.minGoodputRatio}.
+ */
+@Tag("perf")
+@Stepwise
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@Testcontainers
+class ConcurrencyLimitPerfSpec extends Specification {
+
+    private static final List<Integer> CLIENT_STEPS = System.getProperty("perf.clientSteps", "10,40,160,640")
+            .split(",").collect { Integer.parseInt(it.trim()) }
+
+    private static final int STEP_SECONDS = Integer.getInteger("perf.stepSeconds", 10)
+
+    private static final long SLO_NANOS = Duration.ofMillis(Integer.getInteger("perf.sloMillis", 250)).toNanos()
+
+    private static final double MIN_GOODPUT_RATIO = Double.parseDouble(
+            System.getProperty("perf.minGoodputRatio", "0.8"))
+
+    private static final int BOOKS = 100_000
+
+    private static final int AUTHORS = 1_000
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private JdbcConnectionDetails connectionDetails
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    @Shared
+    private long firstAuthorId
+
+    @Shared
+    private List<StepResult> unlimited
+
+    def "without the limit every client's request waits for a connection"() {
+        given: "a seeded catalog"
+        seedCatalog()
+
+        when: "the clients load the application with a limit it never reaches"
+        unlimited = load(false)
+
+        then: "the load was measured"
+        unlimited.every { it.served.sum() + it.rejected.sum() > 0 }
+    }
+
+    def "with the limit the goodput stays flat past saturation"() {
+        when: "the clients load the application with the adaptive limit"
+        def limited = load(true)
+
+        then: "no request fails other than by being turned away with 503"
+        limited.every { it.failed.sum() == 0 }
+
+        and: "the most clients are served within the objective about as often as the fewest"
+        limited*.goodput().max() > 0
+        limited.last().goodput() >= limited*.goodput().max() * MIN_GOODPUT_RATIO
+    }
+
+    private List<StepResult> load(boolean limited) {
+        def properties = ["server.port=0",
+                          "spring.jpa.hibernate.ddl-auto=validate",
+                          "spring.datasource.url=${connectionDetails.jdbcUrl}",
+                          "spring.datasource.username=${connectionDetails.username}",
+                          "spring.datasource.password=${connectionDetails.password}"]
+        if (!limited) {
+            properties += ["book-api.concurrency-limit.initial-limit=1000000",
+                           "book-api.concurrency-limit.min-limit=1000000",
+                           "book-api.concurrency-limit.max-limit=1000000"]
+        }
+        def application = new SpringApplicationBuilder(BookApiApplication)
+                .properties(properties*.toString() as String[])
+                .run()
+        try {
+            def baseUrl = "http://localhost:${(application as WebServerApplicationContext).webServer.port}"
+            CLIENT_STEPS.collect { clients ->
+                def result = load(baseUrl, clients)
+                def limiter = application.getBean(ConcurrencyLimiter)
+                println String.format("%s: %d clients, %.0f requests/s within %d ms of %.0f served, %.0f rejected with 503/s, %d failed, limit %d",
+                        limited ? "limited" : "unlimited", clients, result.goodput(), SLO_NANOS.intdiv(1_000_000),
+                        result.served.sum() / (double) STEP_SECONDS, result.rejected.sum() / (double) STEP_SECONDS,
+                        result.failed.sum(), limiter.getLimit())
+                result
+            }
+        } finally {
+            application.close()
+        }
+    }
+
+    private StepResult load(String baseUrl, int clients) {
+        def result = new StepResult()
+        def client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build()
+        long deadline = System.nanoTime() + Duration.ofSeconds(STEP_SECONDS).toNanos()
+        Executors.newVirtualThreadPerTaskExecutor().withCloseable { executor ->
+            clients.times {
+                executor.submit {
+                    def random = ThreadLocalRandom.current()
+                    while (System.nanoTime() < deadline) {
+                        def path = "/authors/${firstAuthorId + random.nextInt(AUTHORS)}/books"
+                        long start = System.nanoTime()
+                        try {
+                            def response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                                    .timeout(Duration.ofSeconds(60)).build(), HttpResponse.BodyHandlers.discarding())
+                            if (response.statusCode() == 200) {
+                                result.served.increment()
+                                if (System.nanoTime() - start <= SLO_NANOS) {
+                                    result.good.increment()
+                                }
+                            } else if (response.statusCode() == 503) {
+                                result.rejected.increment()
+                                Thread.sleep(Duration.ofSeconds(response.headers().firstValueAsLong(HttpHeaders.RETRY_AFTER).orElse(1)))
+                            } else {
+                                result.failed.increment()
+                            }
+                        } catch (IOException ignored) {
+                            result.failed.increment()
+                        }
+                    }
+                }
+            }
+        }
+        result
+    }
+
+    // Every request reads the first page of an author's books, a short index range scan that
+    // holds a pooled connection for its whole duration.
+    private void seedCatalog() {
+        if (jdbcTemplate.queryForObject("SELECT count(*) FROM books", Long) == 0) {
+            jdbcTemplate.update("INSERT INTO authors (name, age) SELECT 'Author ' || i, 20 + i % 60 FROM generate_series(1, ?) AS i", AUTHORS)
+            jdbcTemplate.update("""
+                    INSERT INTO books (isbn, title, author_id)
+                    SELECT lpad(i::text, 13, '0'), 'Title ' || i, (SELECT min(id) FROM authors) + i % ?
+                    FROM generate_series(0, ?) AS i""", AUTHORS, BOOKS - 1)
+            jdbcTemplate.execute("ANALYZE books")
+        }
+        firstAuthorId = jdbcTemplate.queryForObject("SELECT min(id) FROM authors", Long)
+    }
+
+    private static class StepResult {
+        final LongAdder served = new LongAdder()
+        final LongAdder good = new LongAdder()
+        final LongAdder rejected = new LongAdder()
+        final LongAdder failed = new LongAdder()
+
+        double goodput() {
+            good.sum() / (double) STEP_SECONDS
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.vrana.database.config
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.http.HttpHeaders
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Specification
+
+import javax.sql.DataSource
+import java.sql.Connection
+import java.sql.SQLTransientConnectionException
+
+@SpringBootTest(properties = ["spring.datasource.hikari.maximum-pool-size=2", "book-api.connection-permits.max-wait=200ms"])
+@AutoConfigureMockMvc
+@Testcontainers
+class ConnectionPermitITSpec extends Specification {
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private MockMvc mockMvc
+
+    @Autowired
+    private DataSource dataSource
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "a request that gets no connection within the maximum wait is answered with HttpStatus 503 SERVICE UNAVAILABLE"() {
+        given: "every pooled connection is in use"
+        List<Connection> connections = (1..2).collect { dataSource.getConnection() }
+
+        when: "a book page is requested"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/books"))
+
+        then: "the request is turned away with a hint to retry"
+        result.andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(MockMvcResultMatchers.jsonPath('$.status').value(503))
+
+        when: "the connections are returned and the page is requested again"
+        connections.each { it.close() }
+        def retry = mockMvc.perform(MockMvcRequestBuilders.get("/books"))
+
+        then: "the request is served"
+        retry.andExpect(MockMvcResultMatchers.status().isOk())
+    }
+
+    def "closing a connection twice returns its permit only once"() {
+        given: "a connection that is closed twice"
+        def connection = dataSource.getConnection()
+        connection.close()
+        connection.close()
+
+        and: "every pooled connection is in use"
+        List<Connection> connections = (1..2).collect { dataSource.getConnection() }
+
+        when: "one more connection is requested"
+        dataSource.getConnection()
+
+        then: "it is refused for want of a permit, not by the pool"
+        def ex = thrown(SQLTransientConnectionException)
+        ex.message.startsWith("No database connection became available")
+
+        cleanup:
+        connections*.close()
+    }
+}
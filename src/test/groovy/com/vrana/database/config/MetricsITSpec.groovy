@@ -0,0 +1,74 @@
+package com.vrana.database.config
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.vrana.database.TestDataUtil
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.http.MediaType
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Specification
+
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=prometheus")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@Testcontainers
+class MetricsITSpec extends Specification {
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private MockMvc mockMvc
+
+    @Autowired
+    private ObjectMapper objectMapper
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "the Prometheus endpoint publishes request, service, pool and Hibernate metrics"() {
+        given: "a book that is created and read back"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(TestDataUtil.createTestAuthorDtoA())
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/${testBookDtoA.getIsbn()}")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testBookDtoA)))
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/${testBookDtoA.getIsbn()}"))
+
+        when: "the metrics are scraped"
+        def scrape = mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString()
+
+        then: "endpoint latencies are published as histograms"
+        scrape =~ /http_server_requests_seconds_bucket\{[^}]*uri="\/books\/\{isbn\}"/
+
+        and: "every service method is timed"
+        scrape =~ /service_method_seconds_bucket\{[^}]*method="findOneOrThrow"/
+        scrape =~ /service_method_seconds_count\{[^}]*class="com.vrana.database.services.impl.BookServiceImpl"[^}]*method="createBook"/
+        scrape =~ /service_method_seconds_count\{[^}]*class="com.vrana.database.services.impl.BookServiceImpl"[^}]*method="findOneOrThrow"/
+
+        and: "the connection pool and its permits are observed"
+        scrape.contains("hikaricp_connections_active")
+        scrape.contains("hikaricp_connections_pending")
+        scrape.contains("hikaricp_connections_acquire_seconds_bucket")
+        scrape.contains("connection_permits_waiting")
+        scrape.contains("connection_permits_wait_seconds_bucket")
+
+        and: "Hibernate statistics are collected"
+        scrape =~ /hibernate_query_executions_total\{[^}]*\} [1-9]/
+        scrape =~ /hibernate_entities_loads_total\{[^}]*\} [1-9]/
+        scrape =~ /hibernate_statements_total\{[^}]*status="prepared"[^}]*\} [1-9]/
+    }
+}
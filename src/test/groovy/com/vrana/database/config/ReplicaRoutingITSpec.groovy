@@ -0,0 +1,154 @@
+package com.vrana.database.config
+
+import org.flywaydb.core.Flyway
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.http.MediaType
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.datasource.SingleConnectionDataSource
+import org.springframework.test.context.DynamicPropertyRegistry
+import org.springframework.test.context.DynamicPropertySource
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+/**
+ * Runs against two independent databases standing in for a primary and its replica, so a
+ * row that exists in only one of them shows which one served a request. Replication lag
+ * cannot be produced this way and is not covered here.
+ */
+@SpringBootTest(properties = "book-api.replica.check-interval=100ms")
+@AutoConfigureMockMvc
+@Testcontainers
+class ReplicaRoutingITSpec extends Specification {
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Container
+    private final static PostgreSQLContainer replica = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private MockMvc mockMvc
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    @Autowired
+    private ReplicaMonitor replicaMonitor
+
+    private final PollingConditions conditions = new PollingConditions(timeout: 10)
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        replica.start()
+        Flyway.configure().dataSource(replica.jdbcUrl, replica.username, replica.password).load().migrate()
+        registry.add("book-api.replica.datasource.url", replica::getJdbcUrl)
+        registry.add("book-api.replica.datasource.username", replica::getUsername)
+        registry.add("book-api.replica.datasource.password", replica::getPassword)
+    }
+
+    def setup() {
+        conditions.eventually {
+            assert replicaMonitor.isUsable()
+        }
+    }
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test containers were created successfully and are running"
+        postgres.isCreated()
+        postgres.isRunning()
+        replica.isCreated()
+        replica.isRunning()
+    }
+
+    def "a book lookup is served by the replica"() {
+        given: "a book that exists only on the replica"
+        onReplica { it.update("INSERT INTO books (isbn, title) VALUES ('978-1000000001', 'Replicated')") }
+
+        when: "the book is requested"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/books/978-1000000001"))
+
+        then: "it is found"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath('$.title').value("Replicated"))
+    }
+
+    def "a created book is written to the primary and read back only when read-your-writes is requested"() {
+        when: "a book is created"
+        def created = mockMvc.perform(MockMvcRequestBuilders.post("/books/978-1000000002")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"isbn": "978-1000000002", "title": "Written", "author": {"name": "Ann Writer", "age": 40}}'))
+
+        then: "it is stored on the primary"
+        created.andExpect(MockMvcResultMatchers.status().isCreated())
+        jdbcTemplate.queryForObject("SELECT count(*) FROM books WHERE isbn = '978-1000000002'", Long) == 1
+
+        when: "it is requested as usual and with read-your-writes"
+        def fromReplica = mockMvc.perform(MockMvcRequestBuilders.get("/books/978-1000000002"))
+        def fromPrimary = mockMvc.perform(MockMvcRequestBuilders.get("/books/978-1000000002")
+                .header(ReadYourWrites.HEADER, "true"))
+
+        then: "the replica, which never received it, does not know it while the primary does"
+        fromReplica.andExpect(MockMvcResultMatchers.status().isNotFound())
+        fromPrimary.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath('$.title').value("Written"))
+    }
+
+    def "reads fall back to the primary while the replica is down"() {
+        given: "a book on the primary and another one only on the replica"
+        jdbcTemplate.update("INSERT INTO books (isbn, title) VALUES ('978-1000000003', 'Primary')")
+        onReplica { it.update("INSERT INTO books (isbn, title) VALUES ('978-1000000004', 'Replica')") }
+
+        when: "the replica stops accepting connections"
+        onReplicaServer {
+            it.execute("ALTER DATABASE ${replica.databaseName} WITH ALLOW_CONNECTIONS false")
+            it.execute("SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE datname = '${replica.databaseName}'")
+        }
+        conditions.eventually {
+            assert !replicaMonitor.isUsable()
+        }
+
+        then: "the book on the primary is served"
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/978-1000000003"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath('$.title').value("Primary"))
+
+        when: "the replica accepts connections again"
+        onReplicaServer { it.execute("ALTER DATABASE ${replica.databaseName} WITH ALLOW_CONNECTIONS true") }
+        conditions.eventually {
+            assert replicaMonitor.isUsable()
+        }
+
+        then: "reads are served by the replica again"
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/978-1000000004"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath('$.title').value("Replica"))
+    }
+
+    private static void onReplica(Closure<?> statements) {
+        withConnection(replica.jdbcUrl, statements)
+    }
+
+    // the replica's maintenance database, from which its application database can be closed
+    private static void onReplicaServer(Closure<?> statements) {
+        withConnection(replica.jdbcUrl.replace("/${replica.databaseName}", "/postgres"), statements)
+    }
+
+    private static void withConnection(String url, Closure<?> statements) {
+        def dataSource = new SingleConnectionDataSource(url, replica.username, replica.password, true)
+        try {
+            statements(new JdbcTemplate(dataSource))
+        } finally {
+            dataSource.destroy()
+        }
+    }
+}
@@ -2,11 +2,16 @@ package com.vrana.database.controllers
 
 import com.fasterxml.jackson.databind.ObjectMapper
 import com.vrana.database.TestDataUtil
+import com.vrana.database.domain.dto.AuthorDto
+import com.vrana.database.domain.dto.BookDto
 import com.vrana.database.services.AuthorService
+import com.vrana.database.services.BookService
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
 import org.springframework.boot.test.context.SpringBootTest
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpMethod
 import org.springframework.http.MediaType
 import org.springframework.test.web.servlet.MockMvc
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders
@@ -16,7 +21,11 @@ import org.testcontainers.junit.jupiter.Container
 import org.testcontainers.junit.jupiter.Testcontainers
 import spock.lang.Specification
 
-@SpringBootTest
+import java.util.zip.GZIPInputStream
+
+import static com.vrana.database.StatementBudget.executesExactly
+
+@SpringBootTest(properties = "book-api.query-diagnostics.enabled=true")
 @AutoConfigureMockMvc
 @Testcontainers
 class AuthorControllerITSpec extends Specification {
@@ -34,6 +43,9 @@ class AuthorControllerITSpec extends Specification {
     @Autowired
     private AuthorService authorService
 
+    @Autowired
+    private BookService bookService
+
     def "connection to postgresql test container established"() {
         expect: "postgresql test container was created successfully and is running"
         postgres.isCreated()
@@ -77,7 +89,7 @@ class AuthorControllerITSpec extends Specification {
         result.andExpect(MockMvcResultMatchers.status().isOk())
     }
 
-    def "ListAuthors returns a list of authors"() {
+    def "ListAuthors returns a page of authors"() {
         given: "a new author is saved to the repository"
         def testAuthorDtoA = TestDataUtil.createTestAuthorDtoA()
         authorService.createAuthor(testAuthorDtoA)
@@ -88,10 +100,123 @@ class AuthorControllerITSpec extends Specification {
                         .contentType(MediaType.APPLICATION_JSON)
         )
 
-        then: "the response is a list of authors with matching author body"
-        result.andExpect(MockMvcResultMatchers.jsonPath('[0].id').isNumber())
-        result.andExpect(MockMvcResultMatchers.jsonPath('[0].name').value(testAuthorDtoA.getName()))
-        result.andExpect(MockMvcResultMatchers.jsonPath('[0].age').value(testAuthorDtoA.getAge()))
+        then: "the response is a page of authors with matching author body"
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[0].id').isNumber())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[0].name').value(testAuthorDtoA.getName()))
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[0].age').value(testAuthorDtoA.getAge()))
+    }
+
+    def "ListAuthors filters by age range and name prefix"() {
+        given: "authors of different names and ages"
+        [new AuthorDto(null, "Zelda Filter", 30), new AuthorDto(null, "Zed Filter", 50),
+         new AuthorDto(null, "Zora Filter", 70), new AuthorDto(null, "Other Filter", 50)]
+                .each { authorService.createAuthor(it) }
+
+        when: "a GET request is made for authors between 40 and 60 whose name starts with 'ze'"
+        def result = mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors")
+                        .param("minAge", "40")
+                        .param("maxAge", "60")
+                        .param("namePrefix", "ze")
+                        .contentType(MediaType.APPLICATION_JSON)
+        )
+
+        then: "only the matching author is returned"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.totalElements').value(1))
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[0].name').value("Zed Filter"))
+    }
+
+    def "ListAuthors filters by whether the author has books"() {
+        given: "an author with a book and an author without one"
+        def book = TestDataUtil.createTestBookDtoA(new AuthorDto(null, "Hasbooks Writer", 40))
+        book.setIsbn("978-0-0000-0005-1")
+        bookService.createBook(book.getIsbn(), book)
+        authorService.createAuthor(new AuthorDto(null, "Hasbooks Idle", 40))
+
+        when: "GET requests are made for authors with and without books"
+        def withBooks = objectMapper.readTree(mockMvc.perform(MockMvcRequestBuilders.get("/authors")
+                .param("namePrefix", "hasbooks").param("hasBooks", "true")
+        ).andReturn().getResponse().getContentAsString())
+        def withoutBooks = objectMapper.readTree(mockMvc.perform(MockMvcRequestBuilders.get("/authors")
+                .param("namePrefix", "hasbooks").param("hasBooks", "false")
+        ).andReturn().getResponse().getContentAsString())
+
+        then: "each request returns only the matching author"
+        withBooks.get("content")*.get("name")*.asText() == ["Hasbooks Writer"]
+        withoutBooks.get("content")*.get("name")*.asText() == ["Hasbooks Idle"]
+    }
+
+    def "ListAuthorsByCursor pages through filtered authors by name and back"() {
+        given: "three authors sharing a name prefix"
+        ["Cursor Carol", "Cursor Alice", "Cursor Bob"].each { authorService.createAuthor(new AuthorDto(null, it, 40)) }
+
+        and: "the first page of two authors ordered by name"
+        def firstPage = fetchCursorPage(null)
+
+        when: "the next cursor is followed"
+        def secondPage = fetchCursorPage(firstPage.get("next").asText())
+
+        and: "the prev cursor of that page is followed"
+        def previousPage = fetchCursorPage(secondPage.get("prev").asText())
+
+        then: "the pages hold the authors in name order"
+        firstPage.get("content")*.get("name")*.asText() == ["Cursor Alice", "Cursor Bob"]
+        secondPage.get("content")*.get("name")*.asText() == ["Cursor Carol"]
+        secondPage.get("next").isNull()
+
+        and: "the prev cursor leads back to the first page"
+        previousPage.get("content")*.get("name")*.asText() == ["Cursor Alice", "Cursor Bob"]
+        previousPage.get("prev").isNull()
+    }
+
+    private fetchCursorPage(String cursor) {
+        def request = MockMvcRequestBuilders.get("/authors/cursor")
+                .param("sort", "NAME")
+                .param("size", "2")
+                .param("namePrefix", "cursor")
+        if (cursor != null) {
+            request.param("cursor", cursor)
+        }
+        objectMapper.readTree(mockMvc.perform(request).andReturn().getResponse().getContentAsString())
+    }
+
+    def "ExportAuthors streams every author as newline-delimited JSON"() {
+        given: "a new author is saved to the repository"
+        def createdAuthorA = authorService.createAuthor(TestDataUtil.createTestAuthorDtoA())
+
+        when: "a GET request is made to export all authors"
+        def asyncResult = mockMvc.perform(MockMvcRequestBuilders.get("/authors/export"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn()
+        def result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
+
+        then: "the response is NDJSON with one line per author"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.content().contentType("application/x-ndjson"))
+        def lines = result.andReturn().getResponse().getContentAsString().readLines()
+        lines.collect { objectMapper.readValue(it, AuthorDto) }.contains(createdAuthorA)
+    }
+
+    def "ExportAuthors streams every author as gzipped CSV when requested"() {
+        given: "a new author is saved to the repository"
+        def createdAuthorA = authorService.createAuthor(TestDataUtil.createTestAuthorDtoA())
+
+        when: "a GET request is made to export all authors as gzipped CSV"
+        def asyncResult = mockMvc.perform(MockMvcRequestBuilders.get("/authors/export")
+                .param("format", "CSV")
+                .param("gzip", "true"))
+                .andReturn()
+        def result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
+
+        then: "the response is gzip encoded"
+        result.andExpect(MockMvcResultMatchers.header().string("Content-Encoding", "gzip"))
+
+        and: "the decompressed body is CSV with a header row and the author"
+        def body = new GZIPInputStream(new ByteArrayInputStream(result.andReturn().getResponse().getContentAsByteArray())).text
+        def lines = body.readLines()
+        lines[0] == "id,name,age"
+        lines.contains("${createdAuthorA.getId()},${createdAuthorA.getName()},${createdAuthorA.getAge()}".toString())
     }
 
     def "GetAuthor returns HttpStatus 200 OK when author exists"() {
@@ -137,6 +262,23 @@ class AuthorControllerITSpec extends Specification {
         result.andExpect(MockMvcResultMatchers.jsonPath('$.age').value(testAuthorDtoA.getAge()))
     }
 
+    def "GetAuthor answers a matching If-None-Match with HttpStatus 304 NOT MODIFIED and no body"() {
+        given: "a saved author and the entity tag of its first retrieval"
+        def createdAuthorA = authorService.createAuthor(TestDataUtil.createTestAuthorDtoA())
+        def eTag = mockMvc.perform(MockMvcRequestBuilders.get("/authors/${createdAuthorA.getId()}"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG)
+
+        when: "the author is requested again with that entity tag"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/authors/${createdAuthorA.getId()}")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+
+        then: "the response is 304 NOT MODIFIED with the same entity tag and no body"
+        eTag != null
+        result.andExpect(MockMvcResultMatchers.status().isNotModified())
+        result.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, eTag))
+        result.andExpect(MockMvcResultMatchers.content().string(""))
+    }
+
     def "FullUpdateAuthor returns HttpStatus 200 OK when author exists"() {
         given: "a new author is saved to the repository"
         def testAuthorDtoA = TestDataUtil.createTestAuthorDtoA()
@@ -253,6 +395,24 @@ class AuthorControllerITSpec extends Specification {
         result.andExpect(MockMvcResultMatchers.jsonPath('$.age').value(createdAuthorA.getAge()))
     }
 
+    def "FullUpdateAuthor returns HttpStatus 412 PRECONDITION FAILED for an outdated If-Match"() {
+        given: "a saved author whose entity tag is taken before it is renamed"
+        def createdAuthorA = authorService.createAuthor(TestDataUtil.createTestAuthorDtoA())
+        def eTag = mockMvc.perform(MockMvcRequestBuilders.get("/authors/${createdAuthorA.getId()}"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG)
+        authorService.updatePartialAuthor(createdAuthorA.getId(), new AuthorDto(null, "Renamed Author", null))
+
+        when: "a PUT request is made with the outdated entity tag"
+        def result = mockMvc.perform(MockMvcRequestBuilders.put("/authors/${createdAuthorA.getId()}")
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(TestDataUtil.createTestAuthorDtoB())))
+
+        then: "the update is rejected and the rename is kept"
+        result.andExpect(MockMvcResultMatchers.status().isPreconditionFailed())
+        authorService.findOneOrThrow(createdAuthorA.getId()).getName() == "Renamed Author"
+    }
+
     def "DeleteAuthor returns HttpStatus 204 NO CONTENT when author exists"() {
         given: "a new author is saved to the repository"
         def testAuthorDtoA = TestDataUtil.createTestAuthorDtoA()
@@ -278,4 +438,35 @@ class AuthorControllerITSpec extends Specification {
         then: "the response status is 204 NO CONTENT"
         result.andExpect(MockMvcResultMatchers.status().isNoContent())
     }
-}
\ No newline at end of file
+
+    def "#method #description costs #statements statements"() {
+        given: "a saved author with a book"
+        def savedAuthor = bookService.createBook("978-1-${UUID.randomUUID()}",
+                new BookDto(null, "Saved title", new AuthorDto(null, "Saved Author", 50))).getAuthor()
+
+        when: "the request is made, with the saved author's entity tag if it is conditional"
+        def request = MockMvcRequestBuilders.request(HttpMethod.valueOf(method), path.replace("ID", "${savedAuthor.getId()}"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body)
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch == "current" ? ETags.of(savedAuthor) : ifMatch)
+        }
+        def result = mockMvc.perform(request)
+
+        then: "the request is answered within its statement budget"
+        result.andExpect(MockMvcResultMatchers.status().is(status))
+        result.andExpect(executesExactly(statements))
+
+        where:
+        description                           | method   | path                | ifMatch   | body                                | status | statements
+        "an author"                           | "GET"    | "/authors/ID"       | null      | ""                                  | 200    | 1
+        "an author's books"                   | "GET"    | "/authors/ID/books" | null      | ""                                  | 200    | 1
+        "an author"                           | "POST"   | "/authors"          | null      | '{"name": "New Author", "age": 30}' | 201    | 1
+        "an author's name and age"            | "PUT"    | "/authors/ID"       | null      | '{"name": "Replaced", "age": 31}'   | 200    | 1
+        "an author's name"                    | "PATCH"  | "/authors/ID"       | null      | '{"name": "Renamed"}'               | 200    | 1
+        "an author's name if it is unchanged" | "PATCH"  | "/authors/ID"       | "current" | '{"name": "Renamed"}'               | 200    | 1
+        "an author's name if it is outdated"  | "PATCH"  | "/authors/ID"       | '"9"'     | '{"name": "Renamed"}'               | 412    | 2
+        "an author that does not exist"       | "PATCH"  | "/authors/0"        | null      | '{"name": "Renamed"}'               | 404    | 2
+        "an author that is already gone"      | "DELETE" | "/authors/0"        | null      | ""                                  | 204    | 1
+    }
+}
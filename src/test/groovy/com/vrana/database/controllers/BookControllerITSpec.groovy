@@ -2,22 +2,29 @@ package com.vrana.database.controllers
 
 import com.fasterxml.jackson.databind.ObjectMapper
 import com.vrana.database.TestDataUtil
+import com.vrana.database.domain.dto.AuthorDto
+import com.vrana.database.domain.dto.BookDto
 import com.vrana.database.services.BookService
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
 import org.springframework.boot.test.context.SpringBootTest
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpMethod
 import org.springframework.http.MediaType
 import org.springframework.test.web.servlet.MockMvc
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers
+import org.springframework.transaction.annotation.Propagation
 import org.springframework.transaction.annotation.Transactional
 import org.testcontainers.containers.PostgreSQLContainer
 import org.testcontainers.junit.jupiter.Container
 import org.testcontainers.junit.jupiter.Testcontainers
 import spock.lang.Specification
 
-@SpringBootTest
+import static com.vrana.database.StatementBudget.executesExactly
+
+@SpringBootTest(properties = "book-api.query-diagnostics.enabled=true")
 @AutoConfigureMockMvc
 @Testcontainers
 @Transactional
@@ -95,6 +102,526 @@ class BookControllerITSpec extends Specification {
         result.andExpect(MockMvcResultMatchers.jsonPath('$.content[0].title').value(testBookDtoA.getTitle()))
     }
 
+    def "ListBooks answers a matching If-None-Match with HttpStatus 304 NOT MODIFIED until a book changes"() {
+        given: "a saved book and the entity tag of the first page"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA()
+        bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA)
+        def eTag = mockMvc.perform(MockMvcRequestBuilders.get("/books"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG)
+
+        when: "the page is requested again with that entity tag"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/books").header(HttpHeaders.IF_NONE_MATCH, eTag))
+
+        then: "the response is 304 NOT MODIFIED without a body"
+        result.andExpect(MockMvcResultMatchers.status().isNotModified())
+        result.andExpect(MockMvcResultMatchers.content().string(""))
+
+        when: "the book is renamed and the page is requested with the same entity tag"
+        bookService.updatePartialBook(testBookDtoA.getIsbn(), new BookDto(null, "UPDATED", null))
+        result = mockMvc.perform(MockMvcRequestBuilders.get("/books").header(HttpHeaders.IF_NONE_MATCH, eTag))
+
+        then: "the changed page is returned with a new entity tag"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[0].title').value("UPDATED"))
+        result.andReturn().getResponse().getHeader(HttpHeaders.ETAG) != eTag
+    }
+
+    def "ListBooksByAuthor returns a page of the author's books ordered by isbn"() {
+        given: "two books by one author and one by another"
+        bookService.createBooks([
+                new BookDto("978-0-000003", "Third", new AuthorDto(null, "Ann Writer", 40)),
+                new BookDto("978-0-000001", "First", new AuthorDto(null, "Ann Writer", 40)),
+                new BookDto("978-0-000002", "Other", new AuthorDto(null, "Bob Writer", 50))
+        ].iterator())
+        def authorId = bookService.findOneOrThrow("978-0-000001").getAuthor().getId()
+
+        when: "a GET request is made for the books of the first author"
+        def result = mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors/$authorId/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+        )
+
+        then: "only that author's books are returned, ordered by isbn"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[*].isbn').value(["978-0-000001", "978-0-000003"]))
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[0].author.name').value("Ann Writer"))
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.totalElements').value(2))
+    }
+
+    def "ListBooksByAuthor returns HttpStatus 404 NOT FOUND when author does not exist"() {
+        when: "a GET request is made for the books of a missing author"
+        def result = mockMvc.perform(
+                MockMvcRequestBuilders.get("/authors/99999/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+        )
+
+        then: "the response status is 404 NOT FOUND"
+        result.andExpect(MockMvcResultMatchers.status().isNotFound())
+    }
+
+    def "#path loads a page of 100 books and their authors in #statements statements"() {
+        given: "100 books, each by a different author"
+        bookService.createBooks((0..<100).collect {
+            new BookDto(String.format("978-0-%06d", it), "Title $it", new AuthorDto(null, "Author $it", 30))
+        }.iterator())
+
+        when: "a GET request is made for a page of 100 books"
+        def result = mockMvc.perform(
+                MockMvcRequestBuilders.get(path)
+                        .param("size", "100")
+                        .contentType(MediaType.APPLICATION_JSON)
+        )
+
+        then: "every book is returned with its author"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content.length()').value(100))
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[99].author.name').exists())
+
+        and: "the number of statements does not grow with the number of authors"
+        result.andExpect(executesExactly(statements))
+
+        where:
+        path            | statements
+        "/books"        | 2
+        "/books/cursor" | 1
+    }
+
+    def "#method #description costs #statements statements"() {
+        given: "a saved book by a saved author"
+        def savedBook = bookService.createBook("978-0-000001",
+                new BookDto(null, "Saved title", new AuthorDto(null, "Saved Author", 50)))
+
+        when: "the request is made, with the saved book's entity tag if it is conditional"
+        def request = MockMvcRequestBuilders.request(HttpMethod.valueOf(method), path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body.replace("AUTHOR_ID", String.valueOf(savedBook.getAuthor().getId())))
+        if (ifMatch != null) {
+            request.header(HttpHeaders.IF_MATCH, ifMatch == "current" ? ETags.of(savedBook) : ifMatch)
+        }
+        def result = mockMvc.perform(request)
+
+        then: "the request is answered within its statement budget"
+        result.andExpect(MockMvcResultMatchers.status().is(status))
+        result.andExpect(executesExactly(statements))
+
+        where:
+        description                         | method   | path                  | ifMatch   | body                                                            | status | statements
+        "a book"                            | "GET"    | "/books/978-0-000001" | null      | ""                                                              | 200    | 1
+        "a book without an author"          | "POST"   | "/books/978-0-000002" | null      | '{"title": "New"}'                                              | 201    | 1
+        "a book by a new author"            | "POST"   | "/books/978-0-000002" | null      | '{"title": "New", "author": {"name": "New Author", "age": 30}}' | 201    | 1
+        "a book by an existing author"      | "POST"   | "/books/978-0-000002" | null      | '{"title": "New", "author": {"id": AUTHOR_ID}}'                 | 201    | 1
+        "a book whose isbn is taken"        | "POST"   | "/books/978-0-000001" | null      | '{"title": "New"}'                                              | 409    | 2
+        "a book without its author"         | "PUT"    | "/books/978-0-000001" | null      | '{"title": "Replaced"}'                                         | 200    | 1
+        "a book's title"                    | "PATCH"  | "/books/978-0-000001" | null      | '{"title": "Renamed"}'                                          | 200    | 1
+        "a book's title if it is unchanged" | "PATCH"  | "/books/978-0-000001" | "current" | '{"title": "Renamed"}'                                          | 200    | 1
+        "a book's title if it is outdated"  | "PATCH"  | "/books/978-0-000001" | '"0"'     | '{"title": "Renamed"}'                                          | 412    | 2
+        "a book and its author"             | "DELETE" | "/books/978-0-000001" | null      | ""                                                              | 204    | 1
+    }
+
+    def "ListBooksByCursor returns the first page with a next cursor and no prev cursor"() {
+        given: "three books are saved to the repository"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(null)
+        def testBookDtoB = TestDataUtil.createTestBookDtoB(null)
+        def testBookDtoC = TestDataUtil.createTestBookDtoB(null)
+        testBookDtoC.setIsbn("978-1-2345-6789-2")
+        [testBookDtoA, testBookDtoB, testBookDtoC].each { bookService.createBook(it.getIsbn(), it) }
+
+        when: "a GET request is made to retrieve the first cursor page of two books"
+        def result = mockMvc.perform(
+                MockMvcRequestBuilders.get("/books/cursor")
+                        .param("size", "2")
+                        .contentType(MediaType.APPLICATION_JSON)
+        )
+
+        then: "the page holds the first two books in isbn order"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.size').value(2))
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[0].isbn').value(testBookDtoA.getIsbn()))
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[1].isbn').value(testBookDtoB.getIsbn()))
+
+        and: "only a next cursor is returned"
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.next').isString())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.prev').doesNotExist())
+    }
+
+    def "ListBooksByCursor follows the next cursor and returns back with the prev cursor"() {
+        given: "three books are saved to the repository"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(null)
+        def testBookDtoB = TestDataUtil.createTestBookDtoB(null)
+        def testBookDtoC = TestDataUtil.createTestBookDtoB(null)
+        testBookDtoC.setIsbn("978-1-2345-6789-2")
+        [testBookDtoA, testBookDtoB, testBookDtoC].each { bookService.createBook(it.getIsbn(), it) }
+
+        and: "the next cursor of the first page of two books"
+        def firstPage = objectMapper.readTree(mockMvc.perform(
+                MockMvcRequestBuilders.get("/books/cursor").param("size", "2")
+        ).andReturn().getResponse().getContentAsString())
+
+        when: "a GET request is made with the next cursor"
+        def secondPage = objectMapper.readTree(mockMvc.perform(
+                MockMvcRequestBuilders.get("/books/cursor").param("size", "2").param("cursor", firstPage.get("next").asText())
+        ).andReturn().getResponse().getContentAsString())
+
+        and: "a GET request is made with the prev cursor of that page"
+        def previousPage = objectMapper.readTree(mockMvc.perform(
+                MockMvcRequestBuilders.get("/books/cursor").param("size", "2").param("cursor", secondPage.get("prev").asText())
+        ).andReturn().getResponse().getContentAsString())
+
+        then: "the second page holds the last book and no next cursor"
+        secondPage.get("content")*.get("isbn")*.asText() == [testBookDtoC.getIsbn()]
+        secondPage.get("next").isNull()
+
+        and: "the prev cursor leads back to the first page"
+        previousPage.get("content")*.get("isbn")*.asText() == [testBookDtoA.getIsbn(), testBookDtoB.getIsbn()]
+        previousPage.get("prev").isNull()
+    }
+
+    def "ListBooksByCursor returns a next cursor to the first page when the books before a prev cursor are gone"() {
+        given: "three books are saved to the repository"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(null)
+        def testBookDtoB = TestDataUtil.createTestBookDtoB(null)
+        def testBookDtoC = TestDataUtil.createTestBookDtoB(null)
+        testBookDtoC.setIsbn("978-1-2345-6789-2")
+        [testBookDtoA, testBookDtoB, testBookDtoC].each { bookService.createBook(it.getIsbn(), it) }
+
+        and: "the second page of two books, after which the books of the first page are deleted"
+        def firstPage = objectMapper.readTree(mockMvc.perform(
+                MockMvcRequestBuilders.get("/books/cursor").param("size", "2")
+        ).andReturn().getResponse().getContentAsString())
+        def secondPage = objectMapper.readTree(mockMvc.perform(
+                MockMvcRequestBuilders.get("/books/cursor").param("size", "2").param("cursor", firstPage.get("next").asText())
+        ).andReturn().getResponse().getContentAsString())
+        [testBookDtoA, testBookDtoB].each { bookService.delete(it.getIsbn()) }
+
+        when: "a GET request is made with the prev cursor of the second page"
+        def emptyPage = objectMapper.readTree(mockMvc.perform(
+                MockMvcRequestBuilders.get("/books/cursor").param("size", "2").param("cursor", secondPage.get("prev").asText())
+        ).andReturn().getResponse().getContentAsString())
+
+        and: "a GET request is made with the next cursor of that page"
+        def restartedPage = objectMapper.readTree(mockMvc.perform(
+                MockMvcRequestBuilders.get("/books/cursor").param("size", "2").param("cursor", emptyPage.get("next").asText())
+        ).andReturn().getResponse().getContentAsString())
+
+        then: "the prev cursor returns an empty page without a prev cursor"
+        emptyPage.get("content").isEmpty()
+        emptyPage.get("prev").isNull()
+
+        and: "its next cursor leads to the first page, which holds the remaining book"
+        restartedPage.get("content")*.get("isbn")*.asText() == [testBookDtoC.getIsbn()]
+        restartedPage.get("next").isNull()
+        restartedPage.get("prev").isNull()
+    }
+
+    def "ListBooksByCursor orders by title when requested"() {
+        given: "two books whose title order differs from their isbn order"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(null)
+        def testBookDtoB = TestDataUtil.createTestBookDtoB(null)
+        [testBookDtoA, testBookDtoB].each { bookService.createBook(it.getIsbn(), it) }
+
+        when: "a GET request is made to retrieve the first cursor page sorted by title"
+        def result = mockMvc.perform(
+                MockMvcRequestBuilders.get("/books/cursor")
+                        .param("sort", "TITLE")
+                        .contentType(MediaType.APPLICATION_JSON)
+        )
+
+        then: "the books are ordered by title"
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[0].title').value(testBookDtoB.getTitle()))
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[1].title').value(testBookDtoA.getTitle()))
+    }
+
+    def "ListBooksByCursor returns HttpStatus 400 BAD REQUEST for a malformed cursor"() {
+        when: "a GET request is made with a cursor that was not issued by the API"
+        def result = mockMvc.perform(
+                MockMvcRequestBuilders.get("/books/cursor")
+                        .param("cursor", "not-a-cursor")
+                        .contentType(MediaType.APPLICATION_JSON)
+        )
+
+        then: "the response status is 400 BAD REQUEST"
+        result.andExpect(MockMvcResultMatchers.status().isBadRequest())
+    }
+
+    def "SearchBooks ranks title matches above author name matches"() {
+        given: "a book with the word in its title, a book by an author with the word in the name and an unrelated book"
+        def titleMatch = TestDataUtil.createTestBookDtoB(TestDataUtil.createTestAuthorDtoA())
+        def authorMatch = new BookDto("978-0-0000-0000-1", "Rivers of Stone", new AuthorDto(null, "Horizon Walker", 51))
+        def unrelated = TestDataUtil.createTestBookDtoA()
+        [titleMatch, authorMatch, unrelated].each { bookService.createBook(it.getIsbn(), it) }
+
+        when: "the books are searched for the word"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "horizon"))
+
+        then: "both matches are returned, the title match first"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content.length()').value(2))
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[0].title').value(titleMatch.getTitle()))
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[1].author.name').value("Horizon Walker"))
+    }
+
+    def "SearchBooks matches a query whose words span the title and the author's name"() {
+        given: "a book whose title has one word of the query and whose author's name has the other"
+        def book = new BookDto("978-0-0000-0000-2", "The Hobbit", new AuthorDto(null, "John Tolkien", 81))
+        def sameTitle = new BookDto("978-0-0000-0000-3", "Hobbit Tales", new AuthorDto(null, "Other Writer", 40))
+        [book, sameTitle].each { bookService.createBook(it.getIsbn(), it) }
+
+        when: "the books are searched for both words"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "hobbit tolkien"))
+
+        then: "only the book matching both words in either field is returned"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[*].isbn').value([book.getIsbn()]))
+    }
+
+    def "SearchBooks finds the books of a renamed author by the new name only"() {
+        given: "a book by a saved author"
+        def savedBook = bookService.createBook("978-0-0000-0000-4",
+                new BookDto(null, "Rivers of Stone", new AuthorDto(null, "Horizon Walker", 51)))
+
+        when: "the author is renamed"
+        mockMvc.perform(MockMvcRequestBuilders.patch("/authors/${savedBook.getAuthor().getId()}")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"name": "Meadow Walker"}'))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+
+        then: "the book is found by the new name and no longer by the old one"
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "meadow"))
+                .andExpect(MockMvcResultMatchers.jsonPath('$.content[*].isbn').value([savedBook.getIsbn()]))
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "horizon"))
+                .andExpect(MockMvcResultMatchers.jsonPath('$.content.length()').value(0))
+    }
+
+    def "SearchBooks finds a book despite a typo in the query"() {
+        given: "a saved book"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA()
+        bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA)
+
+        when: "the books are searched with a misspelled title word"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "shadw"))
+
+        then: "the book is found by similarity"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[0].isbn').value(testBookDtoA.getIsbn()))
+    }
+
+    def "SearchBooks ranks every match, ordering books of equal rank by isbn"() {
+        given: "more matching books than a page can hold many times over, all of equal rank"
+        bookService.createBooks((1..530).collect {
+            new BookDto(String.format("978-9-%06d", it), "Common Ground", new AuthorDto(null, "Field Writer", 40))
+        }.iterator())
+
+        when: "the page holding the last matches is requested"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/books/search")
+                .param("q", "common ground")
+                .param("page", "26")
+                .param("size", "20"))
+
+        then: "it holds the books with the highest isbns, in order, and no further page follows"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.content[*].isbn')
+                .value((521..530).collect { String.format("978-9-%06d", it) }))
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.last').value(true))
+    }
+
+    def "SearchBooks returns HttpStatus 400 BAD REQUEST without a query"() {
+        when: "a search is requested without the q parameter"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/books/search"))
+
+        then: "the response status is 400 BAD REQUEST"
+        result.andExpect(MockMvcResultMatchers.status().isBadRequest())
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    def "ExportBooks streams every book as newline-delimited JSON"() {
+        given: "a new book is saved to the repository outside of the test transaction"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(null)
+        bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA)
+
+        when: "a GET request is made to export all books"
+        def asyncResult = mockMvc.perform(MockMvcRequestBuilders.get("/books/export"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn()
+        def result = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(asyncResult))
+
+        then: "the response is NDJSON with one line per book"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.content().contentType("application/x-ndjson"))
+        def lines = result.andReturn().getResponse().getContentAsString().readLines()
+        lines.collect { objectMapper.readValue(it, BookDto) } == [testBookDtoA]
+
+        cleanup: "the committed book is removed again"
+        bookService.delete(testBookDtoA.getIsbn())
+    }
+
+    def "CreateBooks imports a JSON array and reports the outcome of every book"() {
+        given: "a book that already exists"
+        def existingBook = TestDataUtil.createTestBookDtoA(null)
+        bookService.createBook(existingBook.getIsbn(), existingBook)
+
+        and: "two new books by the same new author, an existing, an invalid, a repeated and an orphaned book"
+        def newBookB = TestDataUtil.createTestBookDtoB(TestDataUtil.createTestAuthorDtoA())
+        def newBookC = new BookDto("978-1-2345-6789-2", "The Last Ember", TestDataUtil.createTestAuthorDtoA())
+        def invalidBook = new BookDto("978-1-2345-6789-3", " ", null)
+        def orphanedBook = new BookDto("978-1-2345-6789-4", "Lost Pages",
+                new AuthorDto(Long.MAX_VALUE, "Nobody", 1))
+        def booksJson = objectMapper.writeValueAsString(
+                [newBookB, existingBook, invalidBook, newBookC, newBookB, orphanedBook])
+
+        when: "a POST request is made to import the books"
+        def result = mockMvc.perform(
+                MockMvcRequestBuilders.post("/books/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(booksJson)
+        )
+
+        then:
+        verifyAll {
+            "the response status is 200 OK"
+            result.andExpect(MockMvcResultMatchers.status().isOk())
+
+            "every book is reported in request order"
+            result.andExpect(MockMvcResultMatchers.jsonPath('$.created').value(2))
+            result.andExpect(MockMvcResultMatchers.jsonPath('$.rejected').value(4))
+            result.andExpect(MockMvcResultMatchers.jsonPath('$.rows[*].status').value(
+                    ["CREATED", "CONFLICT", "INVALID", "CREATED", "CONFLICT", "AUTHOR_NOT_FOUND"]))
+            result.andExpect(MockMvcResultMatchers.jsonPath('$.rows[2].message').value("Title cannot be blank"))
+        }
+
+        and: "both new books reference a single new author"
+        def authorOfB = bookService.findOneOrThrow(newBookB.getIsbn()).getAuthor()
+        def authorOfC = bookService.findOneOrThrow(newBookC.getIsbn()).getAuthor()
+        authorOfB.getId() != null
+        authorOfB == authorOfC
+    }
+
+    def "CreateBooks accepts an NDJSON stream"() {
+        given: "two books as newline-delimited JSON"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(null)
+        def testBookDtoB = TestDataUtil.createTestBookDtoB(null)
+        def booksNdjson = [testBookDtoA, testBookDtoB].collect { objectMapper.writeValueAsString(it) }.join("\n")
+
+        when: "a POST request is made to import the books"
+        def result = mockMvc.perform(
+                MockMvcRequestBuilders.post("/books/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(booksNdjson)
+        )
+
+        then: "both books are created"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.created').value(2))
+        bookService.findOneOrThrow(testBookDtoB.getIsbn()).getTitle() == testBookDtoB.getTitle()
+    }
+
+    def "CreateBooks makes the imported books searchable by their title and their author's name"() {
+        given: "a saved author, and books of the saved author and of a new one as newline-delimited JSON"
+        def savedAuthor = bookService.createBook("978-0-0000-0001-0",
+                new BookDto(null, "Open Fields", new AuthorDto(null, "Willow Harper", 45))).getAuthor()
+        def ofSaved = new BookDto("978-0-0000-0001-1", "Lanterns Below", new AuthorDto(savedAuthor.getId(), null, null))
+        def ofNew = new BookDto("978-0-0000-0001-2", "Quiet Harbours", new AuthorDto(null, "Cedric Holloway", 60))
+        def booksNdjson = [ofSaved, ofNew].collect { objectMapper.writeValueAsString(it) }.join("\n")
+
+        when: "a POST request is made to import the books"
+        mockMvc.perform(MockMvcRequestBuilders.post("/books/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(booksNdjson))
+                .andExpect(MockMvcResultMatchers.jsonPath('$.created').value(2))
+
+        then: "every book is found by its title together with its author's name"
+        [["lanterns willow", ofSaved], ["harbours holloway", ofNew]].each { query, book ->
+            mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", query))
+                    .andExpect(MockMvcResultMatchers.jsonPath('$.content[*].isbn').value([book.getIsbn()]))
+        }
+    }
+
+    def "CreateBooks returns HttpStatus 400 BAD REQUEST for a malformed body"() {
+        when: "a POST request is made with a body that is not JSON"
+        def result = mockMvc.perform(
+                MockMvcRequestBuilders.post("/books/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content('[{"isbn": "978-1-2345-6789-0", "title": ')
+        )
+
+        then: "the response status is 400 BAD REQUEST"
+        result.andExpect(MockMvcResultMatchers.status().isBadRequest())
+    }
+
+    def "CreateBooks imports the books before a malformed one and reports where it stopped"() {
+        given: "two books, a malformed one and another book as newline-delimited JSON"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(null)
+        def testBookDtoB = TestDataUtil.createTestBookDtoB(null)
+        def testBookDtoC = new BookDto("978-1-2345-6789-2", "The Last Ember", null)
+        def booksNdjson = [objectMapper.writeValueAsString(testBookDtoA), objectMapper.writeValueAsString(testBookDtoB),
+                           '{"isbn": "978-1-2345-6789-3", "title": }', objectMapper.writeValueAsString(testBookDtoC)]
+                .join("\n")
+
+        when: "a POST request is made to import the books"
+        def result = mockMvc.perform(
+                MockMvcRequestBuilders.post("/books/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(booksNdjson)
+        )
+
+        then:
+        verifyAll {
+            "the response status is 200 OK"
+            result.andExpect(MockMvcResultMatchers.status().isOk())
+
+            "the books before the malformed one are reported, and the malformed one at its position"
+            result.andExpect(MockMvcResultMatchers.jsonPath('$.created').value(2))
+            result.andExpect(MockMvcResultMatchers.jsonPath('$.rejected').value(1))
+            result.andExpect(MockMvcResultMatchers.jsonPath('$.rows[*].status').value(["CREATED", "CREATED", "UNREADABLE"]))
+            result.andExpect(MockMvcResultMatchers.jsonPath('$.rows[2].index').value(2))
+        }
+
+        and: "the books before it are imported and the one after it is not"
+        bookService.findOneOrThrow(testBookDtoB.getIsbn()).getTitle() == testBookDtoB.getTitle()
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + testBookDtoC.getIsbn()))
+                .andExpect(MockMvcResultMatchers.status().isNotFound())
+    }
+
+    def "LookupBooks returns the found books in request order and the missing isbns with one statement"() {
+        given: "two saved books, one of them with an author"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(TestDataUtil.createTestAuthorDtoA())
+        def testBookDtoB = TestDataUtil.createTestBookDtoB(null)
+        bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA)
+        bookService.createBook(testBookDtoB.getIsbn(), testBookDtoB)
+
+        when: "the books are looked up together with an unknown and a repeated isbn"
+        def result = mockMvc.perform(MockMvcRequestBuilders.post("/books/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        [isbns: [testBookDtoB.getIsbn(), "NON-EXISTING-BOOK", testBookDtoA.getIsbn(), testBookDtoB.getIsbn()]])))
+
+        then: "the books are returned in request order, once each, with the author"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.books[*].isbn').value([testBookDtoB.getIsbn(), testBookDtoA.getIsbn()]))
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.books[1].author.name').value(testBookDtoA.getAuthor().getName()))
+
+        and: "the unknown isbn is reported as missing"
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.missing').value(["NON-EXISTING-BOOK"]))
+
+        and: "all books and authors were read by a single statement"
+        result.andExpect(executesExactly(1))
+    }
+
+    def "LookupBooks returns HttpStatus 400 BAD REQUEST for #description"() {
+        when: "a lookup is requested with an invalid list of isbns"
+        def result = mockMvc.perform(MockMvcRequestBuilders.post("/books/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString([isbns: isbns])))
+
+        then: "the response status is 400 BAD REQUEST"
+        result.andExpect(MockMvcResultMatchers.status().isBadRequest())
+
+        where:
+        description      | isbns
+        "no isbns"       | []
+        "a blank isbn"   | ["978-1-2345-6789-0", " "]
+        "too many isbns" | (0..1000).collect { "isbn-$it" }
+    }
+
     def "GetBook returns HttpStatus 200 OK when book exists"() {
         given: "a new book is saved to the repository"
         def testBookDtoA = TestDataUtil.createTestBookDtoA()
@@ -137,6 +664,45 @@ class BookControllerITSpec extends Specification {
         result.andExpect(MockMvcResultMatchers.jsonPath('$.title').value(createdBookA.getTitle()))
     }
 
+    def "GetBook answers a matching If-None-Match with HttpStatus 304 NOT MODIFIED and no body"() {
+        given: "a saved book and the entity tag of its first retrieval"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA()
+        bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA)
+        def eTag = mockMvc.perform(MockMvcRequestBuilders.get("/books/${testBookDtoA.getIsbn()}"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG)
+
+        when: "the book is requested again with that entity tag"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/books/${testBookDtoA.getIsbn()}")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+
+        then: "the response is 304 NOT MODIFIED with the same entity tag and no body"
+        eTag != null
+        result.andExpect(MockMvcResultMatchers.status().isNotModified())
+        result.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, eTag))
+        result.andExpect(MockMvcResultMatchers.content().string(""))
+    }
+
+    def "GetBook returns the book again once only its author has changed"() {
+        given: "a saved book and the entity tag of its first retrieval"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(TestDataUtil.createTestAuthorDtoA())
+        def author = bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA).getAuthor()
+        def eTag = mockMvc.perform(MockMvcRequestBuilders.get("/books/${testBookDtoA.getIsbn()}"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG)
+
+        when: "the author embedded in the book is renamed"
+        bookService.updatePartialBook(testBookDtoA.getIsbn(),
+                new BookDto(null, null, new AuthorDto(author.getId(), "Renamed Author", author.getAge())))
+
+        and: "the book is requested with the old entity tag"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/books/${testBookDtoA.getIsbn()}")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag))
+
+        then: "the book is returned with the renamed author and a new entity tag"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.author.name').value("Renamed Author"))
+        result.andReturn().getResponse().getHeader(HttpHeaders.ETAG) != eTag
+    }
+
     def "FullUpdateBook returns HttpStatus 200 OK when book exists"() {
         given: "a new book is saved to the repository"
         def testBookDtoA = TestDataUtil.createTestBookDtoA()
@@ -255,6 +821,34 @@ class BookControllerITSpec extends Specification {
     }
 
 
+    def "PartialUpdateBook with If-Match applies only the first of two updates based on the same entity tag"() {
+        given: "a saved book and the entity tag of its retrieval"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA()
+        bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA)
+        def eTag = mockMvc.perform(MockMvcRequestBuilders.get("/books/${testBookDtoA.getIsbn()}"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG)
+
+        when: "a PATCH request is made with that entity tag"
+        def first = mockMvc.perform(MockMvcRequestBuilders.patch("/books/${testBookDtoA.getIsbn()}")
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"title": "FIRST"}'))
+
+        and: "a second PATCH request is made with the same, now outdated, entity tag"
+        def second = mockMvc.perform(MockMvcRequestBuilders.patch("/books/${testBookDtoA.getIsbn()}")
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"title": "SECOND"}'))
+
+        then: "the first update succeeds with a new entity tag"
+        first.andExpect(MockMvcResultMatchers.status().isOk())
+        first.andReturn().getResponse().getHeader(HttpHeaders.ETAG) != eTag
+
+        and: "the second is rejected with 412 PRECONDITION FAILED and does not overwrite the first"
+        second.andExpect(MockMvcResultMatchers.status().isPreconditionFailed())
+        bookService.findOneOrThrow(testBookDtoA.getIsbn()).getTitle() == "FIRST"
+    }
+
     def "DeleteBook returns HttpStatus 204 NO CONTENT when book exists"() {
         given: "a new book is saved to the repository"
         def testBookDtoA = TestDataUtil.createTestBookDtoA()
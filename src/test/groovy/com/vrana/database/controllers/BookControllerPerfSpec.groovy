@@ -0,0 +1,221 @@
+package com.vrana.database.controllers
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.vrana.database.domain.dto.AuthorDto
+import com.vrana.database.domain.dto.BookDto
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.http.MediaType
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Tag
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * Latency and throughput checks against a large seeded table. Excluded from the regular test run,
+ * execute with {@code ./gradlew perfTest}; the table size can be raised with
+ * {@code -Dperf.books=5000000}. The ingest target is the rate measured on a single core shared
+ * with the database, where the triggers of every inserted book bound it, and can be raised for
+ * a larger host with {@code -Dperf.minBooksPerSecond}; the search target is adjusted with
+ * {@code -Dperf.maxSearchP99Millis}.
+ */
+@Tag("perf")
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@AutoConfigureMockMvc
+@Testcontainers
+class BookControllerPerfSpec extends Specification {
+
+    private static final int BOOKS = Integer.getInteger("perf.books", 1_000_000)
+
+    private static final int PAGE_SIZE = 20
+
+    private static final int DEEP_PAGE = 10_000
+
+    private static final int BATCH_BOOKS = Integer.getInteger("perf.batchBooks", 200_000)
+
+    private static final int MIN_BOOKS_PER_SECOND = Integer.getInteger("perf.minBooksPerSecond", 8_500)
+
+    private static final int SEARCHES = 300
+
+    private static final int MAX_SEARCH_P99_MILLIS = Integer.getInteger("perf.maxSearchP99Millis", 20)
+
+    // Titles and author names are drawn from 4096 pseudo-words of three syllables, so a
+    // word occurs in about one of every 1400 titles whatever the table size.
+    private static final List<String> SYLLABLES = ["ka", "lo", "mi", "ra", "ven", "tor", "sil", "dun",
+                                                   "bel", "mar", "quin", "zor", "pel", "fin", "gad", "hul"]
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private MockMvc mockMvc
+
+    @Autowired
+    private ObjectMapper objectMapper
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    @Shared
+    private boolean catalogSeeded
+
+    def "cursor page 10,000 is served as fast as page 1"() {
+        given: "a books table seeded with a large number of rows"
+        seedCatalog()
+
+        and: "the cursor of page 10,000, reached by walking the next cursors"
+        String deepCursor = null
+        (DEEP_PAGE - 1).times {
+            deepCursor = fetchPage(deepCursor).get("next").asText()
+        }
+
+        when: "page 1 and page 10,000 are requested repeatedly"
+        def firstPageLatencies = []
+        def deepPageLatencies = []
+        200.times {
+            firstPageLatencies << timed { fetchPage(null) }
+            deepPageLatencies << timed { fetchPage(deepCursor) }
+        }
+
+        and: "the same depth is requested through offset pagination for comparison"
+        def offsetLatencies = (1..20).collect {
+            timed {
+                mockMvc.perform(MockMvcRequestBuilders.get("/books")
+                        .param("page", "${DEEP_PAGE - 1}")
+                        .param("size", "$PAGE_SIZE"))
+            }
+        }
+
+        then: "page 10,000 is served within the noise of page 1"
+        def firstPage = median(firstPageLatencies)
+        def deepPage = median(deepPageLatencies)
+        println String.format("cursor page 1: %.3f ms, cursor page %d: %.3f ms, offset page %d: %.3f ms",
+                firstPage / 1e6, DEEP_PAGE, deepPage / 1e6, DEEP_PAGE, median(offsetLatencies) / 1e6)
+        deepPage <= firstPage * 2 + 1_000_000
+    }
+
+    def "batch import clears the ingest rate target"() {
+        given: "an NDJSON feed of new books spread over a thousand new authors"
+        def feed = new StringBuilder()
+        BATCH_BOOKS.times { i ->
+            feed << objectMapper.writeValueAsString(new BookDto("batch-$i", "Batch title $i",
+                    new AuthorDto(null, "Batch author ${i % 1000}", 40))) << "\n"
+        }
+        def body = feed.toString().getBytes(StandardCharsets.UTF_8)
+
+        when: "the feed is posted to the batch endpoint"
+        def result = null
+        def elapsed = timed {
+            result = mockMvc.perform(MockMvcRequestBuilders.post("/books/batch")
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content(body))
+        }
+        result.andExpect(MockMvcResultMatchers.jsonPath('$.created').value(BATCH_BOOKS))
+
+        then: "the ingest rate clears the target"
+        def booksPerSecond = BATCH_BOOKS / (elapsed / 1e9)
+        println String.format("batch import: %d books in %.0f ms, %.0f books/s", BATCH_BOOKS, elapsed / 1e6, booksPerSecond)
+        booksPerSecond > MIN_BOOKS_PER_SECOND
+    }
+
+    def "ranked search stays within the p99 target"() {
+        given: "the seeded catalog and queries taken from it: title words, word pairs and author names"
+        seedCatalog()
+        def random = new Random(42)
+        def titles = jdbcTemplate.queryForList("SELECT title FROM books TABLESAMPLE SYSTEM (1) LIMIT 1000", String)
+        def names = jdbcTemplate.queryForList("SELECT name FROM authors TABLESAMPLE SYSTEM (5) LIMIT 1000", String)
+        def queries = (1..SEARCHES).collect {
+            switch (it % 3) {
+                case 0: return titles[random.nextInt(titles.size())].split(" ")[random.nextInt(3)]
+                case 1: return titles[random.nextInt(titles.size())].split(" ").take(2).join(" ")
+                default: return names[random.nextInt(names.size())]
+            }
+        }
+
+        and: "misspelled title words that only the spelling correction finds"
+        def typos = (1..SEARCHES.intdiv(3)).collect {
+            def word = titles[random.nextInt(titles.size())].split(" ")[1]
+            word.substring(0, 2) + word.substring(3)
+        }
+
+        when: "the first page of every query is searched after a warm-up pass over all of them"
+        (queries + typos).each { search(it) }
+        def latencies = queries.collect { query -> timed { search(query) } }
+        def typoLatencies = typos.collect { query -> timed { search(query) } }
+
+        then: "the 99th percentile of all searches is within the target"
+        println String.format("search p50: %.3f ms, p99: %.3f ms; typo search p50: %.3f ms, p99: %.3f ms",
+                percentile(latencies, 50) / 1e6, percentile(latencies, 99) / 1e6,
+                percentile(typoLatencies, 50) / 1e6, percentile(typoLatencies, 99) / 1e6)
+        percentile(latencies + typoLatencies, 99) <= MAX_SEARCH_P99_MILLIS * 1_000_000L
+    }
+
+    // Seeds the tables once for all features: BOOKS books by BOOKS / 10 authors.
+    private void seedCatalog() {
+        if (catalogSeeded) {
+            return
+        }
+        jdbcTemplate.update("""
+                INSERT INTO authors (name, age)
+                SELECT initcap(${word("hashint4(-2 * i)")}) || ' ' || initcap(${word("hashint4(-2 * i - 1)")}),
+                       20 + i % 60
+                FROM generate_series(1, ?) AS i""", BOOKS.intdiv(10))
+        jdbcTemplate.update("""
+                INSERT INTO books (isbn, title, author_id)
+                SELECT lpad(i::text, 13, '0'),
+                       initcap(${word("hashint4(3 * i)")}) || ' ' || ${word("hashint4(3 * i + 1)")}
+                           || ' ' || ${word("hashint4(3 * i + 2)")},
+                       (SELECT min(id) FROM authors) + i % ?
+                FROM generate_series(1, ?) AS i""", BOOKS.intdiv(10), BOOKS)
+        // vacuumed as well, which also merges the pending entries of the search index that
+        // every search would otherwise scan, and leaves autovacuum nothing to do while measuring
+        jdbcTemplate.execute("VACUUM ANALYZE books")
+        jdbcTemplate.execute("VACUUM ANALYZE authors")
+        catalogSeeded = true
+    }
+
+    // SQL expression of the pseudo-word picked by the bits of a hash
+    private static String word(String hash) {
+        def syllable = { int shift -> "(ARRAY['${SYLLABLES.join("','")}'])[1 + ($hash >> $shift & 15)]" }
+        "${syllable(0)} || ${syllable(4)} || ${syllable(8)}"
+    }
+
+    private search(String query) {
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", query))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+    }
+
+    private fetchPage(String cursor) {
+        def request = MockMvcRequestBuilders.get("/books/cursor").param("size", "$PAGE_SIZE")
+        if (cursor != null) {
+            request.param("cursor", cursor)
+        }
+        objectMapper.readTree(mockMvc.perform(request).andReturn().getResponse().getContentAsString())
+    }
+
+    private static long timed(Closure action) {
+        long start = System.nanoTime()
+        action()
+        System.nanoTime() - start
+    }
+
+    private static long median(List<Long> latencies) {
+        percentile(latencies, 50)
+    }
+
+    private static long percentile(List<Long> latencies, int percent) {
+        def sorted = latencies.sort(false)
+        sorted[Math.min(sorted.size() - 1, (sorted.size() * percent).intdiv(100))]
+    }
+}
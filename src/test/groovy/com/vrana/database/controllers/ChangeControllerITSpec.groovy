@@ -0,0 +1,288 @@
+package com.vrana.database.controllers
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.vrana.database.domain.dto.AuthorDto
+import com.vrana.database.domain.dto.BookDto
+import com.vrana.database.domain.dto.ChangeDto
+import com.vrana.database.domain.dto.ChangeFeedDto
+import com.vrana.database.repositories.ChangeLogRepository
+import com.vrana.database.services.AuthorService
+import com.vrana.database.services.BookService
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.MvcResult
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Specification
+
+import javax.sql.DataSource
+import java.time.Duration
+
+@SpringBootTest(properties = ["book-api.changes.poll-interval=50ms", "book-api.changes.compaction-interval=1h"])
+@AutoConfigureMockMvc
+@Testcontainers
+class ChangeControllerITSpec extends Specification {
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private MockMvc mockMvc
+
+    @Autowired
+    private ObjectMapper objectMapper
+
+    @Autowired
+    private BookService bookService
+
+    @Autowired
+    private AuthorService authorService
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository
+
+    @Autowired
+    private DataSource dataSource
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "ListChanges returns every create, update and delete in the order they were made"() {
+        given: "the cursor of the latest change"
+        def head = latestCursor()
+
+        when: "an author and a book of the author are created, the book is renamed and deleted with its author"
+        def author = authorService.createAuthor(new AuthorDto(null, "Ann Writer", 40))
+        bookService.createBook("978-2-000001", new BookDto("978-2-000001", "First", author))
+        bookService.updatePartialBook("978-2-000001", new BookDto(null, "Renamed", null))
+        bookService.delete("978-2-000001")
+
+        and: "the changes after the cursor are requested"
+        def feed = changes(head)
+
+        then: "the changes are listed in order, the deletes of one statement in either order"
+        def listed = feed.changes.collect { [it.entity, it.key, it.operation] }
+        listed.take(3) == [[ChangeDto.Entity.AUTHOR, "$author.id", ChangeDto.Operation.UPSERT],
+                           [ChangeDto.Entity.BOOK, "978-2-000001", ChangeDto.Operation.UPSERT],
+                           [ChangeDto.Entity.BOOK, "978-2-000001", ChangeDto.Operation.UPSERT]]
+        listed.drop(3) as Set == [[ChangeDto.Entity.BOOK, "978-2-000001", ChangeDto.Operation.DELETE],
+                                  [ChangeDto.Entity.AUTHOR, "$author.id", ChangeDto.Operation.DELETE]] as Set
+
+        and: "the versions follow the book"
+        feed.changes[1].version == 0
+        feed.changes[2].version == 1
+
+        when: "the changes after the returned cursor are requested"
+        def rest = changes(feed.next)
+
+        then: "there are none and the cursor stays"
+        rest.changes.isEmpty()
+        rest.next == feed.next
+    }
+
+    def "ListChanges with a limit continues where the previous request stopped"() {
+        given: "three new authors after the cursor of the latest change"
+        def head = latestCursor()
+        def ids = (1..3).collect { authorService.createAuthor(new AuthorDto(null, "Author $it", 30)).id }
+
+        when: "the changes are requested two at a time"
+        def first = changes(head, 2)
+        def second = changes(first.next, 2)
+
+        then: "every author is listed once, in order"
+        (first.changes + second.changes)*.key == ids*.toString()
+        first.changes.size() == 2
+    }
+
+    def "ListChanges does not skip a change of a transaction that commits after a later one"() {
+        given: "the cursor of the latest change and a transaction that has written an author but not committed"
+        def head = latestCursor()
+        def connection = dataSource.getConnection()
+        connection.autoCommit = false
+        connection.createStatement().execute("INSERT INTO authors (name, age) VALUES ('Slow Writer', 50)")
+
+        and: "an author written by a transaction that started later and committed"
+        def fast = authorService.createAuthor(new AuthorDto(null, "Fast Writer", 30))
+
+        when: "the changes are requested while the first transaction is still open"
+        def whileOpen = changes(head)
+
+        then: "none is returned yet"
+        whileOpen.changes.isEmpty()
+
+        when: "the first transaction commits and the changes are requested again"
+        connection.commit()
+        def afterCommit = changes(head)
+
+        then: "both are returned, the one of the earlier transaction first"
+        afterCommit.changes.size() == 2
+        afterCommit.changes[1].key == "$fast.id"
+
+        cleanup:
+        connection.close()
+    }
+
+    def "ListChanges waits for the next change when there is none"() {
+        given: "a request for the changes after the latest one"
+        def head = latestCursor()
+        MvcResult pending = mockMvc.perform(MockMvcRequestBuilders.get("/changes")
+                .param("since", head)
+                .param("wait", "10"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn()
+
+        when: "an author is created while the request waits"
+        Thread.sleep(200)
+        def author = authorService.createAuthor(new AuthorDto(null, "Late Writer", 30))
+
+        and: "the request completes"
+        def feed = objectMapper.readValue(mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(pending))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString(), ChangeFeedDto)
+
+        then: "it returns the new author"
+        feed.changes*.key == ["$author.id"]
+    }
+
+    def "ListChanges answers with no changes once the wait has passed"() {
+        given: "the cursor of the latest change"
+        def head = latestCursor()
+
+        when: "the changes after it are requested with a wait of one second"
+        long start = System.nanoTime()
+        MvcResult pending = mockMvc.perform(MockMvcRequestBuilders.get("/changes")
+                .param("since", head)
+                .param("wait", "1"))
+                .andReturn()
+        def response = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(pending))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString()
+
+        then: "the answer comes after the wait, without changes and with the same cursor"
+        Duration.ofNanos(System.nanoTime() - start) >= Duration.ofSeconds(1)
+        objectMapper.readValue(response, ChangeFeedDto) == new ChangeFeedDto([], head)
+    }
+
+    def "ListChanges returns HttpStatus 400 BAD REQUEST for a malformed cursor"() {
+        expect:
+        mockMvc.perform(MockMvcRequestBuilders.get("/changes").param("since", "abc").param("wait", "0"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+    }
+
+    def "compaction keeps the latest change of every author and retention expires older cursors"() {
+        given: "an author changed twice after the cursor of the latest change"
+        def head = latestCursor()
+        def author = authorService.createAuthor(new AuthorDto(null, "Busy Writer", 30))
+        authorService.updatePartialAuthor(author.id, new AuthorDto(null, null, 31))
+        authorService.updatePartialAuthor(author.id, new AuthorDto(null, null, 32))
+
+        when: "the log is compacted"
+        changeLogRepository.deleteSuperseded()
+
+        then: "only the latest change of the author is left"
+        changes(head).changes*.version == [2]
+
+        when: "every change is past the retention"
+        changeLogRepository.deleteOlderThan(Duration.ZERO)
+
+        then: "the old cursor is rejected with HttpStatus 410 GONE"
+        mockMvc.perform(MockMvcRequestBuilders.get("/changes").param("since", head).param("wait", "0"))
+                .andExpect(MockMvcResultMatchers.status().isGone())
+
+        and: "the cursor of the latest change is accepted again"
+        changes(latestCursor()).changes.isEmpty()
+    }
+
+    def "a change made by a transaction that started earlier supersedes the change it followed"() {
+        given: "an author created after the cursor of the latest change"
+        def head = latestCursor()
+        def author = authorService.createAuthor(new AuthorDto(null, "Interleaved Writer", 30))
+
+        and: "a transaction that has written another author, as a group commit does"
+        def connection = dataSource.getConnection()
+        connection.autoCommit = false
+        connection.createStatement().execute("INSERT INTO authors (name, age) VALUES ('Batch Writer', 50)")
+
+        when: "a later transaction changes the author and commits"
+        authorService.updatePartialAuthor(author.id, new AuthorDto(null, null, 31))
+
+        and: "the first transaction changes the author again and commits"
+        connection.createStatement().execute("UPDATE authors SET age = 32, version = version + 1 WHERE id = $author.id")
+        connection.commit()
+
+        then: "the author is not listed with the older change after the newer one"
+        changes(head).changes.findAll { it.key == "$author.id" }*.version == [0, 2]
+
+        when: "the log is compacted"
+        changeLogRepository.deleteSuperseded()
+
+        then: "the latest change of the author is the one left"
+        changes(head).changes.findAll { it.key == "$author.id" }*.version == [2]
+        authorService.findOneOrThrow(author.id).version == 2
+
+        cleanup:
+        connection.close()
+    }
+
+    def "a book created again by a transaction that started before its delete is listed as created"() {
+        given: "a book, and the cursor of the latest change after it"
+        def author = authorService.createAuthor(new AuthorDto(null, "Leaving Writer", 30))
+        bookService.createBook("978-2-000002", new BookDto("978-2-000002", "Gone", author))
+        def head = latestCursor()
+
+        and: "a transaction that has written another author"
+        def connection = dataSource.getConnection()
+        connection.autoCommit = false
+        def inserted = connection.createStatement()
+                .executeQuery("INSERT INTO authors (name, age) VALUES ('Returning Writer', 50) RETURNING id")
+        inserted.next()
+        long returningId = inserted.getLong(1)
+
+        when: "a later transaction deletes the book with its author and commits"
+        bookService.delete("978-2-000002")
+
+        and: "the first transaction creates the book again, of the other author, and commits"
+        connection.createStatement().execute(
+                "INSERT INTO books (isbn, title, author_id) VALUES ('978-2-000002', 'Back', $returningId)")
+        connection.commit()
+
+        then: "the book is listed with its creation only"
+        changes(head).changes.findAll { it.key == "978-2-000002" }*.operation == [ChangeDto.Operation.UPSERT]
+
+        when: "the log is compacted"
+        changeLogRepository.deleteSuperseded()
+
+        then: "the creation is the change left"
+        changes(head).changes.findAll { it.key == "978-2-000002" }*.operation == [ChangeDto.Operation.UPSERT]
+        bookService.findOneOrThrow("978-2-000002").title == "Back"
+
+        cleanup:
+        connection.close()
+    }
+
+    private String latestCursor() {
+        objectMapper.readValue(mockMvc.perform(MockMvcRequestBuilders.get("/changes/head"))
+                .andReturn().getResponse().getContentAsString(), ChangeFeedDto).next
+    }
+
+    private ChangeFeedDto changes(String since, int limit = 100) {
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/changes")
+                .param("since", since)
+                .param("limit", "$limit")
+                .param("wait", "0"))
+                .andReturn()
+        objectMapper.readValue(mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString(), ChangeFeedDto)
+    }
+}
@@ -0,0 +1,170 @@
+package com.vrana.database.controllers
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory
+import com.fasterxml.jackson.dataformat.smile.SmileFactory
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.test.web.server.LocalServerPort
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.http.HttpHeaders
+import org.springframework.http.MediaType
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Specification
+
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.util.zip.GZIPInputStream
+
+// the compression settings of application.properties, which the test resources replace
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = [
+        "server.compression.enabled=true",
+        "server.compression.min-response-size=2KB",
+        "server.compression.mime-types=application/json,application/x-jackson-smile,application/cbor"])
+@AutoConfigureMockMvc
+@Testcontainers
+class ContentNegotiationITSpec extends Specification {
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile")
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor")
+
+    private static final Map<MediaType, ObjectMapper> READERS = [
+            (SMILE): new ObjectMapper(new SmileFactory()),
+            (CBOR) : new ObjectMapper(new CBORFactory())]
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private MockMvc mockMvc
+
+    @Autowired
+    private ObjectMapper objectMapper
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    @LocalServerPort
+    private int port
+
+    def setup() {
+        jdbcTemplate.update("INSERT INTO authors (name, age) VALUES ('Ann Writer', 40)")
+        jdbcTemplate.update("""
+                INSERT INTO books (isbn, title, author_id)
+                SELECT '978-3-' || lpad(i::text, 6, '0'), 'Title ' || i, (SELECT max(id) FROM authors)
+                FROM generate_series(1, 50) AS i""")
+    }
+
+    def cleanup() {
+        jdbcTemplate.update("DELETE FROM books")
+        jdbcTemplate.update("DELETE FROM authors")
+    }
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "#path is written as #mediaType with the content of its JSON body"() {
+        given: "the JSON body"
+        def json = mockMvc.perform(MockMvcRequestBuilders.get(path).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString()
+
+        when: "the binary format is asked for"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get(path).accept(mediaType))
+
+        then: "the body is written in it and varies with the Accept header"
+        result.andExpect(MockMvcResultMatchers.status().is(status))
+                .andExpect(MockMvcResultMatchers.content().contentType(mediaType))
+                .andExpect(MockMvcResultMatchers.header().stringValues(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+
+        and: "it reads back to the JSON body"
+        READERS[mediaType].readTree(result.andReturn().getResponse().getContentAsByteArray()) == objectMapper.readTree(json)
+
+        where:
+        path                  | mediaType | status
+        "/books/978-3-000001" | SMILE     | 200
+        "/books/978-3-000001" | CBOR      | 200
+        "/books?size=50"      | SMILE     | 200
+        "/books?size=50"      | CBOR      | 200
+        "/authors"            | CBOR      | 200
+        "/books/978-3-999999" | SMILE     | 404
+    }
+
+    def "requests without a preference are answered with JSON"() {
+        expect:
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/978-3-000001"))
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+    }
+
+    def "a book in #mediaType has a strong entity tag of its own, which revalidates it and conditions writes"() {
+        given: "the entity tag of the book's JSON body"
+        def jsonTag = mockMvc.perform(MockMvcRequestBuilders.get("/books/978-3-000001").accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG)
+
+        when: "the book is fetched in the binary format"
+        def tag = mockMvc.perform(MockMvcRequestBuilders.get("/books/978-3-000001").accept(mediaType))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG)
+
+        then: "its strong tag names the format as well as the versions"
+        tag == jsonTag.substring(0, jsonTag.length() - 1) + suffix + '"'
+
+        and: "it revalidates the copy in that format"
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/978-3-000001").accept(mediaType)
+                .header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, tag))
+
+        and: "it conditions a write to the book"
+        mockMvc.perform(MockMvcRequestBuilders.patch("/books/978-3-000001").accept(mediaType)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content('{"title": "Renamed"}')
+                .header(HttpHeaders.IF_MATCH, tag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+
+        where:
+        mediaType | suffix
+        SMILE     | "+x-jackson-smile"
+        CBOR      | "+cbor"
+    }
+
+    def "a response past the minimum size is gzipped for a client that accepts it"() {
+        when: "a large page is requested over HTTP accepting gzip"
+        def response = get("/books?size=50", "gzip")
+
+        then: "it is gzipped, which its weak entity tag allows"
+        response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null) == "gzip"
+        response.headers().firstValue(HttpHeaders.ETAG).get().startsWith("W/")
+
+        and: "it unzips to the page"
+        def body = new GZIPInputStream(new ByteArrayInputStream(response.body())).bytes
+        objectMapper.readTree(body).get("content").size() == 50
+    }
+
+    def "a small response or one for a client that does not accept gzip is sent as is"() {
+        expect:
+        get(path, acceptEncoding).headers().firstValue(HttpHeaders.CONTENT_ENCODING).isEmpty()
+
+        where:
+        path                  | acceptEncoding
+        "/books/978-3-000001" | "gzip"
+        "/books?size=50"      | "identity"
+    }
+
+    private HttpResponse<byte[]> get(String path, String acceptEncoding) {
+        HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create("http://localhost:$port$path"))
+                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding)
+                .build(), HttpResponse.BodyHandlers.ofByteArray())
+    }
+}
@@ -0,0 +1,182 @@
+package com.vrana.database.controllers
+
+import com.vrana.database.BookApiApplication
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails
+import org.springframework.boot.builder.SpringApplicationBuilder
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.boot.web.context.WebServerApplicationContext
+import org.springframework.jdbc.core.JdbcTemplate
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Stepwise
+import spock.lang.Tag
+
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.time.Duration
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Compares Tomcat's platform-thread pool with the virtual-threads profile under many concurrent
+ * clients. Each mode runs a separate application on a real port against the same database.
+ * Excluded from the regular test run, execute with {@code ./gradlew perfTest}; the client count
+ * and duration can be changed with {@code -Dperf.clients} and {@code -Dperf.loadSeconds}, the
+ * throughput target with {@code -Dperf.minVirtualThroughputRatio}.
+ */
+@Tag("perf")
+@Stepwise
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@Testcontainers
+class RequestThreadsPerfSpec extends Specification {
+
+    private static final int CLIENTS = Integer.getInteger("perf.clients", 2_000)
+
+    private static final int LOAD_SECONDS = Integer.getInteger("perf.loadSeconds", 20)
+
+    private static final double MIN_VIRTUAL_THROUGHPUT_RATIO = Double.parseDouble(
+            System.getProperty("perf.minVirtualThroughputRatio", "1.0"))
+
+    private static final int BOOKS = 100_000
+
+    // Most requests are lookups of popular books that the cache answers; the rest read a page
+    // from the database. Those hold a pooled connection, the lookups need none.
+    private static final int HOT_BOOKS = 1_000
+
+    private static final int PAGE_REQUEST_PERCENT = 10
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private JdbcConnectionDetails connectionDetails
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    @Shared
+    private LoadResult platform
+
+    def "platform threads serve the clients from Tomcat's thread pool"() {
+        given: "a seeded catalog"
+        seedCatalog()
+
+        when: "the clients load the application running on platform threads"
+        platform = load(false)
+
+        then: "the load was measured"
+        platform.served.sum() > 0
+    }
+
+    def "virtual threads serve the clients with no request failing for want of a connection"() {
+        when: "the clients load the application running on virtual threads"
+        def virtual = load(true)
+
+        then: "every request is either served or turned away with 503"
+        virtual.failed.sum() == 0
+
+        and: "the throughput keeps up with the platform-thread pool"
+        virtual.served.sum() >= platform.served.sum() * MIN_VIRTUAL_THROUGHPUT_RATIO
+    }
+
+    private LoadResult load(boolean virtualThreads) {
+        def application = new SpringApplicationBuilder(BookApiApplication)
+                .profiles(virtualThreads ? ["virtual-threads"] as String[] : [] as String[])
+                .properties("server.port=0",
+                        "spring.jpa.hibernate.ddl-auto=validate",
+                        "spring.datasource.url=${connectionDetails.jdbcUrl}",
+                        "spring.datasource.username=${connectionDetails.username}",
+                        "spring.datasource.password=${connectionDetails.password}")
+                .run()
+        try {
+            def result = load("http://localhost:${(application as WebServerApplicationContext).webServer.port}")
+            println String.format("%s threads: %d clients, %.0f requests/s, p50 %.1f ms, p99 %.1f ms, %d rejected with 503, %d failed",
+                    virtualThreads ? "virtual" : "platform", CLIENTS, result.served.sum() / (double) LOAD_SECONDS,
+                    result.percentile(50) / 1e6, result.percentile(99) / 1e6, result.rejected.sum(), result.failed.sum())
+            result
+        } finally {
+            application.close()
+        }
+    }
+
+    private LoadResult load(String baseUrl) {
+        def result = new LoadResult()
+        def client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build()
+        long deadline = System.nanoTime() + Duration.ofSeconds(LOAD_SECONDS).toNanos()
+        Executors.newVirtualThreadPerTaskExecutor().withCloseable { clients ->
+            CLIENTS.times {
+                clients.submit {
+                    def random = ThreadLocalRandom.current()
+                    while (System.nanoTime() < deadline) {
+                        def path = random.nextInt(100) < PAGE_REQUEST_PERCENT
+                                ? "/books?page=${random.nextInt(BOOKS.intdiv(20))}&size=20"
+                                : "/books/${isbn(random.nextInt(HOT_BOOKS))}"
+                        long start = System.nanoTime()
+                        try {
+                            def response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                                    .timeout(Duration.ofSeconds(60)).build(), HttpResponse.BodyHandlers.discarding())
+                            if (response.statusCode() == 200) {
+                                result.latencies << System.nanoTime() - start
+                                result.served.increment()
+                            } else if (response.statusCode() == 503) {
+                                result.rejected.increment()
+                                Thread.sleep(retryAfter(response).toMillis())
+                            } else {
+                                result.failed.increment()
+                            }
+                        } catch (IOException ignored) {
+                            result.failed.increment()
+                        }
+                    }
+                }
+            }
+        }
+        result
+    }
+
+    private void seedCatalog() {
+        if (jdbcTemplate.queryForObject("SELECT count(*) FROM books", Long) > 0) {
+            return
+        }
+        jdbcTemplate.update("INSERT INTO authors (name, age) SELECT 'Author ' || i, 20 + i % 60 FROM generate_series(1, 1000) AS i")
+        jdbcTemplate.update("""
+                INSERT INTO books (isbn, title, author_id)
+                SELECT lpad(i::text, 13, '0'), 'Title ' || i, (SELECT min(id) FROM authors) + i % 1000
+                FROM generate_series(0, ?) AS i""", BOOKS - 1)
+        jdbcTemplate.execute("ANALYZE books")
+    }
+
+    // Turned away clients wait as long as the 503 asks them to, as well-behaved ones do;
+    // retrying at once would spend the host on answering retries instead of serving requests.
+    private static Duration retryAfter(HttpResponse<?> response) {
+        Duration.ofSeconds(response.headers().firstValueAsLong("Retry-After").orElse(1))
+    }
+
+    private static String isbn(int i) {
+        String.valueOf(i).padLeft(13, "0")
+    }
+
+    private static class LoadResult {
+        final Queue<Long> latencies = new ConcurrentLinkedQueue<>()
+        final LongAdder served = new LongAdder()
+        final LongAdder rejected = new LongAdder()
+        final LongAdder failed = new LongAdder()
+
+        long percentile(int percent) {
+            def sorted = latencies.sort(false)
+            sorted.isEmpty() ? 0 : sorted[Math.min(sorted.size() - 1, (sorted.size() * percent).intdiv(100))]
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.vrana.database.controllers
+
+import com.vrana.database.TestDataUtil
+import com.vrana.database.config.QueryDiagnostics
+import com.vrana.database.domain.dto.AuthorDto
+import com.vrana.database.domain.dto.BookDto
+import com.vrana.database.services.BookService
+import org.hamcrest.Matchers
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.cache.CacheManager
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Specification
+
+import static com.vrana.database.StatementBudget.countStatements
+import static com.vrana.database.StatementBudget.executesAtMost
+import static com.vrana.database.StatementBudget.executesExactly
+
+/**
+ * The statement counting behind the budgets, with every request committed on its own as in
+ * production. The budgets of the endpoints themselves are checked with
+ * {@code executesExactly} in the specs of their controllers.
+ */
+@SpringBootTest(properties = "book-api.query-diagnostics.enabled=true")
+@AutoConfigureMockMvc
+@Testcontainers
+class StatementBudgetITSpec extends Specification {
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private MockMvc mockMvc
+
+    @Autowired
+    private BookService bookService
+
+    @Autowired
+    private CacheManager cacheManager
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    def cleanup() {
+        jdbcTemplate.update("DELETE FROM books")
+        jdbcTemplate.update("DELETE FROM authors")
+        cacheManager.getCacheNames().each { cacheManager.getCache(it).clear() }
+    }
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "every response reports the statements of its request in its headers"() {
+        given: "a saved book"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(TestDataUtil.createTestAuthorDtoA())
+        bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA)
+
+        when: "the book is fetched"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/books/" + testBookDtoA.getIsbn()))
+
+        then: "the statements are counted, and timed with their rows for Server-Timing"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+        result.andExpect(MockMvcResultMatchers.header().string(QueryDiagnostics.QUERY_COUNT_HEADER, "1"))
+        result.andExpect(MockMvcResultMatchers.header().string(QueryDiagnostics.SERVER_TIMING_HEADER,
+                Matchers.matchesPattern(/db;dur=\d+\.\d{3};desc="1 statements, 1 rows"/)))
+    }
+
+    def "a book served from the lookup cache costs no statement"() {
+        given: "a saved book that was fetched once"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(TestDataUtil.createTestAuthorDtoA())
+        bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA)
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + testBookDtoA.getIsbn()))
+
+        expect: "fetching it again does not reach the database"
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/" + testBookDtoA.getIsbn()))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(executesExactly(0))
+    }
+
+    def "a request over its budget fails with its statement count"() {
+        when: "the budget of a request that reads a book is set below its single statement"
+        mockMvc.perform(MockMvcRequestBuilders.get("/books/NON-EXISTING-BOOK"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound())
+                .andExpect(executesAtMost(0))
+
+        then: "the failure names the request and its statements"
+        def error = thrown(AssertionError)
+        error.message.startsWith("GET /books/NON-EXISTING-BOOK executed 1 statements, 0 at most were expected: db;dur=")
+    }
+
+    def "statements of work outside a request are counted with their rows"() {
+        when: "100 books by 100 authors are imported"
+        def statements = countStatements {
+            bookService.createBooks((0..<100).collect {
+                new BookDto(String.format("978-0-%06d", it), "Title $it", new AuthorDto(null, "Author $it", 30))
+            }.iterator())
+        }
+
+        then: "the books and authors are written in batches rather than one by one"
+        statements.count() <= 4
+        statements.rows() >= 200
+    }
+}
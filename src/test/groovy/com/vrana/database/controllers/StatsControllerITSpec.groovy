@@ -0,0 +1,117 @@
+package com.vrana.database.controllers
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.vrana.database.domain.dto.AuthorDto
+import com.vrana.database.domain.dto.BookDto
+import com.vrana.database.domain.dto.CatalogStatsDto
+import com.vrana.database.services.AuthorService
+import com.vrana.database.services.BookService
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.test.web.servlet.MockMvc
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers
+import org.springframework.transaction.annotation.Transactional
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Specification
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@Transactional
+class StatsControllerITSpec extends Specification {
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private MockMvc mockMvc
+
+    @Autowired
+    private ObjectMapper objectMapper
+
+    @Autowired
+    private BookService bookService
+
+    @Autowired
+    private AuthorService authorService
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "GetCatalogStats returns HttpStatus 200 OK with empty aggregates for an empty catalog"() {
+        when: "the statistics are requested"
+        def result = mockMvc.perform(MockMvcRequestBuilders.get("/stats"))
+
+        then: "every count is zero and no bucket is listed"
+        result.andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath('$.books').value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath('$.authors').value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath('$.booksPerAuthor').isEmpty())
+                .andExpect(MockMvcResultMatchers.jsonPath('$.authorAges').isEmpty())
+    }
+
+    def "GetCatalogStats matches a full recomputation after every kind of write"() {
+        given: "books and authors created one by one, in a batch and without books"
+        bookService.createBook("978-1-000001", new BookDto("978-1-000001", "Single", new AuthorDto(null, "Ann Writer", 40)))
+        bookService.createBooks([
+                new BookDto("978-1-000002", "Batch one", new AuthorDto(null, "Bob Writer", 50)),
+                new BookDto("978-1-000003", "Batch two", new AuthorDto(null, "Bob Writer", 50)),
+                new BookDto("978-1-000004", "Batch three", new AuthorDto(null, "Cid Writer", 40)),
+                new BookDto("978-1-000005", "Anonymous", null)
+        ].iterator())
+        def dan = authorService.createAuthor(new AuthorDto(null, "Dan Writer", null))
+        def ann = bookService.findOneOrThrow("978-1-000001").getAuthor()
+
+        when: "an author ages, a book moves to another author and a book is deleted with its author"
+        authorService.updatePartialAuthor(ann.getId(), new AuthorDto(null, null, 41))
+        jdbcTemplate.update("UPDATE books SET author_id = ? WHERE isbn = '978-1-000003'", dan.getId())
+        bookService.delete("978-1-000004")
+
+        and: "the statistics are requested"
+        def response = mockMvc.perform(MockMvcRequestBuilders.get("/stats"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString()
+
+        then: "they equal the aggregates computed from the tables"
+        objectMapper.readValue(response, CatalogStatsDto) == recomputedStats()
+
+        and: "they describe the expected catalog"
+        with(objectMapper.readValue(response, CatalogStatsDto)) {
+            books == 4
+            booksWithoutAuthor == 1
+            authors == 3
+            booksPerAuthor == [new CatalogStatsDto.BooksPerAuthor(1, 3)]
+            authorAges == [new CatalogStatsDto.AuthorAge(41, 1), new CatalogStatsDto.AuthorAge(50, 1),
+                           new CatalogStatsDto.AuthorAge(null, 1)]
+        }
+    }
+
+    private CatalogStatsDto recomputedStats() {
+        CatalogStatsDto.builder()
+                .books(jdbcTemplate.queryForObject("SELECT count(*) FROM books", Long))
+                .booksWithoutAuthor(jdbcTemplate.queryForObject("SELECT count(*) FROM books WHERE author_id IS NULL", Long))
+                .authors(jdbcTemplate.queryForObject("SELECT count(*) FROM authors", Long))
+                .booksPerAuthor(jdbcTemplate.query("""
+                        SELECT books, count(*)
+                        FROM (SELECT count(b.isbn) AS books FROM authors a LEFT JOIN books b ON b.author_id = a.id GROUP BY a.id) c
+                        GROUP BY books
+                        ORDER BY books""",
+                        { rs, rowNum -> new CatalogStatsDto.BooksPerAuthor(rs.getLong(1), rs.getLong(2)) }))
+                .authorAges(jdbcTemplate.query("SELECT age, count(*) FROM authors GROUP BY age ORDER BY age NULLS LAST",
+                        { rs, rowNum -> new CatalogStatsDto.AuthorAge(rs.getObject(1, Integer), rs.getLong(2)) }))
+                .build()
+    }
+}
@@ -0,0 +1,138 @@
+package com.vrana.database.services
+
+import com.vrana.database.TestDataUtil
+import com.vrana.database.domain.dto.AuthorDto
+import com.vrana.database.domain.dto.BookDto
+import io.micrometer.core.instrument.MeterRegistry
+import jakarta.persistence.EntityExistsException
+import jakarta.persistence.EntityNotFoundException
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.cache.CacheManager
+import org.springframework.dao.DataIntegrityViolationException
+import org.springframework.jdbc.core.JdbcTemplate
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+
+// a delay long enough for every write of a test to join the first one's batch
+@SpringBootTest(properties = [
+        "book-api.write-coalescing.enabled=true",
+        "book-api.write-coalescing.max-delay=200ms",
+        "book-api.write-coalescing.max-batch-size=1000"])
+@Testcontainers
+class BookWriteCoalescingITSpec extends Specification {
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private BookService bookService
+
+    @Autowired
+    private CacheManager cacheManager
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    @Autowired
+    private MeterRegistry meterRegistry
+
+    def cleanup() {
+        jdbcTemplate.update("DELETE FROM books")
+        jdbcTemplate.update("DELETE FROM authors")
+        cacheManager.getCacheNames().each { cacheManager.getCache(it).clear() }
+    }
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "concurrent creates share their commits and every caller gets the outcome of its own write"() {
+        given: "thirty new books, one of them sent twice, and a book by an author that does not exist"
+        def books = (1..30).collect { new BookDto("978-0-${String.format('%06d', it)}", "Title $it", TestDataUtil.createTestAuthorDtoA()) }
+        def writes = (books + books.first() + new BookDto("978-0-999999", "Orphan", new AuthorDto(Long.MAX_VALUE, null, null)))
+                .collect { book -> { -> bookService.createBook(book.getIsbn(), book) } }
+        def batches = meterRegistry.get("book.write.batches").summary()
+        def commitsBefore = batches.count()
+
+        when: "all of them are sent at once"
+        def outcomes = concurrently(writes)
+
+        then: "each book is created once, the second copy conflicts and the orphan's author is not found"
+        outcomes.count { it instanceof BookDto } == 30
+        outcomes.count { it instanceof EntityExistsException } == 1
+        outcomes.count { it instanceof EntityNotFoundException } == 1
+        jdbcTemplate.queryForObject("SELECT count(*) FROM books", Long) == 30
+
+        and: "they took fewer commits than writes"
+        batches.count() - commitsBefore < writes.size()
+    }
+
+    def "a write that fails the transaction is repeated alone and the others are still committed"() {
+        given: "ten new books and one whose title is longer than its column"
+        def books = (1..10).collect { new BookDto("978-1-${String.format('%06d', it)}", "Title $it", null) }
+        def tooLong = new BookDto("978-1-999999", "x" * 300, null)
+        def repeated = meterRegistry.get("book.write.batches.repeated").counter()
+        def repeatedBefore = repeated.count()
+
+        when: "all of them are sent at once"
+        def outcomes = concurrently((books + tooLong).collect { book -> { -> bookService.createBook(book.getIsbn(), book) } })
+
+        then: "only the book with the long title fails"
+        outcomes.count { it instanceof BookDto } == 10
+        outcomes.count { it instanceof DataIntegrityViolationException } == 1
+        jdbcTemplate.queryForObject("SELECT count(*) FROM books", Long) == 10
+
+        and: "its batch was repeated write by write"
+        repeated.count() - repeatedBefore >= 1
+    }
+
+    def "of concurrent updates based on the same version tag exactly one is applied"() {
+        given: "a saved book and its version tag"
+        def book = TestDataUtil.createTestBookDtoA(null)
+        bookService.createBook(book.getIsbn(), book)
+        def versionTag = bookService.findVersionTag(book.getIsbn())
+
+        when: "ten callers update its title expecting that tag at once"
+        def outcomes = concurrently((1..10).collect { i ->
+            { -> bookService.updatePartialBook(book.getIsbn(), new BookDto(null, "Title $i", null), [versionTag]) }
+        })
+
+        then: "one update succeeds and the others find the book modified"
+        def applied = outcomes.findAll { it instanceof BookDto }
+        applied.size() == 1
+        outcomes.count { it instanceof VersionMismatchException } == 9
+
+        and: "the book has the title of the applied update"
+        bookService.findOneOrThrow(book.getIsbn()).getTitle() == applied.first().getTitle()
+    }
+
+    // every write is started at the same time, its outcome is its result or its exception
+    private static List<Object> concurrently(List<Closure> writes) {
+        def start = new CountDownLatch(1)
+        Executors.newVirtualThreadPerTaskExecutor().withCloseable { executor ->
+            def futures = writes.collect { write ->
+                executor.submit({
+                    start.await()
+                    try {
+                        write()
+                    } catch (RuntimeException ex) {
+                        ex
+                    }
+                } as Callable)
+            }
+            start.countDown()
+            futures*.get()
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.vrana.database.services
+
+import com.vrana.database.TestDataUtil
+import com.vrana.database.domain.dto.AuthorDto
+import com.vrana.database.domain.dto.BookDto
+import io.micrometer.core.instrument.MeterRegistry
+import jakarta.persistence.EntityManagerFactory
+import jakarta.persistence.EntityNotFoundException
+import org.hibernate.SessionFactory
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.cache.CacheManager
+import org.springframework.jdbc.core.JdbcTemplate
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Specification
+
+import javax.sql.DataSource
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+
+@SpringBootTest
+@Testcontainers
+class LookupCacheITSpec extends Specification {
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private BookService bookService
+
+    @Autowired
+    private AuthorService authorService
+
+    @Autowired
+    private CacheManager cacheManager
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate
+
+    @Autowired
+    private MeterRegistry meterRegistry
+
+    @Autowired
+    private DataSource dataSource
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory
+
+    def cleanup() {
+        jdbcTemplate.update("DELETE FROM books")
+        jdbcTemplate.update("DELETE FROM authors")
+        cacheManager.getCacheNames().each { cacheManager.getCache(it).clear() }
+    }
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "a book is served from the cache until it is updated"() {
+        given: "a saved book"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(TestDataUtil.createTestAuthorDtoA())
+        bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA)
+
+        when: "the book is looked up twice"
+        def firstLookup = bookService.findOneOrThrow(testBookDtoA.getIsbn())
+        def secondLookup = bookService.findOneOrThrow(testBookDtoA.getIsbn())
+
+        then: "the second lookup is answered from the cache"
+        secondLookup.is(firstLookup)
+
+        when: "the book is updated and looked up again"
+        bookService.updatePartialBook(testBookDtoA.getIsbn(), new BookDto(null, "A New Title", null))
+        def updatedLookup = bookService.findOneOrThrow(testBookDtoA.getIsbn())
+
+        then: "the lookup reflects the update"
+        updatedLookup.getTitle() == "A New Title"
+    }
+
+    def "updating an author evicts the author and every book that embeds it"() {
+        given: "two books by the same author"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(TestDataUtil.createTestAuthorDtoA())
+        def authorId = bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA).getAuthor().getId()
+        def testBookDtoB = TestDataUtil.createTestBookDtoB(authorService.findOneOrThrow(authorId))
+        bookService.createBook(testBookDtoB.getIsbn(), testBookDtoB)
+
+        and: "the author and both books are cached"
+        authorService.findOneOrThrow(authorId)
+        bookService.findOneOrThrow(testBookDtoA.getIsbn())
+        bookService.findOneOrThrow(testBookDtoB.getIsbn())
+
+        when: "the author is renamed"
+        authorService.updatePartialAuthor(authorId, new AuthorDto(null, "Renamed Author", null))
+
+        then: "the author and both books are looked up with the new name"
+        authorService.findOneOrThrow(authorId).getName() == "Renamed Author"
+        bookService.findOneOrThrow(testBookDtoA.getIsbn()).getAuthor().getName() == "Renamed Author"
+        bookService.findOneOrThrow(testBookDtoB.getIsbn()).getAuthor().getName() == "Renamed Author"
+    }
+
+    def "updating a book's embedded author evicts the other books of that author"() {
+        given: "two cached books by the same author"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(TestDataUtil.createTestAuthorDtoA())
+        def author = bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA).getAuthor()
+        def testBookDtoB = TestDataUtil.createTestBookDtoB(author)
+        bookService.createBook(testBookDtoB.getIsbn(), testBookDtoB)
+        bookService.findOneOrThrow(testBookDtoA.getIsbn())
+        bookService.findOneOrThrow(testBookDtoB.getIsbn())
+
+        when: "book A is updated with a changed author"
+        bookService.updatePartialBook(testBookDtoA.getIsbn(),
+                new BookDto(null, null, new AuthorDto(author.getId(), "Renamed Author", author.getAge())))
+
+        then: "book B is looked up with the changed author"
+        bookService.findOneOrThrow(testBookDtoB.getIsbn()).getAuthor().getName() == "Renamed Author"
+    }
+
+    def "cache hits and misses are published as metrics"() {
+        given: "a saved author that is looked up twice"
+        def authorId = authorService.createAuthor(TestDataUtil.createTestAuthorDtoA()).getId()
+        2.times { authorService.findOneOrThrow(authorId) }
+
+        expect: "the miss and the hit are counted in the cache metrics"
+        meterRegistry.get("cache.gets").tags("cache", "authors", "result", "miss").functionCounter().count() >= 1
+        meterRegistry.get("cache.gets").tags("cache", "authors", "result", "hit").functionCounter().count() >= 1
+    }
+
+    def "a burst of lookups of one uncached #cache key runs a single query"() {
+        given: "a saved book and its author, neither of them cached"
+        def testBookDtoA = TestDataUtil.createTestBookDtoA(TestDataUtil.createTestAuthorDtoA())
+        def saved = bookService.createBook(testBookDtoA.getIsbn(), testBookDtoA)
+        Closure lookup = cache == "books"
+                ? { bookService.findOneOrThrow(saved.getIsbn()) }
+                : { authorService.findOneOrThrow(saved.getAuthor().getId()) }
+
+        when: "fifty callers look it up at once"
+        def burst = burst(cache, 50, lookup)
+
+        then: "all of them share the result of one query, which is cached"
+        burst.queries == 1
+        burst.results.every { it.is(lookup()) }
+
+        where:
+        cache << ["books", "authors"]
+    }
+
+    def "a burst of lookups of a missing key runs a single query and every caller gets not found"() {
+        when: "fifty callers look up a book that does not exist at once"
+        def burst = burst("books", 50) { bookService.findOneOrThrow("978-0-000000") }
+
+        then: "all of them fail from one query"
+        burst.queries == 1
+        burst.results.every { it instanceof EntityNotFoundException }
+    }
+
+    // The burst is held up by a lock on both tables until every caller but the one that runs
+    // the query waits for it, so the callers overlap however they are scheduled.
+    private Burst burst(String cache, int callers, Closure lookup) {
+        def statistics = entityManagerFactory.unwrap(SessionFactory).getStatistics()
+        def coalesced = { meterRegistry.get("cache.coalesced").tags("cache", cache).functionCounter().count() }
+        def coalescedBefore = coalesced()
+        def lock = dataSource.getConnection()
+        lock.setAutoCommit(false)
+        lock.createStatement().execute("LOCK TABLE books, authors IN ACCESS EXCLUSIVE MODE")
+        long statementsBefore = statistics.getPrepareStatementCount()
+        def start = new CountDownLatch(1)
+        try {
+            Executors.newVirtualThreadPerTaskExecutor().withCloseable { executor ->
+                def futures = (1..callers).collect {
+                    executor.submit({
+                        start.await()
+                        try {
+                            lookup()
+                        } catch (RuntimeException ex) {
+                            ex
+                        }
+                    } as Callable)
+                }
+                start.countDown()
+                long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos()
+                while (coalesced() - coalescedBefore < callers - 1 && System.nanoTime() < deadline) {
+                    Thread.sleep(10)
+                }
+                lock.rollback()
+                def results = futures*.get()
+                new Burst(results, statistics.getPrepareStatementCount() - statementsBefore)
+            }
+        } finally {
+            lock.close()
+        }
+    }
+
+    private static class Burst {
+        final List<Object> results
+        final long queries
+
+        Burst(List<Object> results, long queries) {
+            this.results = results
+            this.queries = queries
+        }
+    }
+}
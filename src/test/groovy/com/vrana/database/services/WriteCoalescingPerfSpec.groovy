@@ -0,0 +1,159 @@
+package com.vrana.database.services
+
+import com.vrana.database.BookApiApplication
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails
+import org.springframework.boot.builder.SpringApplicationBuilder
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection
+import org.springframework.boot.web.context.WebServerApplicationContext
+import org.springframework.http.HttpHeaders
+import org.springframework.http.MediaType
+import org.testcontainers.containers.PostgreSQLContainer
+import org.testcontainers.junit.jupiter.Container
+import org.testcontainers.junit.jupiter.Testcontainers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Stepwise
+import spock.lang.Tag
+
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.time.Duration
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * Writes per second of concurrent clients that each create a book with
+ * {@code POST /books/{isbn}} and then rename it with {@code PATCH /books/{isbn}}, once with a
+ * commit per request and once with the writes coalesced into shared transactions. Each run
+ * starts a separate application on a real port against the same database.
+ * Excluded from the regular test run, execute with {@code ./gradlew perfTest}; the number of
+ * clients and the duration of a run can be changed with {@code -Dperf.writeClients} and
+ * {@code -Dperf.stepSeconds}. The expected speedup depends on what a commit costs the
+ * database's disk and can be adjusted with {@code -Dperf.minSpeedup}.
+ */
+@Tag("perf")
+@Stepwise
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@Testcontainers
+class WriteCoalescingPerfSpec extends Specification {
+
+    private static final int CLIENTS = Integer.getInteger("perf.writeClients", 200)
+
+    private static final int STEP_SECONDS = Integer.getInteger("perf.stepSeconds", 10)
+
+    private static final double MIN_SPEEDUP = Double.parseDouble(System.getProperty("perf.minSpeedup", "1.2"))
+
+    @Container
+    @ServiceConnection
+    private final static PostgreSQLContainer postgres = new PostgreSQLContainer<>("postgres:latest")
+
+    @Autowired
+    private JdbcConnectionDetails connectionDetails
+
+    @Shared
+    private AtomicLong isbns = new AtomicLong()
+
+    @Shared
+    private RunResult perRequest
+
+    def "connection to postgresql test container established"() {
+        expect: "postgresql test container was created successfully and is running"
+        postgres.isCreated()
+        postgres.isRunning()
+    }
+
+    def "without coalescing every write commits on its own"() {
+        when: "the clients write with a commit per request"
+        perRequest = load(false)
+
+        then: "every write succeeded"
+        perRequest.written.sum() > 0
+        perRequest.failed.sum() == 0
+    }
+
+    def "with coalescing the same clients write more per second"() {
+        when: "the clients write with the writes coalesced"
+        def coalesced = load(true)
+
+        then: "every write succeeded"
+        coalesced.failed.sum() == 0
+
+        and: "more of them were written per second"
+        coalesced.throughput() >= perRequest.throughput() * MIN_SPEEDUP
+    }
+
+    private RunResult load(boolean coalesced) {
+        // the concurrency limit and the wait for a connection would turn most of the clients away
+        def properties = ["server.port=0",
+                          "spring.jpa.hibernate.ddl-auto=validate",
+                          "spring.datasource.url=${connectionDetails.jdbcUrl}",
+                          "spring.datasource.username=${connectionDetails.username}",
+                          "spring.datasource.password=${connectionDetails.password}",
+                          "book-api.concurrency-limit.initial-limit=1000000",
+                          "book-api.concurrency-limit.min-limit=1000000",
+                          "book-api.concurrency-limit.max-limit=1000000",
+                          "book-api.connection-permits.max-wait=60s",
+                          "book-api.write-coalescing.enabled=$coalesced"]
+        def application = new SpringApplicationBuilder(BookApiApplication)
+                .properties(properties*.toString() as String[])
+                .run()
+        try {
+            def result = load("http://localhost:${(application as WebServerApplicationContext).webServer.port}")
+            println String.format("%s: %d clients, %.0f writes/s, %d failed",
+                    coalesced ? "coalesced" : "commit per request", CLIENTS, result.throughput(), result.failed.sum())
+            result
+        } finally {
+            application.close()
+        }
+    }
+
+    private RunResult load(String baseUrl) {
+        def result = new RunResult()
+        def client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build()
+        long deadline = System.nanoTime() + Duration.ofSeconds(STEP_SECONDS).toNanos()
+        Executors.newVirtualThreadPerTaskExecutor().withCloseable { executor ->
+            CLIENTS.times {
+                executor.submit {
+                    while (System.nanoTime() < deadline) {
+                        def isbn = String.format("979-%09d", isbns.incrementAndGet())
+                        write(client, result, HttpRequest.newBuilder(URI.create("$baseUrl/books/$isbn"))
+                                .POST(HttpRequest.BodyPublishers.ofString("""{"title": "Title $isbn"}""")), 201)
+                        write(client, result, HttpRequest.newBuilder(URI.create("$baseUrl/books/$isbn"))
+                                .method("PATCH", HttpRequest.BodyPublishers.ofString("""{"title": "Renamed $isbn"}""")), 200)
+                    }
+                }
+            }
+        }
+        result
+    }
+
+    private static void write(HttpClient client, RunResult result, HttpRequest.Builder request, int expectedStatus) {
+        try {
+            def response = client.send(request.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .timeout(Duration.ofSeconds(60)).build(), HttpResponse.BodyHandlers.discarding())
+            if (response.statusCode() == expectedStatus) {
+                result.written.increment()
+            } else {
+                result.failed.increment()
+            }
+        } catch (IOException ignored) {
+            result.failed.increment()
+        }
+    }
+
+    private static class RunResult {
+        final LongAdder written = new LongAdder()
+        final LongAdder failed = new LongAdder()
+
+        double throughput() {
+            written.sum() / (double) STEP_SECONDS
+        }
+    }
+}